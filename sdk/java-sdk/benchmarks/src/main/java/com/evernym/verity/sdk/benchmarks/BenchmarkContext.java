@@ -0,0 +1,54 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.exceptions.VerityException;
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.ContextBuilder;
+import com.evernym.verity.sdk.utils.Did;
+import com.evernym.verity.sdk.wallet.DefaultWalletConfig;
+import com.evernym.verity.sdk.wallet.WalletConfig;
+import org.hyperledger.indy.sdk.IndyException;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Creates a throw-away local indy wallet holding the keys of both the SDK and the (simulated) Verity agent, so
+ * packed messages can be unpacked again with the same Context.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {}
+
+    public static Context create() throws VerityException, IndyException, ExecutionException, InterruptedException {
+        WalletConfig walletConfig = DefaultWalletConfig.build(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        Wallet.createWallet(walletConfig.config(), walletConfig.credential()).get();
+
+        Context context = ContextBuilder.blank()
+                .walletConfig(walletConfig)
+                .verityUrl("http://localhost:9000")
+                .endpointUrl("http://localhost:4000")
+                .build();
+
+        Did verityPublic = Did.createNewDid(context.walletHandle());
+        Did verityAgent = Did.createNewDid(context.walletHandle());
+        Did sdk = Did.createNewDid(context.walletHandle());
+
+        return context.toContextBuilder()
+                .verityPublicDID(verityPublic.did)
+                .verityPublicVerKey(verityPublic.verkey)
+                .domainDID(verityAgent.did)
+                .verityAgentVerKey(verityAgent.verkey)
+                .sdkVerKeyId(sdk.did)
+                .sdkVerKey(sdk.verkey)
+                .build();
+    }
+
+    public static void destroy(Context context) throws Exception {
+        if (context == null) return;
+        if (!context.walletIsClosed()) {
+            context.closeWallet();
+        }
+        WalletConfig config = context.walletConfig();
+        Wallet.deleteWallet(config.config(), config.credential()).get();
+    }
+}
@@ -0,0 +1,73 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.handlers.Handlers;
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.MsgFamilyBuilder;
+import org.hyperledger.indy.sdk.crypto.Crypto;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Handlers.handleMessage (unpack plus dispatch) and Handlers.handleUnpackedMessage (dispatch only) for an
+ * increasing number of registered handlers. Dispatch is a hash lookup, so its cost should not grow with the count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HandlersBenchmark {
+    @Param({"1", "10", "50", "200"})
+    int handlerCount;
+
+    private Context context;
+    private Handlers handlers;
+    private byte[] inboundMessage;
+    private JSONObject unpackedMessage;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        this.blackhole = blackhole;
+        context = BenchmarkContext.create();
+        inboundMessage = Crypto.packMessage(
+                context.walletHandle(),
+                "[" + JSONObject.quote(context.sdkVerKey()) + "]",
+                context.verityAgentVerKey(),
+                Messages.inbound().toString().getBytes(StandardCharsets.UTF_8)
+        ).get();
+        unpackedMessage = Messages.inbound();
+
+        handlers = new Handlers();
+        handlers.addHandler(MsgFamilyBuilder.fromQualifiedMsgType(Messages.INBOUND_TYPE), this::consume);
+        for (int i = 1; i < handlerCount; i++) {
+            String type = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/family-" + i + "/1.0/some-message";
+            handlers.addHandler(MsgFamilyBuilder.fromQualifiedMsgType(type), this::consume);
+        }
+    }
+
+    private void consume(String msgName, JSONObject message) {
+        blackhole.consume(msgName);
+        blackhole.consume(message);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkContext.destroy(context);
+    }
+
+    @Benchmark
+    public void handleMessage() throws Exception {
+        handlers.handleMessage(context, inboundMessage);
+    }
+
+    @Benchmark
+    public void dispatch() {
+        handlers.handleUnpackedMessage(unpackedMessage);
+    }
+}
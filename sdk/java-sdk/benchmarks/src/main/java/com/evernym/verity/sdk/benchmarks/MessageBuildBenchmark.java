@@ -0,0 +1,160 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.protocols.issuecredential.IssueCredential;
+import com.evernym.verity.sdk.protocols.issuecredential.v1_0.IssueCredentialV1_0;
+import com.evernym.verity.sdk.protocols.issuersetup.IssuerSetup;
+import com.evernym.verity.sdk.protocols.issuersetup.v0_6.IssuerSetupV0_6;
+import com.evernym.verity.sdk.protocols.presentproof.PresentProof;
+import com.evernym.verity.sdk.protocols.presentproof.common.Attribute;
+import com.evernym.verity.sdk.protocols.presentproof.common.RestrictionBuilder;
+import com.evernym.verity.sdk.protocols.presentproof.v1_0.PresentProofV1_0;
+import com.evernym.verity.sdk.protocols.provision.Provision;
+import com.evernym.verity.sdk.protocols.provision.v0_7.ProvisionV0_7;
+import com.evernym.verity.sdk.protocols.questionanswer.CommittedAnswer;
+import com.evernym.verity.sdk.protocols.questionanswer.QuestionAnswer;
+import com.evernym.verity.sdk.protocols.questionanswer.v1_0.CommittedAnswerV1_0;
+import com.evernym.verity.sdk.protocols.questionanswer.v1_0.QuestionAnswerV1_0;
+import com.evernym.verity.sdk.protocols.relationship.Relationship;
+import com.evernym.verity.sdk.protocols.relationship.v1_0.RelationshipV1_0;
+import com.evernym.verity.sdk.protocols.updateconfigs.UpdateConfigs;
+import com.evernym.verity.sdk.protocols.updateconfigs.v0_6.UpdateConfigsV0_6;
+import com.evernym.verity.sdk.protocols.updateendpoint.UpdateEndpoint;
+import com.evernym.verity.sdk.protocols.updateendpoint.v0_6.UpdateEndpointV0_6;
+import com.evernym.verity.sdk.protocols.writecreddef.WriteCredentialDefinition;
+import com.evernym.verity.sdk.protocols.writecreddef.v0_6.WriteCredentialDefinitionV0_6;
+import com.evernym.verity.sdk.protocols.writeschema.WriteSchema;
+import com.evernym.verity.sdk.protocols.writeschema.v0_6.WriteSchemaV0_6;
+import com.evernym.verity.sdk.utils.Context;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building each protocol's outbound message (the *Msg methods) and, for the credential offer,
+ * building plus serialising it the way Util does before packing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBuildBenchmark {
+    private static final String FOR_RELATIONSHIP = "CV65RFpeCtPu82hNF9i61G";
+    private static final String THREAD_ID = "b4c8d3e5-0000-4000-8000-000000000000";
+
+    private Context context;
+
+    private IssueCredentialV1_0 offer;
+    private IssueCredentialV1_0 issue;
+    private PresentProofV1_0 proofRequest;
+    private QuestionAnswerV1_0 question;
+    private CommittedAnswerV1_0 committedQuestion;
+    private RelationshipV1_0 relationship;
+    private IssuerSetupV0_6 issuerSetup;
+    private UpdateConfigsV0_6 updateConfigs;
+    private UpdateEndpointV0_6 updateEndpoint;
+    private WriteSchemaV0_6 writeSchema;
+    private WriteCredentialDefinitionV0_6 writeCredDef;
+    private ProvisionV0_7 provision;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.create();
+
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "Joe Smith");
+        values.put("degree", "Bachelors");
+
+        offer = IssueCredential.v1_0(FOR_RELATIONSHIP, "V4SGRU86Z58d6TV7PBUe6f:3:CL:24:latest", values, "Welcome!", "0", false);
+        issue = IssueCredential.v1_0(FOR_RELATIONSHIP, THREAD_ID);
+        proofRequest = PresentProof.v1_0(FOR_RELATIONSHIP, "Proof of Degree",
+                new Attribute("name", RestrictionBuilder.blank().issuerDid("V4SGRU86Z58d6TV7PBUe6f").build()),
+                new Attribute("degree", RestrictionBuilder.blank().issuerDid("V4SGRU86Z58d6TV7PBUe6f").build()));
+        question = QuestionAnswer.v1_0(FOR_RELATIONSHIP, "Hi Alice", "Are you on the phone with Faber?",
+                new String[]{"Yes", "No"}, true);
+        committedQuestion = CommittedAnswer.v1_0(FOR_RELATIONSHIP, "Hi Alice", "Are you on the phone with Faber?",
+                new String[]{"Yes", "No"}, true);
+        relationship = Relationship.v1_0("Faber College");
+        issuerSetup = IssuerSetup.v0_6();
+        updateConfigs = UpdateConfigs.v0_6("Faber College", "http://robohash.org/235");
+        updateEndpoint = UpdateEndpoint.v0_6();
+        writeSchema = WriteSchema.v0_6("Diploma", "0.1", "name", "degree");
+        writeCredDef = WriteCredentialDefinition.v0_6("Diploma", "V4SGRU86Z58d6TV7PBUe6f:2:Diploma:0.1", "latest");
+        provision = Provision.v0_7();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkContext.destroy(context);
+    }
+
+    @Benchmark
+    public JSONObject issueCredentialOfferMsg() throws Exception {
+        return offer.offerCredentialMsg(context);
+    }
+
+    @Benchmark
+    public byte[] issueCredentialOfferMsgSerialized() throws Exception {
+        return offer.offerCredentialMsg(context).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JSONObject issueCredentialIssueMsg() throws Exception {
+        return issue.issueCredentialMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject presentProofRequestMsg() throws Exception {
+        return proofRequest.requestMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject questionAnswerAskMsg() throws Exception {
+        return question.askMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject committedAnswerAskMsg() throws Exception {
+        return committedQuestion.askMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject relationshipCreateMsg() throws Exception {
+        return relationship.createMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject issuerSetupCreateMsg() {
+        return issuerSetup.createMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject updateConfigsUpdateMsg() throws Exception {
+        return updateConfigs.updateMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject updateEndpointUpdateMsg() throws Exception {
+        return updateEndpoint.updateMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject writeSchemaWriteMsg() throws Exception {
+        return writeSchema.writeMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject writeCredDefWriteMsg() throws Exception {
+        return writeCredDef.writeMsg(context);
+    }
+
+    @Benchmark
+    public JSONObject provisionMsg() throws Exception {
+        return provision.provisionMsg(context);
+    }
+}
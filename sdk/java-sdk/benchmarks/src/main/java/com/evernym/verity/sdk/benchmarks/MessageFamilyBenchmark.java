@@ -0,0 +1,45 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.protocols.presentproof.PresentProof;
+import com.evernym.verity.sdk.utils.MsgFamilyBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the message type handling done for every inbound message: MessageFamily.matches and
+ * MessageFamily.messageName on a protocol interface, and parsing a family with MsgFamilyBuilder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageFamilyBenchmark {
+    private final MessageFamily family = PresentProof.v1_0("CV65RFpeCtPu82hNF9i61G", "thread-id");
+
+    private final String matchingType = Messages.INBOUND_TYPE;
+    private final String otherType = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0/sent";
+
+    @Benchmark
+    public boolean matches() {
+        return family.matches(matchingType);
+    }
+
+    @Benchmark
+    public boolean matchesMiss() {
+        return family.matches(otherType);
+    }
+
+    @Benchmark
+    public String messageName() throws Exception {
+        return family.messageName(matchingType);
+    }
+
+    @Benchmark
+    public MessageFamily fromQualifiedMsgType() {
+        return MsgFamilyBuilder.fromQualifiedMsgType(matchingType);
+    }
+}
@@ -0,0 +1,34 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import org.json.JSONObject;
+
+/**
+ * Representative messages shared by the benchmarks
+ */
+final class Messages {
+    private Messages() {}
+
+    static final String INBOUND_TYPE = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/present-proof/1.0/presentation-result";
+
+    /**
+     * @return a message shaped like a presentation-result sent by Verity to the SDK's webhook
+     */
+    static JSONObject inbound() {
+        return new JSONObject()
+                .put("@type", INBOUND_TYPE)
+                .put("@id", "c5d9e4f6-0000-4000-8000-000000000000")
+                .put("~thread", new JSONObject().put("thid", "b4c8d3e5-0000-4000-8000-000000000000"))
+                .put("verification_result", "ProofValidated")
+                .put("requested_presentation", new JSONObject()
+                        .put("revealed_attrs", new JSONObject()
+                                .put("name", new JSONObject()
+                                        .put("identifier_index", 0)
+                                        .put("value", "Joe Smith"))
+                                .put("degree", new JSONObject()
+                                        .put("identifier_index", 0)
+                                        .put("value", "Bachelors")))
+                        .put("self_attested_attrs", new JSONObject())
+                        .put("unrevealed_attrs", new JSONObject())
+                        .put("predicates", new JSONObject()));
+    }
+}
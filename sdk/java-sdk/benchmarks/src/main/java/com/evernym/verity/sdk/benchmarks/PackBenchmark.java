@@ -0,0 +1,76 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.Util;
+import org.hyperledger.indy.sdk.crypto.Crypto;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Util.packMessageForVerity with the previous implementation, which rebuilt the recipient key arrays
+ * and parsed and re-serialised the inner packed message for every call. Run with -prof gc to see the
+ * difference in allocation per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PackBenchmark {
+    private Context context;
+    private JSONObject message;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.create();
+        message = new JSONObject()
+                .put("@type", "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0/offer")
+                .put("@id", "a3b7c2d4-0000-4000-8000-000000000000")
+                .put("~for_relationship", "CV65RFpeCtPu82hNF9i61G")
+                .put("~thread", new JSONObject().put("thid", "b4c8d3e5-0000-4000-8000-000000000000"))
+                .put("cred_def_id", "V4SGRU86Z58d6TV7PBUe6f:3:CL:24:latest")
+                .put("credential_values", new JSONObject().put("name", "Joe Smith").put("degree", "Bachelors"))
+                .put("comment", "Welcome!")
+                .put("price", "0")
+                .put("auto_issue", false);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkContext.destroy(context);
+    }
+
+    @Benchmark
+    public byte[] pack() throws Exception {
+        return Util.packMessageForVerity(context, message);
+    }
+
+    @Benchmark
+    public byte[] legacyPack() throws Exception {
+        String pairwiseReceiver = new JSONArray(new String[]{context.verityAgentVerKey()}).toString();
+        String verityReceiver = new JSONArray(new String[]{context.verityPublicVerKey()}).toString();
+
+        byte[] agentMessage = Crypto.packMessage(
+                context.walletHandle(),
+                pairwiseReceiver,
+                context.sdkVerKey(),
+                message.toString().getBytes()
+        ).get();
+
+        JSONObject fwdMessage = new JSONObject();
+        fwdMessage.put("@type", "did:sov:123456789abcdefghi1234;spec/routing/1.0/FWD");
+        fwdMessage.put("@fwd", context.domainDID());
+        fwdMessage.put("@msg", new JSONObject(new String(agentMessage)));
+
+        return Crypto.packMessage(
+                context.walletHandle(),
+                verityReceiver,
+                null,
+                fwdMessage.toString().getBytes()
+        ).get();
+    }
+}
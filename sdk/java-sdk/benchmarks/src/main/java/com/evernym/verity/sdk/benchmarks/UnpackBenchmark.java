@@ -0,0 +1,55 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.Util;
+import org.hyperledger.indy.sdk.crypto.Crypto;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decryption of inbound messages: a message packed by the Verity agent for the SDK key
+ * (Util.unpackMessage) and a full outbound message with its forward envelope (Util.unpackForwardMessage).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UnpackBenchmark {
+    private Context context;
+    private byte[] inboundMessage;
+    private byte[] forwardMessage;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.create();
+        JSONObject message = Messages.inbound();
+
+        inboundMessage = Crypto.packMessage(
+                context.walletHandle(),
+                "[" + JSONObject.quote(context.sdkVerKey()) + "]",
+                context.verityAgentVerKey(),
+                message.toString().getBytes(StandardCharsets.UTF_8)
+        ).get();
+        forwardMessage = Util.packMessageForVerity(context, message);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkContext.destroy(context);
+    }
+
+    @Benchmark
+    public JSONObject unpackMessage() throws Exception {
+        return Util.unpackMessage(context, inboundMessage);
+    }
+
+    @Benchmark
+    public JSONObject unpackForwardMessage() throws Exception {
+        return Util.unpackForwardMessage(context, forwardMessage);
+    }
+}
@@ -0,0 +1,53 @@
+package com.evernym.verity.sdk.benchmarks;
+
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.ContextBuilder;
+import com.evernym.verity.sdk.utils.WalletUtil;
+import com.evernym.verity.sdk.wallet.DefaultWalletConfig;
+import com.evernym.verity.sdk.wallet.KeyDerivationMethod;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a worker pays at startup to get a usable Context: opening (and closing) its wallet, for each key
+ * derivation method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalletOpenBenchmark {
+    @Param({"ARGON2I_MOD", "ARGON2I_INT", "RAW"})
+    KeyDerivationMethod keyDerivationMethod;
+
+    private DefaultWalletConfig walletConfig;
+
+    @Setup
+    public void setup() throws Exception {
+        String key = keyDerivationMethod == KeyDerivationMethod.RAW
+                ? WalletUtil.generateRawKey()
+                : UUID.randomUUID().toString();
+        walletConfig = DefaultWalletConfig.build(UUID.randomUUID().toString(), key, null, keyDerivationMethod);
+        WalletUtil.tryCreateWallet(walletConfig);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Wallet.deleteWallet(walletConfig.config(), walletConfig.credential()).get();
+    }
+
+    @Benchmark
+    public Context openContext() throws Exception {
+        Context context = ContextBuilder.blank()
+                .walletConfig(walletConfig)
+                .verityUrl("http://localhost:9000")
+                .build();
+        context.closeWallet();
+        return context;
+    }
+}
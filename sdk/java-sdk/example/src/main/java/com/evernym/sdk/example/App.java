@@ -7,6 +7,7 @@ import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
 import com.evernym.verity.sdk.exceptions.WalletOpenException;
+import com.evernym.verity.sdk.protocols.Protocol;
 import com.evernym.verity.sdk.protocols.provision.v0_7.ProvisionV0_7;
 import com.evernym.verity.sdk.protocols.relationship.Relationship;
 import com.evernym.verity.sdk.protocols.relationship.v1_0.RelationshipV1_0;
@@ -40,6 +41,8 @@ import org.json.JSONObject;
 import java.io.*;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -168,24 +171,25 @@ public class App extends Helper {
         // constructor for the Issuer Setup protocol
         IssuerSetupV0_6 issuerSetup = IssuerSetup.v0_6();
 
-        AtomicBoolean issuerComplete = new AtomicBoolean(false); // spinlock bool
-
-        // handler for current issuer identifier message
-        handle(issuerSetup, (String msgName, JSONObject message) -> {
-            if("public-identifier".equals(msgName))
-            {
-                printlnMessage(msgName, message);
-                issuerDID = message.getString("did");
-                issuerVerkey = message.getString("verKey");
-            }
-            issuerComplete.set(true);
-        });
-
-        // query the current identifier
-        issuerSetup.currentPublicIdentifier(context);
+        // query the current identifier, the future completes with the response from verity application
+        CompletableFuture<JSONObject> reply = Protocol.sendAndAwaitReply(
+                context,
+                issuerSetup.currentPublicIdentifierMsg(context),
+                handlers,
+                null, // any response, there is no public identifier when it was not created yet
+                60,
+                TimeUnit.SECONDS
+        );
 
         // wait for response from verity application
-        waitFor(issuerComplete, "Waiting for current issuer DID");
+        JSONObject message = waitFor(reply, "Waiting for current issuer DID");
+        String msgName = message.getString("@type").substring(message.getString("@type").lastIndexOf('/') + 1);
+        if("public-identifier".equals(msgName))
+        {
+            printlnMessage(msgName, message);
+            issuerDID = message.getString("did");
+            issuerVerkey = message.getString("verKey");
+        }
     }
 
     void setup() throws IOException, VerityException {
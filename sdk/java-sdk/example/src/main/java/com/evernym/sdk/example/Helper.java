@@ -11,11 +11,13 @@ import com.evernym.verity.sdk.utils.Context;
 import org.json.JSONObject;
 
 import java.io.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class Helper {
     Listener listener;
-    Handlers handlers;
+    Handlers handlers = new Handlers();
 
     Context context;
     private static PrintStream err = System.err;
@@ -51,9 +53,9 @@ public abstract class Helper {
 
     // Basic http server listening for messages from Verity
     void startListening() throws IOException, InterruptedException {
-        listener = new Listener(listenerPort(), (String encryptedMessageFromVerity) -> {
+        listener = new Listener(listenerPort(), (byte[] encryptedMessageFromVerity) -> {
             try {
-                handlers.handleMessage(context, encryptedMessageFromVerity.getBytes());
+                handlers.handleMessage(context, encryptedMessageFromVerity);
             } catch(Exception ex) {
                 ex.printStackTrace();
             }
@@ -63,10 +65,6 @@ public abstract class Helper {
     }
 
     void handle(MessageFamily messageFamily, MessageHandler.Handler messageHandler) {
-        if(handlers == null) {
-            handlers = new Handlers();
-        }
-
         handlers.addHandler(messageFamily, (String msgName, JSONObject message) -> {
             try {
                 messageHandler.handle(msgName, message);
@@ -186,6 +184,24 @@ public abstract class Helper {
         }
     }
 
+    static JSONObject waitFor(CompletableFuture<JSONObject> reply, String waitMsg) throws IOException, VerityException {
+        System.out.println();
+        System.out.print(waitMsg + " ... ");
+        System.out.flush();
+        try {
+            JSONObject rtn = reply.get();
+            System.out.print("Done\n");
+            return rtn;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof VerityException) throw (VerityException) e.getCause();
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
     static void waitFor(AtomicBoolean canContinue, String waitMsg) {
         ByteArrayOutputStream recordedOut = new ByteArrayOutputStream();
         PrintStream out = System.out;
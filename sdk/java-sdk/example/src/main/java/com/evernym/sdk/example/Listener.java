@@ -30,7 +30,7 @@ import org.apache.http.protocol.HttpRequestHandler;
 import org.apache.http.util.EntityUtils;
 
 interface Handler {
-    public void handler(String message);
+    public void handler(byte[] message);
 }
 
 public class Listener {
@@ -103,7 +103,7 @@ public class Listener {
             if (request instanceof HttpEntityEnclosingRequest) {
                 HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
                 byte[] entityContent = EntityUtils.toByteArray(entity);
-                Listener.this.handler.handler(new String(entityContent));
+                Listener.this.handler.handler(entityContent);
             }
             
             HttpCoreContext coreContext = HttpCoreContext.adapt(context);
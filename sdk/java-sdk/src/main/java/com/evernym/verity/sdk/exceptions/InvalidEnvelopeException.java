@@ -0,0 +1,6 @@
+package com.evernym.verity.sdk.exceptions;
+
+public class InvalidEnvelopeException extends VerityException {
+    public InvalidEnvelopeException(String message) {super(message);}
+    public InvalidEnvelopeException(String message, Throwable cause) {super(message, cause);}
+}
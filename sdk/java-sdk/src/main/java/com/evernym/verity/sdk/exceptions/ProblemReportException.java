@@ -0,0 +1,19 @@
+package com.evernym.verity.sdk.exceptions;
+
+import org.json.JSONObject;
+
+/**
+ * Completes a reply future when Verity answered with a problem-report instead of the expected message
+ */
+public class ProblemReportException extends VerityException {
+    private final JSONObject problemReport;
+
+    public ProblemReportException(JSONObject problemReport) {
+        super("Problem report received on thread: " + problemReport.toString());
+        this.problemReport = problemReport;
+    }
+
+    public JSONObject problemReport() {
+        return problemReport;
+    }
+}
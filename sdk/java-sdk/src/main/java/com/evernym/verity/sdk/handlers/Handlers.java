@@ -1,28 +1,70 @@
 package com.evernym.verity.sdk.handlers;
 
+import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import com.evernym.verity.sdk.metrics.InteractionTracker;
+import com.evernym.verity.sdk.metrics.Metrics;
+import com.evernym.verity.sdk.metrics.Operation;
 import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.tracing.Span;
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.tracing.Tracing;
 import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.ContextIndex;
+import com.evernym.verity.sdk.utils.DbcUtil;
+import com.evernym.verity.sdk.utils.ThreadRegistry;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Stores an array of message handlers that are used when receiving an inbound message
+ * Stores the message handlers that are used when receiving an inbound message
+ *
+ * Handlers are indexed by their message family (qualifier, family and version) and, for handlers registered for a
+ * single message, by the full message type. Finding the handler for an inbound message is a hash lookup, so it
+ * costs the same no matter how many handlers are registered.
+ *
+ * Handlers is thread safe: handlers can be added while messages are being handled on other threads. To unpack
+ * and handle messages on an executor, see MessageDispatcher.
  */
 public class Handlers {
-    private final ArrayList<MessageHandler> messageHandlers = new ArrayList<>();
-    private DefaultMessageHandler defaultHandler;
+    private final Map<String, MessageHandler> familyHandlers = new ConcurrentHashMap<>();
+    private final Map<String, MessageHandler> messageHandlers = new ConcurrentHashMap<>();
+    private volatile DefaultMessageHandler defaultHandler;
+    private volatile MessageDeduplicator deduplicator;
+    private volatile ThreadRegistry threadRegistry;
+    private final PendingReplies replies = new PendingReplies();
 
     /**
-     * Adds a MessageHandler for a message type to the list if current message handlers
+     * Adds a MessageHandler for all messages of a message family. A handler added later for the same family
+     * replaces the earlier one.
      * @param messageFamily the family of the message to be handled
      * @param messageHandler the handler function itself
      */
     public void addHandler(MessageFamily messageFamily, MessageHandler.Handler messageHandler) {
-        messageHandlers.add(0, new MessageHandler(messageFamily, messageHandler));
+        MessageHandler handler = new MessageHandler(messageFamily, messageHandler);
+        familyHandlers.put(handler.familyPrefix(), handler);
+    }
+
+    /**
+     * Adds a MessageHandler for a single message of a message family. It takes precedence over a handler
+     * added for the whole family.
+     * @param messageFamily the family of the message to be handled
+     * @param msgName the name of the message to be handled
+     * @param messageHandler the handler function itself
+     */
+    public void addHandler(MessageFamily messageFamily, String msgName, MessageHandler.Handler messageHandler) {
+        MessageHandler handler = new MessageHandler(messageFamily, messageHandler);
+        messageHandlers.put(messageFamily.getMessageType(msgName), handler);
     }
 
     /**
@@ -34,23 +76,179 @@ public class Handlers {
     }
 
     /**
-     * Calls all of the handlers that support handling of this particular message type and message status
+     * Drops messages already handled before the handlers are called. A message whose handler throws is
+     * forgotten, so a later delivery of it is handled again.
+     * @param val the cache of the messages seen, null to handle every message
+     */
+    public void deduplicate(MessageDeduplicator val) {
+        deduplicator = val;
+    }
+
+    /**
+     * Records every handled message in the registry before its handler is called, so handlers can look up the
+     * thread of the message
+     * @param val the registry of protocol threads, null to stop recording
+     */
+    public void trackThreads(ThreadRegistry val) {
+        threadRegistry = val;
+    }
+
+    /**
+     * Returns a future completed with the next message of the thread that has the given name, once it is handled.
+     * The message is passed to the registered handlers as well. A problem-report on the thread completes the
+     * future exceptionally with a ProblemReportException.
+     * @param threadId the thid of the protocol thread (see Protocol.getThreadId)
+     * @param msgName the name of the expected message (ie. "sent"), null for any message of the thread
+     * @param timeout how long to wait for the message
+     * @param unit the unit of the timeout
+     * @return a future completed with the message, or completed exceptionally with a TimeoutException
+     */
+    public CompletableFuture<JSONObject> awaitReply(String threadId, String msgName, long timeout, TimeUnit unit) {
+        DbcUtil.requireNotNull(threadId, "threadId");
+        return replies.await(threadId, msgName, timeout, unit);
+    }
+
+    /**
+     * @return the number of reply futures waiting for their message
+     */
+    public int pendingReplies() {
+        return replies.size();
+    }
+
+    /**
+     * Calls the handler that supports handling of this particular message type
      * @param context an instance of Context configured with the results of the provision_sdk.py script
      * @param rawMessage the raw bytes received from Verity
      * @throws WalletException when there are issues with encryption and decryption
      */
     public void handleMessage(Context context, byte[] rawMessage) throws VerityException {
-        JSONObject message = Util.unpackMessage(context, rawMessage);
-        for(MessageHandler messageHandler: messageHandlers) {
-            if(messageHandler.handles(message)) {
-                messageHandler.handle(message);
+        handleUnpackedMessage(Util.unpackMessage(context, rawMessage));
+    }
+
+    /**
+     * Calls the handler that supports handling of this particular message type, unpacking the message with the
+     * Context of its recipient. The recipient is read from the envelope, so only the right wallet is used.
+     * @param contexts the Contexts that may receive the message, by sdkVerKey
+     * @param rawMessage the raw bytes received from Verity
+     * @throws UndefinedContextException when no recipient of the message is in the index
+     * @throws WalletException when there are issues with encryption and decryption
+     */
+    public void handleMessage(ContextIndex contexts, byte[] rawMessage) throws VerityException {
+        handleMessage(contexts.find(rawMessage), rawMessage);
+    }
+
+    /**
+     * Calls the handler that supports handling of this particular message type
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param rawMessage the raw bytes received from Verity, from the buffer's position to its limit
+     * @throws WalletException when there are issues with encryption and decryption
+     */
+    public void handleMessage(Context context, ByteBuffer rawMessage) throws VerityException {
+        handleUnpackedMessage(Util.unpackMessage(context, rawMessage));
+    }
+
+    /**
+     * Calls the handler that supports handling of this particular message type
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param rawMessage a stream of the raw bytes received from Verity, read to its end
+     * @throws WalletException when there are issues with encryption and decryption
+     * @throws IOException when the stream can not be read
+     */
+    public void handleMessage(Context context, InputStream rawMessage) throws VerityException, IOException {
+        handleUnpackedMessage(Util.unpackMessage(context, rawMessage));
+    }
+
+    /**
+     * Calls the handler that supports handling of this particular message type, for a message that was already
+     * unpacked
+     * @param message the decrypted message received from Verity
+     */
+    public void handleUnpackedMessage(JSONObject message) {
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.HANDLE_MESSAGE);
+        Span span = startReceiveSpan(message);
+        try (Tracing.Scope ignored = Tracing.activate(span.context())) {
+            MessageDeduplicator dedup = deduplicator;
+            if(dedup == null) {
+                dispatch(message);
+            }
+            else if(dedup.firstSeen(message)) {
+                try {
+                    dispatch(message);
+                }
+                catch (RuntimeException e) {
+                    dedup.forget(message);
+                    throw e;
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        }
+        finally {
+            span.end();
+            if (event.isEnabled()) event.message(message);
+            event.commit();
+        }
+    }
+
+    // the span of handling the message is a child of its ~trace decorator, or else of the current context
+    private static Span startReceiveSpan(JSONObject message) {
+        if (!Tracing.enabled()) return Span.NOOP;
+        TraceContext parent = Tracing.extract(message);
+        String msgType = message.optString("@type", "unknown");
+        Span span = Tracing.tracer().startSpan("verity.receive " + msgType, parent != null ? parent : Tracing.current());
+        span.tag("message.type", msgType);
+        JSONObject thread = message.optJSONObject("~thread");
+        if (thread != null) {
+            span.tag("message.thid", thread.optString("thid"));
+        }
+        return span;
+    }
+
+    private void dispatch(JSONObject message) {
+        ThreadRegistry threads = threadRegistry;
+        if(threads != null) {
+            threads.recordInbound(message);
+        }
+        InteractionTracker interactions = Metrics.interactions();
+        if(interactions != null) {
+            interactions.recordInbound(message);
+        }
+
+        String msgType = message.optString("@type", null);
+        if(msgType != null) {
+            MessageHandler handler = messageHandlers.get(msgType);
+            int nameStart = msgType.lastIndexOf('/');
+            replies.onMessage(message, msgType);
+
+            if(handler == null && nameStart > 0) {
+                handler = familyHandlers.get(msgType.substring(0, nameStart));
+            }
+
+            if(handler != null && nameStart > 0 && nameStart < msgType.length() - 1) {
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    handler.handle(msgType.substring(nameStart + 1), message);
+                    success = true;
+                } finally {
+                    Metrics.record(Operation.DISPATCH, msgType, start, success);
+                }
                 return;
             }
         }
 
         // call default if another handler is not called
         if(defaultHandler != null) {
-            defaultHandler.handle(message);
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                defaultHandler.handle(message);
+                success = true;
+            } finally {
+                Metrics.record(Operation.DISPATCH, msgType, start, success);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.evernym.verity.sdk.handlers;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the messages seen recently so that a message Verity delivers more than once is handled only once
+ * (see Handlers.deduplicate)
+ *
+ * A message is identified by its @id together with the thid of its ~thread decorator. Ids are kept for ttlMs and
+ * at most maxEntries are kept; the oldest are forgotten first. As every id is kept for the same time, the ids
+ * expire in the order they were added, so expiry only looks at the oldest entries.
+ */
+public class MessageDeduplicator {
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final long DEFAULT_TTL_MS = 10 * 60_000;
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Long> seen = new LinkedHashMap<>(); // id -> time it was added
+    private final LongAdder duplicates = new LongAdder();
+
+    public MessageDeduplicator() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MS);
+    }
+
+    public MessageDeduplicator(int maxEntries, long ttlMs) {
+        this(maxEntries, ttlMs, System::currentTimeMillis);
+    }
+
+    MessageDeduplicator(int maxEntries, long ttlMs, LongSupplier clock) {
+        DbcUtil.require(maxEntries > 0, "maxEntries must be positive");
+        DbcUtil.require(ttlMs > 0, "ttlMs must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Records the message as seen
+     * @param message the decrypted message
+     * @return false when the message was already seen, true when it is new or has no @id
+     */
+    public boolean firstSeen(JSONObject message) {
+        String key = key(message);
+        if (key == null) return true;
+
+        long now = clock.getAsLong();
+        boolean rtn;
+        synchronized (this) {
+            expire(now);
+            rtn = seen.putIfAbsent(key, now) == null;
+            if (rtn && seen.size() > maxEntries) {
+                Iterator<String> oldest = seen.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        if (!rtn) duplicates.increment();
+        return rtn;
+    }
+
+    /**
+     * Forgets the message, so it is handled again when it is delivered again (used when handling it failed)
+     * @param message the decrypted message
+     */
+    public void forget(JSONObject message) {
+        String key = key(message);
+        if (key == null) return;
+        synchronized (this) {
+            seen.remove(key);
+        }
+    }
+
+    /**
+     * @return the number of ids currently remembered
+     */
+    public synchronized int size() {
+        expire(clock.getAsLong());
+        return seen.size();
+    }
+
+    /**
+     * @return the number of duplicate messages found
+     */
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    private void expire(long now) {
+        Iterator<Map.Entry<String, Long>> oldest = seen.entrySet().iterator();
+        while (oldest.hasNext() && now - oldest.next().getValue() >= ttlMs) {
+            oldest.remove();
+        }
+    }
+
+    private static String key(JSONObject message) {
+        String id = message.optString("@id", null);
+        if (id == null) return null;
+        JSONObject thread = message.optJSONObject("~thread");
+        String thid = thread == null ? null : thread.optString("thid", null);
+        return thid == null ? id : thid + " " + id;
+    }
+}
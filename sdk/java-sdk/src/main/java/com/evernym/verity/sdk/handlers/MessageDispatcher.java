@@ -0,0 +1,143 @@
+package com.evernym.verity.sdk.handlers;
+
+import com.evernym.verity.sdk.exceptions.VerityException;
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.DbcUtil;
+import com.evernym.verity.sdk.utils.Util;
+import org.json.JSONObject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Unpacks inbound messages and calls their Handlers on an executor
+ *
+ * Messages are unpacked in parallel. Messages of the same protocol thread (the thid of their ~thread decorator)
+ * are handed to the handlers one at a time, in the order they were given to dispatch, while messages of
+ * different threads are handled in parallel. Messages without a thid are not ordered.
+ *
+ * The thid of a packed message can only be read once it is decrypted, so a packed message takes its place in its
+ * thread only after every packed message given to dispatch before it was unpacked: a slow unpack delays the
+ * handling (not the unpacking) of the later threaded messages, whatever their thread. Messages without a thid and
+ * messages that fail to unpack do not wait for that, and an already unpacked message takes its place in its
+ * thread right away unless packed messages given before it are still being unpacked.
+ */
+public class MessageDispatcher {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Handlers handlers;
+    private final Executor executor;
+    private final ConcurrentMap<String, CompletableFuture<Void>> threadTails = new ConcurrentHashMap<>();
+    // guarded by this, completed once every packed message given to dispatch joined its thread
+    private CompletableFuture<Void> routing = DONE;
+
+    /**
+     * @param handlers the handlers called for the inbound messages
+     * @param executor the executor that unpacks the messages and runs the handlers
+     */
+    public MessageDispatcher(Handlers handlers, Executor executor) {
+        DbcUtil.requireNotNull(handlers, "handlers");
+        DbcUtil.requireNotNull(executor, "executor");
+
+        this.handlers = handlers;
+        this.executor = executor;
+    }
+
+    /**
+     * Unpacks the message and calls the handler that supports handling of its message type
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param rawMessage the raw bytes received from Verity
+     * @return a future completed once the handler returned, or exceptionally with the VerityException raised
+     * while unpacking or the exception thrown by the handler
+     */
+    public CompletableFuture<Void> dispatch(Context context, byte[] rawMessage) {
+        CompletableFuture<JSONObject> unpacked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return Util.unpackMessage(context, rawMessage);
+            } catch (VerityException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        unpacked.whenComplete((message, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(unwrap(ex));
+            } else if (threadId(message) == null) {
+                handleUnordered(message, result);
+            }
+        });
+        // Routing is chained in arrival order, so a message joins its thread after every earlier message
+        // even when it was unpacked first.
+        synchronized (this) {
+            routing = routing.thenCompose(ignored -> unpacked.handle((message, ex) -> {
+                String thid = ex == null ? threadId(message) : null;
+                if (thid != null) {
+                    enqueue(thid, message, result);
+                }
+                return null;
+            }));
+        }
+        return result;
+    }
+
+    /**
+     * Calls the handler that supports handling of a message that was already unpacked
+     * @param message the decrypted message received from Verity
+     * @return a future completed once the handler returned, or exceptionally with the exception thrown by it
+     */
+    public CompletableFuture<Void> dispatch(JSONObject message) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        String thid = threadId(message);
+        if (thid == null) {
+            handleUnordered(message, result);
+            return result;
+        }
+
+        synchronized (this) {
+            if (routing.isDone()) {
+                enqueue(thid, message, result);
+            } else {
+                routing = routing.thenRun(() -> enqueue(thid, message, result));
+            }
+        }
+        return result;
+    }
+
+    private void handleUnordered(JSONObject message, CompletableFuture<Void> result) {
+        CompletableFuture.runAsync(() -> handlers.handleUnpackedMessage(message), executor)
+                .whenComplete((v, ex) -> complete(result, ex));
+    }
+
+    private void enqueue(String thid, JSONObject message, CompletableFuture<Void> result) {
+        CompletableFuture<Void> tail = new CompletableFuture<>();
+        CompletableFuture<Void> previous = threadTails.put(thid, tail);
+        (previous == null ? DONE : previous)
+                .thenRunAsync(() -> handlers.handleUnpackedMessage(message), executor)
+                .whenComplete((v, ex) -> {
+                    threadTails.remove(thid, tail);
+                    tail.complete(null);
+                    complete(result, ex);
+                });
+    }
+
+    private static String threadId(JSONObject message) {
+        JSONObject thread = message.optJSONObject("~thread");
+        return thread == null ? null : thread.optString("thid", null);
+    }
+
+    private static void complete(CompletableFuture<Void> result, Throwable ex) {
+        if (ex != null) {
+            result.completeExceptionally(unwrap(ex));
+        } else {
+            result.complete(null);
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
@@ -10,6 +10,7 @@ import org.json.JSONObject;
  */
 public class MessageHandler {
     private final MessageFamily messageFamily;
+    private final String familyPrefix;
     private final Handler messageHandler;
 
     public interface Handler {
@@ -26,18 +27,24 @@ public class MessageHandler {
         DbcUtil.requireNotNull(messageHandler, "messageHandler");
 
         this.messageFamily = family;
+        this.familyPrefix = family.getMessageFamily();
         this.messageHandler = messageHandler;
     }
 
+    /**
+     * @return the message family string (qualifier;spec/family/version) computed once for this handler
+     */
+    String familyPrefix() {
+        return familyPrefix;
+    }
+
     /**
      * Checks to see if this MessageHandler handles a particular agent message
      * @param message the JSON structure of the agent message
      * @return whether or not this MessageHandler handles the given message
      */
     public boolean handles(JSONObject message) {
-        if(this.messageFamily == null) return false;
-
-        return this.messageFamily.matches(message.optString("@type"));
+        return message.optString("@type").startsWith(familyPrefix);
     }
 
     /**
@@ -50,4 +57,13 @@ public class MessageHandler {
 
         this.messageHandler.handle(msgName, message);
     }
+
+    /**
+     * Calls the handler function on the agent message when the message name is already known
+     * @param msgName the name of the message, taken from its type
+     * @param message the JSON structure of the agent message
+     */
+    void handle(String msgName, JSONObject message) {
+        this.messageHandler.handle(msgName, message);
+    }
 }
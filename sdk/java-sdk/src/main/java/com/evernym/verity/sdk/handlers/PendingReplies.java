@@ -0,0 +1,126 @@
+package com.evernym.verity.sdk.handlers;
+
+import com.evernym.verity.sdk.exceptions.ProblemReportException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The reply futures waiting on inbound messages, indexed by thid (see Handlers.awaitReply)
+ */
+class PendingReplies {
+    static final String PROBLEM_REPORT = "problem-report";
+
+    private static ScheduledExecutorService timer;
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "verity-sdk-reply-timeout");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return timer;
+    }
+
+    private final Map<String, List<Waiter>> byThread = new ConcurrentHashMap<>();
+
+    CompletableFuture<JSONObject> await(String threadId, String msgName, long timeout, TimeUnit unit) {
+        Waiter waiter = new Waiter(msgName);
+        byThread.compute(threadId, (k, waiters) -> {
+            List<Waiter> rtn = waiters == null ? new ArrayList<>(1) : waiters;
+            rtn.add(waiter);
+            return rtn;
+        });
+
+        ScheduledFuture<?> timeoutTask = timer().schedule(
+                () -> {
+                    // removed before completing, so the waiter is gone once the caller sees the timeout
+                    remove(threadId, waiter);
+                    waiter.future.completeExceptionally(new TimeoutException(
+                            "No " + (msgName == null ? "message" : msgName) + " received on thread " + threadId
+                    ));
+                },
+                timeout,
+                unit
+        );
+        // however it completes (reply, timeout or cancelled by the caller), the waiter is removed
+        waiter.future.whenComplete((message, e) -> {
+            timeoutTask.cancel(false);
+            remove(threadId, waiter);
+        });
+        return waiter.future;
+    }
+
+    private void remove(String threadId, Waiter waiter) {
+        byThread.computeIfPresent(threadId, (k, waiters) -> {
+            waiters.remove(waiter);
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+
+    /**
+     * Completes the waiters of the message's thread that expect it. A problem-report fails the waiters expecting
+     * another message.
+     */
+    void onMessage(JSONObject message, String msgType) {
+        if (byThread.isEmpty()) return;
+        JSONObject thread = message.optJSONObject("~thread");
+        String threadId = thread == null ? null : thread.optString("thid", null);
+        if (threadId == null) return;
+
+        String msgName = msgType.substring(msgType.lastIndexOf('/') + 1);
+        List<Waiter> matched = new ArrayList<>(1);
+        byThread.computeIfPresent(threadId, (k, waiters) -> {
+            Iterator<Waiter> it = waiters.iterator();
+            while (it.hasNext()) {
+                Waiter waiter = it.next();
+                if (waiter.matches(msgName)) {
+                    matched.add(waiter);
+                    it.remove();
+                }
+            }
+            return waiters.isEmpty() ? null : waiters;
+        });
+
+        for (Waiter waiter : matched) {
+            if (PROBLEM_REPORT.equals(msgName) && !PROBLEM_REPORT.equals(waiter.msgName) && waiter.msgName != null) {
+                waiter.future.completeExceptionally(new ProblemReportException(message));
+            } else {
+                waiter.future.complete(message);
+            }
+        }
+    }
+
+    int size() {
+        int rtn = 0;
+        for (List<Waiter> waiters : byThread.values()) {
+            rtn += waiters.size();
+        }
+        return rtn;
+    }
+
+    private static class Waiter {
+        final String msgName;
+        final CompletableFuture<JSONObject> future = new CompletableFuture<>();
+
+        Waiter(String msgName) {
+            this.msgName = msgName;
+        }
+
+        boolean matches(String name) {
+            return msgName == null || msgName.equals(name) || PROBLEM_REPORT.equals(name);
+        }
+    }
+}
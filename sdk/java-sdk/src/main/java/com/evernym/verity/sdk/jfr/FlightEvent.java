@@ -0,0 +1,78 @@
+package com.evernym.verity.sdk.jfr;
+
+import org.json.JSONObject;
+
+/**
+ * A JDK Flight Recorder event around an SDK operation. On Java 11 and later the multi-release jar replaces this
+ * class with one that records jdk.jfr events (see src/main/java11); on Java 8 every event is disabled.
+ *
+ * Events are used like this, so that nothing but begin and commit runs while recording is off:
+ * <pre>
+ * FlightEvent event = FlightEvent.begin(FlightEvent.Kind.PACK);
+ * ...
+ * if (event.isEnabled()) event.message(message).payloadSize(packed.length);
+ * event.commit();
+ * </pre>
+ */
+public class FlightEvent {
+    /**
+     * The recorded operations, each one a JFR event type named com.evernym.verity.sdk.*
+     */
+    public enum Kind {
+        PACK,
+        UNPACK,
+        SEND,
+        OPEN_WALLET,
+        HANDLE_MESSAGE
+    }
+
+    private static final FlightEvent DISABLED = new FlightEvent();
+
+    private FlightEvent() {}
+
+    /**
+     * Starts timing an operation
+     * @param kind the operation
+     * @return the event, disabled when the event type is not recorded
+     */
+    public static FlightEvent begin(Kind kind) {
+        return DISABLED;
+    }
+
+    /**
+     * @return true when the event is recorded, fields only need to be set then
+     */
+    public boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Sets the message type and thread id of the event from the message's @type and ~thread.thid
+     * @param message the message the operation works on
+     * @return this event
+     */
+    public FlightEvent message(JSONObject message) {
+        return this;
+    }
+
+    public FlightEvent messageType(String val) {
+        return this;
+    }
+
+    public FlightEvent threadId(String val) {
+        return this;
+    }
+
+    /**
+     * @param val the size in bytes of the payload the operation works on
+     * @return this event
+     */
+    public FlightEvent payloadSize(long val) {
+        return this;
+    }
+
+    /**
+     * Ends timing the operation and writes the event to the recording when it is enabled
+     */
+    public void commit() {}
+}
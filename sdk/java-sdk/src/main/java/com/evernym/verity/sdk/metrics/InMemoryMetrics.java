@@ -0,0 +1,239 @@
+package com.evernym.verity.sdk.metrics;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default MetricsRecorder: keeps a counter and a LatencyHistogram per operation and message type in memory.
+ * They are queried with snapshot and can be exported as MXBeans with exportToJmx.
+ *
+ * Messages whose type is not known are recorded under the type "unknown". So are the messages of new types once an
+ * operation has seen maxMessageTypes distinct types: inbound types are chosen by the remote senders, keying every
+ * one of them would let them grow the heap without limit.
+ */
+public class InMemoryMetrics implements MetricsRecorder {
+    static final String UNKNOWN = "unknown";
+    static final String JMX_DOMAIN = "com.evernym.verity.sdk";
+    public static final int DEFAULT_MAX_MESSAGE_TYPES = 256;
+
+    private final Map<Operation, ConcurrentHashMap<String, Metric>> metrics = new EnumMap<>(Operation.class);
+    // the number of distinct types keyed per operation, "unknown" excluded
+    private final Map<Operation, AtomicInteger> types = new EnumMap<>(Operation.class);
+    private final int maxMessageTypes;
+    private volatile MBeanServer jmx;
+
+    public InMemoryMetrics() {
+        this(DEFAULT_MAX_MESSAGE_TYPES);
+    }
+
+    /**
+     * @param maxMessageTypes the number of distinct message types kept per operation, the messages of other types
+     *                        are recorded under "unknown"
+     */
+    public InMemoryMetrics(int maxMessageTypes) {
+        DbcUtil.require(maxMessageTypes >= 0, "maxMessageTypes must not be negative");
+        this.maxMessageTypes = maxMessageTypes;
+        for (Operation operation : Operation.values()) {
+            metrics.put(operation, new ConcurrentHashMap<>());
+            types.put(operation, new AtomicInteger());
+        }
+    }
+
+    @Override
+    public void record(Operation operation, String messageType, long durationNanos, boolean success) {
+        Metric metric = metric(operation, messageType == null ? UNKNOWN : messageType);
+        metric.histogram.record(durationNanos);
+        if (!success) {
+            metric.errors.increment();
+        }
+    }
+
+    private Metric metric(Operation operation, String messageType) {
+        ConcurrentHashMap<String, Metric> byType = metrics.get(operation);
+        Metric rtn = byType.get(messageType);
+        if (rtn == null) {
+            boolean counted = !UNKNOWN.equals(messageType);
+            if (counted && !reserveType(operation)) {
+                return metric(operation, UNKNOWN);
+            }
+            Metric created = new Metric(operation, messageType);
+            rtn = byType.putIfAbsent(messageType, created);
+            if (rtn == null) {
+                rtn = created;
+                MBeanServer server = jmx;
+                if (server != null) {
+                    register(server, rtn);
+                }
+            } else if (counted) {
+                types.get(operation).decrementAndGet(); // keyed concurrently, give the reservation back
+            }
+        }
+        return rtn;
+    }
+
+    private boolean reserveType(Operation operation) {
+        AtomicInteger count = types.get(operation);
+        while (true) {
+            int current = count.get();
+            if (current >= maxMessageTypes) return false;
+            if (count.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * @return snapshots of the measurements of every operation and message type recorded so far
+     */
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> rtn = new ArrayList<>();
+        for (ConcurrentHashMap<String, Metric> byType : metrics.values()) {
+            for (Metric metric : byType.values()) {
+                rtn.add(metric.snapshot());
+            }
+        }
+        return rtn;
+    }
+
+    /**
+     * @param operation the measured step
+     * @param messageType the full type of the message
+     * @return a snapshot of the measurements, null when nothing was recorded
+     */
+    public MetricSnapshot snapshot(Operation operation, String messageType) {
+        Metric metric = metrics.get(operation).get(messageType);
+        return metric == null ? null : metric.snapshot();
+    }
+
+    /**
+     * Forgets every measurement. MXBeans already exported stay registered and report the new measurements.
+     */
+    public void reset() {
+        for (ConcurrentHashMap<String, Metric> byType : metrics.values()) {
+            for (Metric metric : byType.values()) {
+                metric.reset();
+            }
+        }
+    }
+
+    /**
+     * Registers an MXBean per operation and message type in the platform MBeanServer, named
+     * com.evernym.verity.sdk:type=Metrics,operation=...,messageType=...; types recorded later are registered as
+     * they appear
+     */
+    public void exportToJmx() {
+        exportToJmx(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * @param server the MBeanServer the MXBeans are registered in
+     * @see #exportToJmx()
+     */
+    public synchronized void exportToJmx(MBeanServer server) {
+        if (jmx != null) return;
+        jmx = server;
+        for (ConcurrentHashMap<String, Metric> byType : metrics.values()) {
+            for (Metric metric : byType.values()) {
+                register(server, metric);
+            }
+        }
+    }
+
+    static ObjectName objectName(Operation operation, String messageType) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=Metrics,operation=" + operation.name().toLowerCase()
+                + ",messageType=" + ObjectName.quote(messageType));
+    }
+
+    private static void register(MBeanServer server, Metric metric) {
+        try {
+            ObjectName name = objectName(metric.operation, metric.messageType);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(metric, MetricMXBean.class, true), name);
+            }
+        } catch (JMException ignored) {
+            // registered concurrently, the measurements are still kept in memory
+        }
+    }
+
+    private static class Metric implements MetricMXBean {
+        final Operation operation;
+        final String messageType;
+        volatile LatencyHistogram histogram = new LatencyHistogram();
+        volatile LongAdder errors = new LongAdder();
+
+        Metric(Operation operation, String messageType) {
+            this.operation = operation;
+            this.messageType = messageType;
+        }
+
+        MetricSnapshot snapshot() {
+            return new MetricSnapshot(operation, messageType, errors.sum(), histogram);
+        }
+
+        void reset() {
+            histogram = new LatencyHistogram();
+            errors = new LongAdder();
+        }
+
+        @Override
+        public String getOperation() {
+            return operation.name();
+        }
+
+        @Override
+        public String getMessageFamily() {
+            return MetricSnapshot.family(messageType);
+        }
+
+        @Override
+        public String getMessageName() {
+            return MetricSnapshot.name(messageType);
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.count();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.meanNanos() / 1000;
+        }
+
+        @Override
+        public long getP50Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(50));
+        }
+
+        @Override
+        public long getP90Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(90));
+        }
+
+        @Override
+        public long getP99Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(99));
+        }
+
+        @Override
+        public long getMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(histogram.maxNanos());
+        }
+    }
+}
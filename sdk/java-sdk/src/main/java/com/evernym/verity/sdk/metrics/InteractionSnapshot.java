@@ -0,0 +1,50 @@
+package com.evernym.verity.sdk.metrics;
+
+/**
+ * The latencies of one step of the interactions of a protocol: the inbound messages of one name received on
+ * threads the SDK started, ie. presentation-result for "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/present-proof/1.0"
+ */
+public final class InteractionSnapshot {
+    private final String protocol;
+    private final String messageName;
+    private final LatencySummary sinceStart;
+    private final LatencySummary sincePrevious;
+
+    InteractionSnapshot(String protocol, String messageName, LatencySummary sinceStart, LatencySummary sincePrevious) {
+        this.protocol = protocol;
+        this.messageName = messageName;
+        this.sinceStart = sinceStart;
+        this.sincePrevious = sincePrevious;
+    }
+
+    /**
+     * @return the message family and version of the first message of the thread
+     */
+    public String protocol() {
+        return protocol;
+    }
+
+    public String messageName() {
+        return messageName;
+    }
+
+    /**
+     * @return the time from the first outbound message of the thread to this message
+     */
+    public LatencySummary sinceStart() {
+        return sinceStart;
+    }
+
+    /**
+     * @return the time from the previous message of the thread, outbound or inbound, to this message
+     */
+    public LatencySummary sincePrevious() {
+        return sincePrevious;
+    }
+
+    @Override
+    public String toString() {
+        return protocol + " -> " + messageName + " count=" + sinceStart.count()
+                + " sinceStart[" + sinceStart + "] sincePrevious[" + sincePrevious + "]";
+    }
+}
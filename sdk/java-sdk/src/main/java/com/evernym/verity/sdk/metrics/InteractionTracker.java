@@ -0,0 +1,253 @@
+package com.evernym.verity.sdk.metrics;
+
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures whole interactions: how long after the first message of a thread sent by the SDK each reply arrives,
+ * ie. PresentProof request to presentation-result. Instances are created with InteractionTrackerBuilder and
+ * enabled with Metrics.trackInteractions.
+ *
+ * An interaction starts when a Protocol sends a message on a thread the tracker does not know and ends when a
+ * completing message (problem-report, and the names given to the builder) is received on it, or with complete.
+ * Every inbound message on an open interaction is recorded under the protocol of the thread and the name of the
+ * message, both since the start of the interaction and since the previous message of the thread.
+ *
+ * Interactions with no message for ttlMs are abandoned. When more than maxOpen are open, the abandoned ones and
+ * then the least recently active ones are dropped until a tenth of the capacity is free again.
+ */
+public class InteractionTracker {
+    static final String PROBLEM_REPORT = "problem-report";
+
+    private final int maxOpen;
+    private final long ttlNanos;
+    private final Set<String> completingMessages;
+    private final LongSupplier clock;
+    private final Map<String, Interaction> open = new ConcurrentHashMap<>();
+    private final Map<String, Step> steps = new ConcurrentHashMap<>();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    InteractionTracker( // Not a public constructor! Allows work with InteractionTrackerBuilder
+            int maxOpen,
+            long ttlNanos,
+            Set<String> completingMessages,
+            LongSupplier clock) {
+        this.maxOpen = maxOpen;
+        this.ttlNanos = ttlNanos;
+        Set<String> completing = new HashSet<>(completingMessages);
+        completing.add(PROBLEM_REPORT);
+        this.completingMessages = Collections.unmodifiableSet(completing);
+        this.clock = clock;
+    }
+
+    /**
+     * Starts an interaction when the message is the first one of its thread
+     * @param message a message sent to Verity
+     */
+    public void recordOutbound(JSONObject message) {
+        recordOutbound(threadId(message), message.optString("@type", null));
+    }
+
+    /**
+     * Starts an interaction when the message is the first one of its thread
+     * @param message a typed message sent to Verity
+     */
+    public void recordOutbound(ProtocolMessage message) {
+        recordOutbound(message.threadId() != null ? message.threadId() : message.id(), message.type());
+    }
+
+    private void recordOutbound(String thid, String msgType) {
+        if (thid == null || msgType == null) return;
+
+        long now = clock.getAsLong();
+        Interaction interaction = open.get(thid);
+        if (interaction != null && !abandoned(interaction, now)) {
+            interaction.last = now;
+            return;
+        }
+        if (interaction != null && open.remove(thid, interaction)) {
+            abandoned.increment();
+        }
+        if (open.putIfAbsent(thid, new Interaction(MetricSnapshot.family(msgType), now)) == null) {
+            started.increment();
+        }
+
+        if (open.size() > maxOpen) {
+            sweep();
+        }
+    }
+
+    /**
+     * Records the message as a step of its interaction, ending it when it is a completing message
+     * @param message a message received from Verity
+     */
+    public void recordInbound(JSONObject message) {
+        JSONObject thread = message.optJSONObject("~thread");
+        String thid = thread == null ? null : thread.optString("thid", null);
+        String msgType = message.optString("@type", null);
+        if (thid == null || msgType == null) return;
+
+        Interaction interaction = open.get(thid);
+        if (interaction == null) return;
+
+        long now = clock.getAsLong();
+        if (abandoned(interaction, now)) {
+            if (open.remove(thid, interaction)) abandoned.increment();
+            return;
+        }
+
+        String msgName = MetricSnapshot.name(msgType);
+        Step step = steps.computeIfAbsent(interaction.protocol + '/' + msgName, k -> new Step(interaction.protocol, msgName));
+        long previous = interaction.last;
+        interaction.last = now;
+        step.sinceStart.record(now - interaction.start);
+        step.sincePrevious.record(now - previous);
+
+        if (completingMessages.contains(msgName) && open.remove(thid, interaction)) {
+            completed.increment();
+        }
+    }
+
+    /**
+     * Ends the interaction of the thread, for protocols whose last message is not a completing message
+     * @param threadId the thid of the thread
+     */
+    public void complete(String threadId) {
+        if (open.remove(threadId) != null) {
+            completed.increment();
+        }
+    }
+
+    /**
+     * @return the number of open interactions, abandoned ones not yet dropped included
+     */
+    public int openInteractions() {
+        return open.size();
+    }
+
+    public long started() {
+        return started.sum();
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the number of interactions dropped because they saw no message for ttlMs, or to stay within maxOpen
+     */
+    public long abandoned() {
+        return abandoned.sum();
+    }
+
+    /**
+     * @return the latencies of every step seen so far, by protocol and message name
+     */
+    public List<InteractionSnapshot> snapshot() {
+        List<InteractionSnapshot> rtn = new ArrayList<>(steps.size());
+        for (Step step : steps.values()) {
+            rtn.add(step.snapshot());
+        }
+        return rtn;
+    }
+
+    /**
+     * @param protocol the message family and version, ie. "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/present-proof/1.0"
+     * @param messageName the name of the inbound message, ie. "presentation-result"
+     * @return the latencies of the step, null when it was not seen
+     */
+    public InteractionSnapshot snapshot(String protocol, String messageName) {
+        Step step = steps.get(protocol + '/' + messageName);
+        return step == null ? null : step.snapshot();
+    }
+
+    /**
+     * Drops the abandoned interactions
+     */
+    public void expire() {
+        long now = clock.getAsLong();
+        for (Map.Entry<String, Interaction> entry : open.entrySet()) {
+            if (abandoned(entry.getValue(), now) && open.remove(entry.getKey(), entry.getValue())) {
+                abandoned.increment();
+            }
+        }
+    }
+
+    private boolean abandoned(Interaction interaction, long now) {
+        return now - interaction.last >= ttlNanos;
+    }
+
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return; // another thread is sweeping
+        try {
+            expire();
+            int target = maxOpen - Math.max(1, maxOpen / 10);
+            if (open.size() > target) {
+                List<Map.Entry<String, Interaction>> oldest = new ArrayList<>(open.entrySet());
+                oldest.sort(Comparator.comparingLong(e -> e.getValue().last));
+                for (int i = 0; i < oldest.size() && open.size() > target; i++) {
+                    if (open.remove(oldest.get(i).getKey(), oldest.get(i).getValue())) {
+                        abandoned.increment();
+                    }
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    // the thid of the message's thread; the first message of a thread may carry only its @id
+    private static String threadId(JSONObject message) {
+        JSONObject thread = message.optJSONObject("~thread");
+        String thid = thread == null ? null : thread.optString("thid", null);
+        return thid != null ? thid : message.optString("@id", null);
+    }
+
+    private static class Interaction {
+        final String protocol;
+        final long start;
+        volatile long last;
+
+        Interaction(String protocol, long start) {
+            this.protocol = protocol;
+            this.start = start;
+            this.last = start;
+        }
+    }
+
+    private static class Step {
+        final String protocol;
+        final String messageName;
+        final LatencyHistogram sinceStart = new LatencyHistogram();
+        final LatencyHistogram sincePrevious = new LatencyHistogram();
+
+        Step(String protocol, String messageName) {
+            this.protocol = protocol;
+            this.messageName = messageName;
+        }
+
+        InteractionSnapshot snapshot() {
+            return new InteractionSnapshot(
+                    protocol,
+                    messageName,
+                    new LatencySummary(sinceStart),
+                    new LatencySummary(sincePrevious)
+            );
+        }
+    }
+}
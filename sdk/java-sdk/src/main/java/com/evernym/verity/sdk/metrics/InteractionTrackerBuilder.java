@@ -0,0 +1,58 @@
+package com.evernym.verity.sdk.metrics;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class InteractionTrackerBuilder {
+    public static final int DEFAULT_MAX_OPEN = 10_000;
+    public static final long DEFAULT_TTL_MS = 60 * 60_000;
+
+    public static InteractionTrackerBuilder blank() {
+        return new InteractionTrackerBuilder();
+    }
+
+    private int maxOpen = DEFAULT_MAX_OPEN;
+    private long ttlMs = DEFAULT_TTL_MS;
+    private final Set<String> completingMessages = new HashSet<>();
+
+    private InteractionTrackerBuilder() {}
+
+    /**
+     * @param val how many interactions are kept open at most; the least recently active ones are dropped beyond that
+     * @return this builder
+     */
+    public InteractionTrackerBuilder maxOpen(int val) {
+        DbcUtil.require(val > 0, "maxOpen must be positive");
+        maxOpen = val;
+        return this;
+    }
+
+    /**
+     * @param val how long an interaction stays open without a message before it is abandoned
+     * @return this builder
+     */
+    public InteractionTrackerBuilder ttlMs(long val) {
+        DbcUtil.require(val > 0, "ttlMs must be positive");
+        ttlMs = val;
+        return this;
+    }
+
+    /**
+     * @param val names of inbound messages that end an interaction, ie. "presentation-result" or "sent";
+     *            problem-report always does
+     * @return this builder
+     */
+    public InteractionTrackerBuilder completesOn(String... val) {
+        DbcUtil.requireNotNull(val, "completesOn");
+        completingMessages.addAll(Arrays.asList(val));
+        return this;
+    }
+
+    public InteractionTracker build() {
+        return new InteractionTracker(maxOpen, TimeUnit.MILLISECONDS.toNanos(ttlMs), completingMessages, System::nanoTime);
+    }
+}
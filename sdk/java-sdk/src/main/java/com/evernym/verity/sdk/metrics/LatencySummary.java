@@ -0,0 +1,55 @@
+package com.evernym.verity.sdk.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the count, mean and percentiles of a LatencyHistogram
+ */
+public final class LatencySummary {
+    private final long count;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    LatencySummary(LatencyHistogram histogram) {
+        this.count = histogram.count();
+        this.meanNanos = histogram.meanNanos();
+        this.p50Nanos = histogram.percentileNanos(50);
+        this.p90Nanos = histogram.percentileNanos(90);
+        this.p99Nanos = histogram.percentileNanos(99);
+        this.maxNanos = histogram.maxNanos();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean(TimeUnit unit) {
+        return meanNanos / unit.toNanos(1);
+    }
+
+    public long p50(TimeUnit unit) {
+        return unit.convert(p50Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long p90(TimeUnit unit) {
+        return unit.convert(p90Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long p99(TimeUnit unit) {
+        return unit.convert(p99Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long max(TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean=%.1fms p50=%dms p90=%dms p99=%dms max=%dms", mean(TimeUnit.MILLISECONDS),
+                p50(TimeUnit.MILLISECONDS), p90(TimeUnit.MILLISECONDS), p99(TimeUnit.MILLISECONDS),
+                max(TimeUnit.MILLISECONDS));
+    }
+}
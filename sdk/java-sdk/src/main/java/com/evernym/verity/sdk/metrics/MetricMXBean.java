@@ -0,0 +1,17 @@
+package com.evernym.verity.sdk.metrics;
+
+/**
+ * The JMX view of the measurements of one operation on one message type, see InMemoryMetrics.exportToJmx
+ */
+public interface MetricMXBean {
+    String getOperation();
+    String getMessageFamily();
+    String getMessageName();
+    long getCount();
+    long getErrors();
+    double getMeanMicros();
+    long getP50Micros();
+    long getP90Micros();
+    long getP99Micros();
+    long getMaxMicros();
+}
@@ -0,0 +1,103 @@
+package com.evernym.verity.sdk.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the measurements of one operation on one message type
+ */
+public final class MetricSnapshot {
+    private final Operation operation;
+    private final String messageFamily;
+    private final String messageName;
+    private final long count;
+    private final long errors;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    MetricSnapshot(Operation operation, String messageType, long errors, LatencyHistogram histogram) {
+        this.operation = operation;
+        this.messageFamily = family(messageType);
+        this.messageName = name(messageType);
+        this.count = histogram.count();
+        this.errors = errors;
+        this.meanNanos = histogram.meanNanos();
+        this.p50Nanos = histogram.percentileNanos(50);
+        this.p90Nanos = histogram.percentileNanos(90);
+        this.p99Nanos = histogram.percentileNanos(99);
+        this.maxNanos = histogram.maxNanos();
+    }
+
+    /**
+     * @param messageType the full type of a message, ie. "did:sov:123456789abcdefghi1234;spec/issue-credential/1.0/offer"
+     * @return the family and version of the message type, ie. "did:sov:123456789abcdefghi1234;spec/issue-credential/1.0"
+     */
+    static String family(String messageType) {
+        int slash = messageType.lastIndexOf('/');
+        return slash < 0 ? messageType : messageType.substring(0, slash);
+    }
+
+    /**
+     * @param messageType the full type of a message, ie. "did:sov:123456789abcdefghi1234;spec/issue-credential/1.0/offer"
+     * @return the name of the message type, ie. "offer"
+     */
+    static String name(String messageType) {
+        return messageType.substring(messageType.lastIndexOf('/') + 1);
+    }
+
+    public Operation operation() {
+        return operation;
+    }
+
+    public String messageFamily() {
+        return messageFamily;
+    }
+
+    public String messageName() {
+        return messageName;
+    }
+
+    /**
+     * @return the number of measurements, failed ones included
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the number of measurements of failed operations
+     */
+    public long errors() {
+        return errors;
+    }
+
+    public double mean(TimeUnit unit) {
+        return meanNanos / unit.toNanos(1);
+    }
+
+    public long p50(TimeUnit unit) {
+        return unit.convert(p50Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long p90(TimeUnit unit) {
+        return unit.convert(p90Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long p99(TimeUnit unit) {
+        return unit.convert(p99Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long max(TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s/%s count=%d errors=%d mean=%.1fus p50=%dus p90=%dus p99=%dus max=%dus",
+                operation, messageFamily, messageName, count, errors, mean(TimeUnit.MICROSECONDS),
+                p50(TimeUnit.MICROSECONDS), p90(TimeUnit.MICROSECONDS), p99(TimeUnit.MICROSECONDS),
+                max(TimeUnit.MICROSECONDS));
+    }
+}
@@ -0,0 +1,64 @@
+package com.evernym.verity.sdk.metrics;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+/**
+ * Holds the MetricsRecorder the SDK reports to. By default that is an InMemoryMetrics, which can be queried with
+ * inMemory() and exported over JMX; any other backend can be plugged in with setRecorder.
+ *
+ * It also holds the InteractionTracker measuring whole protocol interactions, which is off by default.
+ */
+public final class Metrics {
+    private static final InMemoryMetrics IN_MEMORY = new InMemoryMetrics();
+    private static volatile MetricsRecorder recorder = IN_MEMORY;
+    private static volatile InteractionTracker interactions;
+
+    private Metrics() {}
+
+    /**
+     * @return the recorder the SDK reports to
+     */
+    public static MetricsRecorder recorder() {
+        return recorder;
+    }
+
+    /**
+     * @param val the recorder the SDK reports to, MetricsRecorder.NOOP to record nothing
+     */
+    public static void setRecorder(MetricsRecorder val) {
+        DbcUtil.requireNotNull(val, "recorder");
+        recorder = val;
+    }
+
+    /**
+     * @return the default in-memory recorder; it only receives measurements while it is the recorder
+     */
+    public static InMemoryMetrics inMemory() {
+        return IN_MEMORY;
+    }
+
+    /**
+     * @return the tracker of the interactions started by Protocols, null when they are not tracked
+     */
+    public static InteractionTracker interactions() {
+        return interactions;
+    }
+
+    /**
+     * @param val the tracker of the interactions started by Protocols, null to stop tracking them
+     */
+    public static void trackInteractions(InteractionTracker val) {
+        interactions = val;
+    }
+
+    /**
+     * Records the time elapsed since start
+     * @param operation the measured step
+     * @param messageType the full type of the message, null when it is not known
+     * @param startNanos the System.nanoTime() when the step started
+     * @param success false when the step failed
+     */
+    public static void record(Operation operation, String messageType, long startNanos, boolean success) {
+        recorder.record(operation, messageType, System.nanoTime() - startNanos, success);
+    }
+}
@@ -0,0 +1,21 @@
+package com.evernym.verity.sdk.metrics;
+
+/**
+ * Receives the measurements of the SDK (see Metrics). Implementations are called on the SDK's hot paths, from
+ * many threads at once, and must be thread safe and cheap.
+ */
+public interface MetricsRecorder {
+    /**
+     * Records nothing
+     */
+    MetricsRecorder NOOP = (operation, messageType, durationNanos, success) -> {};
+
+    /**
+     * @param operation the measured step
+     * @param messageType the full type of the message (ie. "did:sov:123456789abcdefghi1234;spec/issue-credential/1.0/offer"),
+     *                    null when it is not known
+     * @param durationNanos how long the step took
+     * @param success false when the step failed
+     */
+    void record(Operation operation, String messageType, long durationNanos, boolean success);
+}
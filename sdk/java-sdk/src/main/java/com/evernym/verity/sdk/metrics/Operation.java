@@ -0,0 +1,19 @@
+package com.evernym.verity.sdk.metrics;
+
+/**
+ * The steps of sending and receiving a message that are measured
+ */
+public enum Operation {
+    /** serialising the message to the bytes that are packed */
+    BUILD,
+    /** packing the message for the Verity agent (libindy Crypto.packMessage) */
+    PACK,
+    /** packing the forward message around it for the Verity agency */
+    FORWARD,
+    /** posting the packed message to Verity */
+    SEND,
+    /** unpacking an inbound message */
+    UNPACK,
+    /** running the handler of an inbound message */
+    DISPATCH
+}
@@ -9,23 +9,46 @@ public interface MessageFamily {
     String version();
 
     default boolean matches(String qualifiedMessageType) {
-        if(qualifiedMessageType == null) return false;
-        return qualifiedMessageType.startsWith(getMessageFamily());
+        return familyLength(qualifiedMessageType) > 0;
     }
 
     default String messageName(String qualifiedMessageType) throws InvalidMessageTypeException {
-        if(!matches(qualifiedMessageType)) {
+        int familyLength = familyLength(qualifiedMessageType);
+        if(familyLength < 0) {
             throw new InvalidMessageTypeException("Given qualified message type does not match this MessageFamily");
         }
 
-        String messageFamily = getMessageFamily();
-
-        if(qualifiedMessageType.charAt(messageFamily.length()) != '/'
-                || !(qualifiedMessageType.length() > messageFamily.length() + 1)) {
+        if(qualifiedMessageType.length() <= familyLength + 1
+                || qualifiedMessageType.charAt(familyLength) != '/') {
             throw new InvalidMessageTypeException("Given qualified message type does not have a message name");
         }
 
-        return qualifiedMessageType.substring(messageFamily.length()+1);
+        return qualifiedMessageType.substring(familyLength+1);
+    }
+
+    /**
+     * Compares the given message type with getMessageFamily() piece by piece, without building the family string
+     * @param qualifiedMessageType the qualified message type
+     * @return the length of the message family when the message type starts with it, otherwise -1
+     */
+    default int familyLength(String qualifiedMessageType) {
+        if(qualifiedMessageType == null) return -1;
+
+        String qualifier = qualifier();
+        String family = family();
+        String version = version();
+
+        int i = 0;
+        if(!qualifiedMessageType.startsWith(qualifier, i)) return -1;
+        i += qualifier.length();
+        if(!qualifiedMessageType.startsWith(";spec/", i)) return -1;
+        i += 6;
+        if(!qualifiedMessageType.startsWith(family, i)) return -1;
+        i += family.length();
+        if(!qualifiedMessageType.startsWith("/", i)) return -1;
+        i += 1;
+        if(!qualifiedMessageType.startsWith(version, i)) return -1;
+        return i + version.length();
     }
 
     default String getMessageFamily() {
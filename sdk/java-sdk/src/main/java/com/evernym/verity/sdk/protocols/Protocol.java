@@ -3,15 +3,27 @@ package com.evernym.verity.sdk.protocols;
 import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
-import com.evernym.verity.sdk.transports.HTTPTransport;
+import com.evernym.verity.sdk.handlers.Handlers;
+import com.evernym.verity.sdk.metrics.InteractionTracker;
+import com.evernym.verity.sdk.metrics.Metrics;
+import com.evernym.verity.sdk.metrics.Operation;
+import com.evernym.verity.sdk.tracing.Span;
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.tracing.Tracing;
 import com.evernym.verity.sdk.transports.Transport;
+import com.evernym.verity.sdk.transports.Transports;
 import com.evernym.verity.sdk.utils.Context;
 import com.evernym.verity.sdk.utils.DbcUtil;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.hyperledger.indy.sdk.StringUtils.isNullOrWhiteSpace;
 
@@ -55,9 +67,93 @@ public abstract class Protocol {
      * @throws UndefinedContextException when the context don't have enough information for this operation
      */
     protected void send(Context context, JSONObject message) throws IOException, VerityException {
-        byte[] messageToSend = packMsg(context, message);
-        Transport transport = new HTTPTransport();
-        transport.sendMessage(context.verityUrl(), messageToSend);
+        sendTraced(context, message);
+    }
+
+    /**
+     * Encrypts and sends a specified message to Verity without blocking the calling thread
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message to send to Verity
+     * @return a future completed when Verity accepted the message; it completes exceptionally with an
+     * IOException when the HTTP post fails or a VerityException when the message could not be packed
+     */
+    protected CompletableFuture<Void> sendAsync(Context context, JSONObject message) {
+        return sendAsync(context, message, asyncTransport());
+    }
+
+    private static CompletableFuture<Void> sendAsync(Context context, JSONObject message, Transport transport) {
+        String verityUrl;
+        try {
+            verityUrl = context.verityUrl();
+        } catch (UndefinedContextException e) {
+            return failed(e);
+        }
+        Span span = beforeSend(message);
+        return endOnCompletion(
+                Util.packMessageForVerityAsync(context, message)
+                        .thenCompose(packed -> postAsync(transport, verityUrl, packed, msgType(message), span.context())),
+                span
+        );
+    }
+
+    /**
+     * Encrypts and sends a typed message to Verity. The message is written straight to UTF-8 bytes, without
+     * building a JSONObject (see ProtocolMessage).
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message to send to Verity
+     * @throws IOException when the HTTP library fails to post to the agency endpoint
+     * @throws WalletException when there are issues with encryption and decryption
+     * @throws UndefinedContextException when the context don't have enough information for this operation
+     */
+    protected void send(Context context, ProtocolMessage message) throws IOException, VerityException {
+        Span span = beforeSend(message);
+        try (Tracing.Scope ignored = Tracing.activate(span.context())) {
+            byte[] packed = Util.packMessageForVerity(context, message, span.context());
+            post(transport(), context.verityUrl(), packed, message.type());
+        } catch (IOException | VerityException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Encrypts and sends a typed message to Verity without blocking the calling thread
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message to send to Verity
+     * @return a future completed when Verity accepted the message; it completes exceptionally with an
+     * IOException when the HTTP post fails or a VerityException when the message could not be packed
+     */
+    protected CompletableFuture<Void> sendAsync(Context context, ProtocolMessage message) {
+        String verityUrl;
+        try {
+            verityUrl = context.verityUrl();
+        } catch (UndefinedContextException e) {
+            return failed(e);
+        }
+        Span span = beforeSend(message);
+        return endOnCompletion(
+                Util.packMessageForVerityAsync(context, message, span.context())
+                        .thenCompose(packed -> postAsync(asyncTransport(), verityUrl, packed, message.type(), span.context())),
+                span
+        );
+    }
+
+    /**
+     * The transport used to deliver messages to Verity
+     * @return the transport installed with Transports.setTransport, by default the shared HTTPTransport
+     */
+    protected Transport transport() {
+        return Transports.transport();
+    }
+
+    /**
+     * The transport used to deliver messages to Verity from the async send variants
+     * @return the transport installed with Transports.setAsyncTransport, by default the shared AsyncHTTPTransport
+     */
+    protected Transport asyncTransport() {
+        return Transports.asyncTransport();
     }
 
     /**
@@ -71,12 +167,209 @@ public abstract class Protocol {
         return Util.packMessageForVerity(context, message);
     }
 
+    // packs and posts the message within a span whose context is current while posting, so the HTTP request carries it
+    private void sendTraced(Context context, JSONObject message) throws IOException, UndefinedContextException, WalletException {
+        Span span = beforeSend(message);
+        try (Tracing.Scope ignored = Tracing.activate(span.context())) {
+            post(transport(), context.verityUrl(), Util.packMessageForVerity(context, message), msgType(message));
+        } catch (IOException | VerityException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    // records the message with the interaction tracker, starts the span of sending it and adds its trace context
+    // to the message, see Tracing
+    private static Span beforeSend(JSONObject message) {
+        InteractionTracker interactions = Metrics.interactions();
+        if (interactions != null) {
+            interactions.recordOutbound(message);
+        }
+        if (!Tracing.enabled()) return Span.NOOP;
+        String msgType = message.optString("@type", "unknown");
+        Span span = Tracing.startSpan("verity.send " + msgType);
+        span.tag("message.type", msgType);
+        JSONObject thread = message.optJSONObject("~thread");
+        if (thread != null) {
+            span.tag("message.thid", thread.optString("thid"));
+        }
+        Tracing.decorate(message, span.context());
+        return span;
+    }
+
+    // same as beforeSend(JSONObject); the trace context is added when the message is written
+    private static Span beforeSend(ProtocolMessage message) {
+        InteractionTracker interactions = Metrics.interactions();
+        if (interactions != null) {
+            interactions.recordOutbound(message);
+        }
+        if (!Tracing.enabled()) return Span.NOOP;
+        Span span = Tracing.startSpan("verity.send " + message.type());
+        span.tag("message.type", message.type());
+        if (message.threadId() != null) {
+            span.tag("message.thid", message.threadId());
+        }
+        return span;
+    }
+
+    private static String msgType(JSONObject message) {
+        return message.optString("@type", null);
+    }
+
+    private static <T> CompletableFuture<T> endOnCompletion(CompletableFuture<T> future, Span span) {
+        if (span == Span.NOOP) return future;
+        return future.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                span.error(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+            span.end();
+        });
+    }
+
+    // posts the packed message, recording the SEND metric under the type of the message
+    private static void post(Transport transport, String url, byte[] packed, String msgType) throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            transport.sendMessage(url, packed);
+            success = true;
+        } finally {
+            Metrics.record(Operation.SEND, msgType, start, success);
+        }
+    }
+
+    private static CompletableFuture<Void> postAsync(Transport transport,
+                                                    String url,
+                                                    byte[] packed,
+                                                    String msgType,
+                                                    TraceContext trace) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> sent;
+        try (Tracing.Scope ignored = Tracing.activate(trace)) {
+            sent = transport.sendMessageAsync(url, packed);
+        }
+        return sent.whenComplete((ignored, ex) ->
+                Metrics.record(Operation.SEND, msgType, start, ex == null)
+        );
+    }
+
     public static String getNewId() {
         return UUID.randomUUID().toString();
     }
 
     public void sendMessage(Context context, JSONObject message) throws IOException, UndefinedContextException, WalletException {
-        Transport transport = new HTTPTransport();
-        transport.sendMessage(context.verityUrl(), Util.packMessageForVerity(context, message));
+        sendTraced(context, message);
+    }
+
+    public CompletableFuture<Void> sendMessageAsync(Context context, JSONObject message) {
+        return sendAsync(context, message);
+    }
+
+    /**
+     * Encrypts and sends a batch of messages to Verity. Messages are packed in parallel (see
+     * Util.packMessagesForVerity) and each one is posted as soon as it is packed, so packing and sending overlap.
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param messages the messages to send to Verity, usually built with the protocols' *Msg methods
+     * @return one future per message, in the same order as the messages; each completes when Verity accepted
+     * the message, or exceptionally with the VerityException or IOException for that message
+     */
+    public static List<CompletableFuture<Void>> sendAll(Context context, List<JSONObject> messages) {
+        return sendAll(context, messages, Transports.asyncTransport());
+    }
+
+    /**
+     * Same as sendAll(Context, List) but posting through the given transport
+     */
+    public static List<CompletableFuture<Void>> sendAll(Context context, List<JSONObject> messages, Transport transport) {
+        String verityUrl;
+        try {
+            verityUrl = context.verityUrl();
+        } catch (UndefinedContextException e) {
+            List<CompletableFuture<Void>> rtn = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                rtn.add(failed);
+            }
+            return rtn;
+        }
+
+        List<Span> spans = new ArrayList<>(messages.size());
+        for (JSONObject message : messages) {
+            spans.add(beforeSend(message));
+        }
+
+        List<CompletableFuture<Void>> rtn = new ArrayList<>(messages.size());
+        List<CompletableFuture<byte[]>> packed = Util.packMessagesForVerity(context, messages);
+        for (int i = 0; i < messages.size(); i++) {
+            JSONObject message = messages.get(i);
+            Span span = spans.get(i);
+            rtn.add(endOnCompletion(
+                    packed.get(i).thenCompose(m -> postAsync(transport, verityUrl, m, msgType(message), span.context())),
+                    span
+            ));
+        }
+        return rtn;
+    }
+
+    /**
+     * Encrypts and sends a message to Verity and waits, without blocking, for Verity's reply on the message's
+     * thread. The wait is registered before sending, so a fast reply is not missed.
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message to send to Verity, usually built with one of the *Msg methods
+     * @param handlers the Handlers the inbound messages are given to
+     * @param replyName the name of the expected reply (ie. "public-identifier-created"), null for any message
+     * @param timeout how long to wait for the reply
+     * @param unit the unit of the timeout
+     * @return a future completed with the reply; it completes exceptionally when sending fails, with a
+     * ProblemReportException when Verity answered with a problem-report, with a TimeoutException when no reply
+     * came in time and with an IllegalArgumentException when the message has neither a ~thread thid nor an @id
+     */
+    public static CompletableFuture<JSONObject> sendAndAwaitReply(Context context,
+                                                                  JSONObject message,
+                                                                  Handlers handlers,
+                                                                  String replyName,
+                                                                  long timeout,
+                                                                  TimeUnit unit) {
+        return sendAndAwaitReply(context, message, handlers, replyName, timeout, unit, Transports.asyncTransport());
+    }
+
+    /**
+     * Same as sendAndAwaitReply(Context, JSONObject, Handlers, String, long, TimeUnit) but posting through the
+     * given transport
+     */
+    public static CompletableFuture<JSONObject> sendAndAwaitReply(Context context,
+                                                                  JSONObject message,
+                                                                  Handlers handlers,
+                                                                  String replyName,
+                                                                  long timeout,
+                                                                  TimeUnit unit,
+                                                                  Transport transport) {
+        String threadId = threadIdOf(message);
+        if (threadId == null) {
+            return failed(new IllegalArgumentException("The message has neither a ~thread thid nor an @id"));
+        }
+        CompletableFuture<JSONObject> rtn = handlers.awaitReply(threadId, replyName, timeout, unit);
+        sendAsync(context, message, transport).whenComplete((sent, e) -> {
+            if (e != null) {
+                rtn.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return rtn;
+    }
+
+    // messages without a ~thread decorator start a thread identified by their @id; null when there is neither
+    static String threadIdOf(JSONObject message) {
+        JSONObject thread = message.optJSONObject("~thread");
+        String rtn = thread == null ? null : thread.optString("thid", null);
+        return rtn != null ? rtn : message.optString("@id", null);
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> rtn = new CompletableFuture<>();
+        rtn.completeExceptionally(e);
+        return rtn;
     }
 }
\ No newline at end of file
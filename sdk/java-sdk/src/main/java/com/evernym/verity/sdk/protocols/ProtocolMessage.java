@@ -0,0 +1,120 @@
+package com.evernym.verity.sdk.protocols;
+
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.tracing.Tracing;
+import com.evernym.verity.sdk.utils.JsonWriter;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An immutable protocol message that writes itself as JSON straight to UTF-8 bytes (see JsonWriter), so sending
+ * it does not build a JSONObject. Protocols send these through Protocol.send; the *Msg methods returning a
+ * JSONObject are kept as adapters built with toJson.
+ *
+ * Subclasses write the fields of their message in writeFields, and put the same fields in putFields for toJson;
+ * the @type, @id, ~thread and ~for_relationship fields are written by this class.
+ */
+public abstract class ProtocolMessage {
+    private final String type;
+    private final String id;
+    private final String threadId;
+    private final String forRelationship;
+
+    protected ProtocolMessage(String type, String id, String threadId, String forRelationship) {
+        this.type = type;
+        this.id = id;
+        this.threadId = threadId;
+        this.forRelationship = forRelationship;
+    }
+
+    /**
+     * @return the qualified message type, the @type field
+     */
+    public String type() {
+        return type;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * @return the thid of the ~thread decorator, null when the message has none
+     */
+    public String threadId() {
+        return threadId;
+    }
+
+    /**
+     * @return the ~for_relationship field, null when the message has none
+     */
+    public String forRelationship() {
+        return forRelationship;
+    }
+
+    /**
+     * Writes the fields of the message, other than @type, @id, ~thread and ~for_relationship, to the open object
+     * @param out the writer, positioned inside the message object
+     */
+    protected abstract void writeFields(JsonWriter out);
+
+    /**
+     * Puts the fields written by writeFields in the JSONObject of the message
+     * @param json the message object, which already holds @type, @id, ~thread and ~for_relationship
+     */
+    protected abstract void putFields(JSONObject json);
+
+    public final void writeTo(JsonWriter out) {
+        writeTo(out, null);
+    }
+
+    /**
+     * Writes the message as a JSON object
+     * @param out the writer
+     * @param trace the trace context added as ~trace and ~timing decorators, null for none (see Tracing)
+     */
+    public final void writeTo(JsonWriter out, TraceContext trace) {
+        out.beginObject();
+        out.name("@type").value(type);
+        out.name("@id").value(id);
+        if (threadId != null) {
+            out.name("~thread").beginObject().name("thid").value(threadId).endObject();
+        }
+        out.optField("~for_relationship", forRelationship);
+        writeFields(out);
+        if (trace != null) {
+            Tracing.decorate(out, trace);
+        }
+        out.endObject();
+    }
+
+    /**
+     * @return the message as UTF-8 JSON
+     */
+    public byte[] toBytes() {
+        JsonWriter out = JsonWriter.local();
+        writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the message as a JSONObject, for the *Msg methods
+     */
+    public JSONObject toJson() {
+        JSONObject rtn = new JSONObject();
+        rtn.put("@type", type);
+        rtn.put("@id", id);
+        if (threadId != null) {
+            rtn.put("~thread", new JSONObject().put("thid", threadId));
+        }
+        rtn.putOpt("~for_relationship", forRelationship);
+        putFields(rtn);
+        return rtn;
+    }
+
+    @Override
+    public String toString() {
+        return new String(toBytes(), StandardCharsets.UTF_8);
+    }
+}
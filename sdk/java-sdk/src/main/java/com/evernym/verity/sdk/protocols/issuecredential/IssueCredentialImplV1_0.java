@@ -4,6 +4,7 @@ import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.protocols.Protocol;
 import com.evernym.verity.sdk.protocols.issuecredential.v1_0.IssueCredentialV1_0;
 import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.Util;
 import com.evernym.verity.sdk.utils.ValidationUtil;
 import org.json.JSONObject;
 
@@ -90,34 +91,36 @@ class IssueCredentialImplV1_0 extends Protocol implements IssueCredentialV1_0 {
 
     @Override
     public void offerCredential(Context context) throws IOException, VerityException {
-        send(context, offerCredentialMsg(context));
+        send(context, offerCredentialMessage(context));
     }
 
     @Override
-    public JSONObject offerCredentialMsg(Context context) {
+    public OfferCredentialMessage offerCredentialMessage(Context context) {
         if(!created) {
             throw new IllegalArgumentException("Unable to offer credentials when NOT starting the interaction");
         }
 
-        JSONObject msg = new JSONObject();
-        msg.put("@type", getMessageType(OFFER));
-        msg.put("@id", getNewId());
-        msg.put("~for_relationship", forRelationship);
-        addThread(msg);
-
-        msg.put("cred_def_id", credDefId);
-        msg.put("credential_values", values);
-        msg.put("comment", comment);
-        msg.put("price", price);
-        msg.put("auto_issue", autoIssue);
-
-        return msg;
+        return new OfferCredentialMessage(
+                getMessageType(OFFER),
+                getNewId(),
+                getThreadId(),
+                forRelationship,
+                credDefId,
+                values,
+                comment,
+                price,
+                autoIssue
+        );
+    }
 
+    @Override
+    public JSONObject offerCredentialMsg(Context context) {
+        return offerCredentialMessage(context).toJson();
     }
 
     @Override
     public byte[] offerCredentialMsgPacked(Context context) throws VerityException {
-        return packMsg(context, offerCredentialMsg(context));
+        return Util.packMessageForVerity(context, offerCredentialMessage(context));
     }
 
     @Override
@@ -0,0 +1,89 @@
+package com.evernym.verity.sdk.protocols.issuecredential;
+
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import com.evernym.verity.sdk.utils.JsonWriter;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The offer message of the IssueCredential protocol, see IssueCredentialV1_0.offerCredentialMessage
+ */
+public final class OfferCredentialMessage extends ProtocolMessage {
+    private final String credDefId;
+    private final Map<String, String> credentialValues;
+    private final String comment;
+    private final String price;
+    private final Boolean autoIssue;
+
+    OfferCredentialMessage(String type,
+                           String id,
+                           String threadId,
+                           String forRelationship,
+                           String credDefId,
+                           Map<String, String> credentialValues,
+                           String comment,
+                           String price,
+                           Boolean autoIssue) {
+        super(type, id, threadId, forRelationship);
+        this.credDefId = credDefId;
+        this.credentialValues = credentialValues == null
+                ? null
+                : Collections.unmodifiableMap(new LinkedHashMap<>(credentialValues));
+        this.comment = comment;
+        this.price = price;
+        this.autoIssue = autoIssue;
+    }
+
+    public String credDefId() {
+        return credDefId;
+    }
+
+    public Map<String, String> credentialValues() {
+        return credentialValues;
+    }
+
+    public String comment() {
+        return comment;
+    }
+
+    public String price() {
+        return price;
+    }
+
+    public Boolean autoIssue() {
+        return autoIssue;
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out) {
+        out.optField("cred_def_id", credDefId);
+        if (credentialValues != null) {
+            out.name("credential_values").beginObject();
+            for (Map.Entry<String, String> value : credentialValues.entrySet()) {
+                out.optField(value.getKey(), value.getValue());
+            }
+            out.endObject();
+        }
+        out.optField("comment", comment);
+        out.optField("price", price);
+        out.optField("auto_issue", autoIssue);
+    }
+
+    @Override
+    protected void putFields(JSONObject json) {
+        json.putOpt("cred_def_id", credDefId);
+        if (credentialValues != null) {
+            JSONObject values = new JSONObject();
+            for (Map.Entry<String, String> value : credentialValues.entrySet()) {
+                values.putOpt(value.getKey(), value.getValue());
+            }
+            json.put("credential_values", values);
+        }
+        json.putOpt("comment", comment);
+        json.putOpt("price", price);
+        json.putOpt("auto_issue", autoIssue);
+    }
+}
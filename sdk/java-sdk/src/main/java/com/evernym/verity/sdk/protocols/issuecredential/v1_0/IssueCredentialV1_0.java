@@ -4,6 +4,7 @@ import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
 import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.protocols.issuecredential.OfferCredentialMessage;
 import com.evernym.verity.sdk.utils.Context;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
@@ -41,6 +42,14 @@ public interface IssueCredentialV1_0 extends MessageFamily {
      */
     void offerCredential(Context context) throws IOException, VerityException;
 
+    /**
+     * Builds the credential offer message sent by offerCredential
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @return the typed offer message, written without building a JSONObject when sent
+     * @throws VerityException when the context doesn't have enough information for this operation
+     */
+    OfferCredentialMessage offerCredentialMessage(Context context) throws VerityException;
+
     JSONObject offerCredentialMsg(Context context) throws VerityException;
 
     byte[] offerCredentialMsgPacked(Context context) throws VerityException;
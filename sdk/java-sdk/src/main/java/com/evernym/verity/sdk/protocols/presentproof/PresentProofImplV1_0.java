@@ -6,11 +6,11 @@ import com.evernym.verity.sdk.protocols.presentproof.common.Attribute;
 import com.evernym.verity.sdk.protocols.presentproof.common.Predicate;
 import com.evernym.verity.sdk.protocols.presentproof.v1_0.PresentProofV1_0;
 import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
 
-import static com.evernym.verity.sdk.utils.JsonUtil.makeArray;
 import static org.hyperledger.indy.sdk.StringUtils.isNullOrWhiteSpace;
 
 /**
@@ -63,30 +63,34 @@ class PresentProofImplV1_0 extends Protocol implements PresentProofV1_0 {
     }
 
     public void request(Context context) throws IOException, VerityException {
-        send(context, requestMsg(context));
+        send(context, requestMessage(context));
     }
 
     @Override
-    public JSONObject requestMsg(Context context) {
+    public ProofRequestMessage requestMessage(Context context) {
         if(!created) {
             throw new IllegalArgumentException("Unable to request presentation when NOT starting the interaction");
         }
 
-        JSONObject msg = new JSONObject();
-        msg.put("@type", getMessageType(PROOF_REQUEST));
-        msg.put("@id", getNewId());
-        addThread(msg);
-        msg.put("~for_relationship", this.forRelationship);
-        msg.put("name", this.name);
-        msg.put("proof_attrs", makeArray(proofAttrs));
-        if (this.proofPredicates != null)
-            msg.put("proof_predicates", makeArray(proofPredicates));
-        return msg;
+        return new ProofRequestMessage(
+                getMessageType(PROOF_REQUEST),
+                getNewId(),
+                getThreadId(),
+                this.forRelationship,
+                this.name,
+                this.proofAttrs,
+                this.proofPredicates
+        );
+    }
+
+    @Override
+    public JSONObject requestMsg(Context context) {
+        return requestMessage(context).toJson();
     }
 
     @Override
     public byte[] requestMsgPacked(Context context) throws VerityException {
-        return packMsg(context, requestMsg(context));
+        return Util.packMessageForVerity(context, requestMessage(context));
     }
 
     @Override
@@ -0,0 +1,93 @@
+package com.evernym.verity.sdk.protocols.presentproof;
+
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import com.evernym.verity.sdk.protocols.presentproof.common.Attribute;
+import com.evernym.verity.sdk.protocols.presentproof.common.Predicate;
+import com.evernym.verity.sdk.utils.AsJsonObject;
+import com.evernym.verity.sdk.utils.JsonWriter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The request message of the PresentProof protocol, see PresentProofV1_0.requestMessage
+ */
+public final class ProofRequestMessage extends ProtocolMessage {
+    private final String name;
+    private final List<Attribute> proofAttrs;
+    private final List<Predicate> proofPredicates;
+
+    ProofRequestMessage(String type,
+                        String id,
+                        String threadId,
+                        String forRelationship,
+                        String name,
+                        Attribute[] proofAttrs,
+                        Predicate[] proofPredicates) {
+        super(type, id, threadId, forRelationship);
+        this.name = name;
+        this.proofAttrs = proofAttrs == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(proofAttrs.clone()));
+        this.proofPredicates = proofPredicates == null
+                ? null
+                : Collections.unmodifiableList(Arrays.asList(proofPredicates.clone()));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<Attribute> proofAttrs() {
+        return proofAttrs;
+    }
+
+    /**
+     * @return the requested predicates, null when the request has none
+     */
+    public List<Predicate> proofPredicates() {
+        return proofPredicates;
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out) {
+        out.optField("name", name);
+        writeArray(out, "proof_attrs", proofAttrs);
+        if (proofPredicates != null) {
+            writeArray(out, "proof_predicates", proofPredicates);
+        }
+    }
+
+    @Override
+    protected void putFields(JSONObject json) {
+        json.putOpt("name", name);
+        json.put("proof_attrs", toArray(proofAttrs));
+        if (proofPredicates != null) {
+            json.put("proof_predicates", toArray(proofPredicates));
+        }
+    }
+
+    // like JsonUtil.makeArray, which skips null items
+    private static void writeArray(JsonWriter out, String name, List<? extends AsJsonObject> items) {
+        out.name(name).beginArray();
+        for (AsJsonObject item : items) {
+            if (item != null) {
+                out.value(item.toJson());
+            }
+        }
+        out.endArray();
+    }
+
+    private static JSONArray toArray(List<? extends AsJsonObject> items) {
+        JSONArray rtn = new JSONArray();
+        for (AsJsonObject item : items) {
+            if (item != null) {
+                rtn.put(item.toJson());
+            }
+        }
+        return rtn;
+    }
+}
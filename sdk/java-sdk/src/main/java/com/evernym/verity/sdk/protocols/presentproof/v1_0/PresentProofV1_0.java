@@ -4,6 +4,7 @@ import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
 import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.protocols.presentproof.ProofRequestMessage;
 import com.evernym.verity.sdk.protocols.presentproof.common.Attribute;
 import com.evernym.verity.sdk.protocols.presentproof.common.Predicate;
 import com.evernym.verity.sdk.protocols.presentproof.common.Restriction;
@@ -45,6 +46,14 @@ public interface PresentProofV1_0 extends MessageFamily {
      */
     void request(Context context) throws IOException, VerityException;
 
+    /**
+     * Builds the proof request message sent by request
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @return the typed proof request message, written without building a JSONObject when sent
+     * @throws VerityException when the context doesn't have enough information for this operation
+     */
+    ProofRequestMessage requestMessage(Context context) throws VerityException;
+
     JSONObject requestMsg(Context context) throws VerityException;
 
     byte[] requestMsgPacked(Context context) throws VerityException;
@@ -55,8 +55,7 @@ class ProvisionImplV0_7 extends Protocol implements ProvisionV0_7 {
     }
 
     protected JSONObject sendToVerity(Context context, byte[] packedMessage) throws WalletException, UndefinedContextException, IOException {
-        HTTPTransport transport = new HTTPTransport();
-        byte[] respBytes = transport.sendSyncMessage(context.verityUrl(), packedMessage);
+        byte[] respBytes = HTTPTransport.shared().sendSyncMessage(context.verityUrl(), packedMessage);
 
         return Util.unpackMessage(context, respBytes);
     }
@@ -4,7 +4,7 @@ import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.protocols.MessageFamily;
 import com.evernym.verity.sdk.protocols.Protocol;
 import com.evernym.verity.sdk.utils.Context;
-import org.json.JSONArray;
+import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
@@ -59,24 +59,28 @@ public abstract class AskCommonImpl extends Protocol implements MessageFamily {
     }
 
     public void ask(Context context) throws IOException, VerityException {
-        send(context, askMsg(context));
+        send(context, askMessage(context));
+    }
+
+    public AskQuestionMessage askMessage(Context context) {
+        return new AskQuestionMessage(
+                getMessageType(ASK_QUESTION),
+                getNewId(),
+                getThreadId(),
+                this.forRelationship,
+                this.questionText,
+                this.questionDetail,
+                this.validResponses,
+                this.signatureRequired
+        );
     }
 
     public JSONObject askMsg(Context context) {
-        JSONObject msg = new JSONObject();
-        msg.put("@type", getMessageType(ASK_QUESTION));
-        msg.put("@id", getNewId());
-        addThread(msg);
-        msg.put("~for_relationship", this.forRelationship);
-        msg.put("text", this.questionText);
-        msg.put("detail", this.questionDetail);
-        msg.put("valid_responses", new JSONArray(this.validResponses));
-        msg.put("signature_required", this.signatureRequired);
-        return msg;
+        return askMessage(context).toJson();
     }
 
     public byte[] askMsgPacked(Context context) throws VerityException {
-        return packMsg(context, askMsg(context));
+        return Util.packMessageForVerity(context, askMessage(context));
     }
 
 
@@ -0,0 +1,77 @@
+package com.evernym.verity.sdk.protocols.questionanswer;
+
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import com.evernym.verity.sdk.utils.JsonWriter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ask-question message of the QuestionAnswer and CommittedAnswer protocols, see AskCommonImpl.askMessage
+ */
+public final class AskQuestionMessage extends ProtocolMessage {
+    private final String text;
+    private final String detail;
+    private final List<String> validResponses;
+    private final boolean signatureRequired;
+
+    AskQuestionMessage(String type,
+                       String id,
+                       String threadId,
+                       String forRelationship,
+                       String text,
+                       String detail,
+                       String[] validResponses,
+                       boolean signatureRequired) {
+        super(type, id, threadId, forRelationship);
+        this.text = text;
+        this.detail = detail;
+        this.validResponses = validResponses == null
+                ? null
+                : Collections.unmodifiableList(Arrays.asList(validResponses.clone()));
+        this.signatureRequired = signatureRequired;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public String detail() {
+        return detail;
+    }
+
+    public List<String> validResponses() {
+        return validResponses;
+    }
+
+    public boolean signatureRequired() {
+        return signatureRequired;
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out) {
+        out.optField("text", text);
+        out.optField("detail", detail);
+        if (validResponses != null) {
+            out.name("valid_responses").beginArray();
+            for (String response : validResponses) {
+                out.value(response);
+            }
+            out.endArray();
+        }
+        out.name("signature_required").value(signatureRequired);
+    }
+
+    @Override
+    protected void putFields(JSONObject json) {
+        json.putOpt("text", text);
+        json.putOpt("detail", detail);
+        if (validResponses != null) {
+            json.put("valid_responses", new JSONArray(validResponses));
+        }
+        json.put("signature_required", signatureRequired);
+    }
+}
@@ -4,6 +4,7 @@ import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
 import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.protocols.questionanswer.AskQuestionMessage;
 import com.evernym.verity.sdk.utils.Context;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
@@ -32,6 +33,14 @@ public interface QuestionAnswerV1_0 extends MessageFamily {
      */
     void ask(Context context) throws IOException, VerityException;
 
+    /**
+     * Builds the question message sent by ask
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @return the typed question message, written without building a JSONObject when sent
+     * @throws VerityException when the context doesn't have enough information for this operation
+     */
+    AskQuestionMessage askMessage(Context context) throws VerityException;
+
     JSONObject askMsg(Context context) throws VerityException;
 
     byte[] askMsgPacked(Context context) throws VerityException;
@@ -6,7 +6,7 @@ import com.evernym.verity.sdk.exceptions.WalletException;
 import com.evernym.verity.sdk.protocols.Protocol;
 import com.evernym.verity.sdk.protocols.updateconfigs.v0_6.UpdateConfigsV0_6;
 import com.evernym.verity.sdk.utils.Context;
-import org.json.JSONArray;
+import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
@@ -31,30 +31,22 @@ class UpdateConfigsImplV0_6 extends Protocol implements UpdateConfigsV0_6 {
 
     @Override
     public void update(Context context) throws IOException, VerityException {
-        send(context, updateMsg(context));
+        send(context, updateMessage(context));
+    }
+
+    @Override
+    public UpdateConfigsMessage updateMessage(Context context) {
+        return new UpdateConfigsMessage(getMessageType(UPDATE_CONFIGS), getNewId(), null, this.name, this.logoUrl);
     }
 
     @Override
     public JSONObject updateMsg(Context context) {
-        JSONObject message = new JSONObject();
-        message.put("@type", getMessageType(UPDATE_CONFIGS));
-        message.put("@id", getNewId());
-        JSONArray configs = new JSONArray();
-        JSONObject item1 = new JSONObject();
-        item1.put("name", "name");
-        item1.put("value", this.name);
-        configs.put(item1);
-        JSONObject item2 = new JSONObject();
-        item2.put("name", "logoUrl");
-        item2.put("value", this.logoUrl);
-        configs.put(item2);
-        message.put("configs", configs);
-        return message;
+        return updateMessage(context).toJson();
     }
 
     @Override
     public byte[] updateMsgPacked(Context context) throws VerityException {
-        return packMsg(context, updateMsg(context));
+        return Util.packMessageForVerity(context, updateMessage(context));
     }
 
     /**
@@ -0,0 +1,43 @@
+package com.evernym.verity.sdk.protocols.updateconfigs;
+
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import com.evernym.verity.sdk.utils.JsonWriter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * The update message of the UpdateConfigs protocol, see UpdateConfigsV0_6.updateMessage
+ */
+public final class UpdateConfigsMessage extends ProtocolMessage {
+    private final String name;
+    private final String logoUrl;
+
+    UpdateConfigsMessage(String type, String id, String threadId, String name, String logoUrl) {
+        super(type, id, threadId, null);
+        this.name = name;
+        this.logoUrl = logoUrl;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String logoUrl() {
+        return logoUrl;
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out) {
+        out.name("configs").beginArray();
+        out.beginObject().name("name").value("name").optField("value", name).endObject();
+        out.beginObject().name("name").value("logoUrl").optField("value", logoUrl).endObject();
+        out.endArray();
+    }
+
+    @Override
+    protected void putFields(JSONObject json) {
+        json.put("configs", new JSONArray()
+                .put(new JSONObject().put("name", "name").putOpt("value", name))
+                .put(new JSONObject().put("name", "logoUrl").putOpt("value", logoUrl)));
+    }
+}
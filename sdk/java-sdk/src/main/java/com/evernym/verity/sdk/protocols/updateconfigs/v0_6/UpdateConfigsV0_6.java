@@ -3,6 +3,7 @@ package com.evernym.verity.sdk.protocols.updateconfigs.v0_6;
 import com.evernym.verity.sdk.exceptions.UndefinedContextException;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.protocols.updateconfigs.UpdateConfigsMessage;
 import com.evernym.verity.sdk.utils.Context;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
@@ -36,6 +37,14 @@ public interface UpdateConfigsV0_6 extends MessageFamily {
      */
     JSONObject updateMsg(Context context) throws UndefinedContextException;
 
+    /**
+     * Builds the update message sent by update
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @return the typed update message, written without building a JSONObject when sent
+     * @throws UndefinedContextException when the context doesn't have enough information for this operation
+     */
+    UpdateConfigsMessage updateMessage(Context context) throws UndefinedContextException;
+
     /**
      *
      * @param context
@@ -0,0 +1,46 @@
+package com.evernym.verity.sdk.tracing;
+
+/**
+ * A timed operation of a trace, started with Tracer.startSpan and ended with end
+ */
+public interface Span {
+    /**
+     * Does nothing, its context is null
+     */
+    Span NOOP = new Span() {
+        @Override
+        public TraceContext context() {
+            return null;
+        }
+
+        @Override
+        public Span tag(String key, String value) {
+            return this;
+        }
+
+        @Override
+        public void error(Throwable error) {}
+
+        @Override
+        public void end() {}
+    };
+
+    /**
+     * @return the ids propagated to the operations this span causes, null when the span is not propagated
+     */
+    TraceContext context();
+
+    /**
+     * Adds an attribute to the span, ie. the message type or thread id
+     * @return this span
+     */
+    Span tag(String key, String value);
+
+    /**
+     * Marks the span as failed
+     * @param error the cause of the failure
+     */
+    void error(Throwable error);
+
+    void end();
+}
@@ -0,0 +1,124 @@
+package com.evernym.verity.sdk.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The ids identifying a span within a trace, in the form of the W3C Trace Context: a 32 hex digit trace id and a
+ * 16 hex digit span id. They travel in the traceparent HTTP header and in the ~trace decorator of messages.
+ */
+public final class TraceContext {
+    private static final String VERSION = "00";
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    public TraceContext(String traceId, String spanId, boolean sampled) {
+        if (!isHex(traceId, 32) || !isHex(spanId, 16)) {
+            throw new IllegalArgumentException("Invalid trace context: " + traceId + "-" + spanId);
+        }
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * @return the context of the first span of a new trace, with random ids
+     */
+    public static TraceContext newTrace() {
+        return new TraceContext(randomHex(2), randomHex(1), true);
+    }
+
+    /**
+     * @return the context of a new span in the same trace, with a random span id
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceId, randomHex(1), sampled);
+    }
+
+    /**
+     * Reads a W3C traceparent value, ie. "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"
+     * @param traceparent the value of the traceparent header or decorator field
+     * @return the context, null when the value is missing or not understood
+     */
+    public static TraceContext fromTraceparent(String traceparent) {
+        if (traceparent == null) return null;
+        String[] parts = traceparent.trim().split("-");
+        if (parts.length < 4 || !isHex(parts[0], 2) || !isHex(parts[3], 2)) return null;
+        if (isZero(parts[1]) || isZero(parts[2])) return null;
+        try {
+            return new TraceContext(parts[1], parts[2], (Integer.parseInt(parts[3], 16) & 1) == 1);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public String spanId() {
+        return spanId;
+    }
+
+    public boolean sampled() {
+        return sampled;
+    }
+
+    /**
+     * @return the W3C traceparent value of this context
+     */
+    public String toTraceparent() {
+        return VERSION + "-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TraceContext)) return false;
+        TraceContext other = (TraceContext) o;
+        return traceId.equals(other.traceId) && spanId.equals(other.spanId) && sampled == other.sampled;
+    }
+
+    @Override
+    public int hashCode() {
+        return traceId.hashCode() * 31 + spanId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toTraceparent();
+    }
+
+    private static String randomHex(int longs) {
+        StringBuilder rtn = new StringBuilder(longs * 16);
+        for (int i = 0; i < longs; i++) {
+            long value;
+            do {
+                value = ThreadLocalRandom.current().nextLong();
+            } while (value == 0);
+            String hex = Long.toHexString(value);
+            for (int pad = hex.length(); pad < 16; pad++) {
+                rtn.append('0');
+            }
+            rtn.append(hex);
+        }
+        return rtn.toString();
+    }
+
+    private static boolean isHex(String value, int length) {
+        if (value == null || value.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '0') return false;
+        }
+        return true;
+    }
+}
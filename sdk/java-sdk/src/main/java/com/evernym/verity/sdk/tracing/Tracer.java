@@ -0,0 +1,18 @@
+package com.evernym.verity.sdk.tracing;
+
+/**
+ * Creates the spans of the SDK, usually by delegating to a tracing library such as OpenTelemetry or Zipkin. The
+ * SDK uses the tracer set with Tracing.setTracer; the default, NOOP, creates no spans and leaves messages as
+ * they are.
+ */
+public interface Tracer {
+    Tracer NOOP = (name, parent) -> Span.NOOP;
+
+    /**
+     * Starts a span
+     * @param name the name of the operation, ie. "verity.send spec/issue-credential/1.0/offer"
+     * @param parent the context of the span that caused this one, null to start a new trace
+     * @return the started span; the context of a span that is propagated must not be null
+     */
+    Span startSpan(String name, TraceContext parent);
+}
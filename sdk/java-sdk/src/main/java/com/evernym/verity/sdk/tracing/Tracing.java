@@ -0,0 +1,127 @@
+package com.evernym.verity.sdk.tracing;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+import com.evernym.verity.sdk.utils.JsonWriter;
+import org.json.JSONObject;
+
+import java.time.Instant;
+
+/**
+ * Holds the Tracer of the SDK and propagates the trace context:
+ * <ul>
+ *     <li>within a thread, as the current context set with activate; spans started by the SDK are children of it</li>
+ *     <li>in outbound messages, as the ~trace decorator ({"traceparent": ...}) next to a ~timing decorator with
+ *     the out_time of the message, and as the traceparent header of the HTTP request</li>
+ *     <li>from inbound messages, whose ~trace decorator (or the traceparent header of the webhook request) becomes
+ *     the parent of the span handling them</li>
+ * </ul>
+ * Nothing is added to messages or requests while the tracer is NOOP.
+ */
+public final class Tracing {
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String TRACE_DECORATOR = "~trace";
+    public static final String TIMING_DECORATOR = "~timing";
+
+    /**
+     * Restores the previous current context when closed
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Scope NOOP_SCOPE = () -> {};
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    private static volatile Tracer tracer = Tracer.NOOP;
+
+    private Tracing() {}
+
+    public static Tracer tracer() {
+        return tracer;
+    }
+
+    /**
+     * @param val the tracer creating the spans of the SDK, Tracer.NOOP to create none
+     */
+    public static void setTracer(Tracer val) {
+        DbcUtil.requireNotNull(val, "tracer");
+        tracer = val;
+    }
+
+    /**
+     * @return true when a tracer other than NOOP is set
+     */
+    public static boolean enabled() {
+        return tracer != Tracer.NOOP;
+    }
+
+    /**
+     * @return the trace context of the calling thread, null when there is none
+     */
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the context the current context of the calling thread until the returned scope is closed
+     * @param context the context, null leaves the current context as it is
+     * @return the scope to close, in a try-with-resources
+     */
+    public static Scope activate(TraceContext context) {
+        if (context == null) return NOOP_SCOPE;
+        TraceContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Starts a span whose parent is the current context of the calling thread
+     * @param name the name of the operation
+     * @return the started span, Span.NOOP when no tracer is set
+     */
+    public static Span startSpan(String name) {
+        return tracer.startSpan(name, CURRENT.get());
+    }
+
+    /**
+     * Adds the ~trace and ~timing decorators to an outbound message
+     * @param message the message to send
+     * @param context the context of the span sending it, null adds nothing
+     */
+    public static void decorate(JSONObject message, TraceContext context) {
+        if (context == null) return;
+        message.put(TRACE_DECORATOR, new JSONObject().put(TRACEPARENT_HEADER, context.toTraceparent()));
+        JSONObject timing = message.optJSONObject(TIMING_DECORATOR);
+        if (timing == null) {
+            timing = new JSONObject();
+            message.put(TIMING_DECORATOR, timing);
+        }
+        timing.put("out_time", Instant.now().toString());
+    }
+
+    /**
+     * Writes the ~trace and ~timing decorators as fields of the object being written, for typed messages
+     * @param out the writer, positioned inside the message object
+     * @param context the context of the span sending the message, null adds nothing
+     */
+    public static void decorate(JsonWriter out, TraceContext context) {
+        if (context == null) return;
+        out.name(TRACE_DECORATOR).beginObject().name(TRACEPARENT_HEADER).value(context.toTraceparent()).endObject();
+        out.name(TIMING_DECORATOR).beginObject().name("out_time").value(Instant.now().toString()).endObject();
+    }
+
+    /**
+     * @param message an inbound message
+     * @return the context of its ~trace decorator, null when it has none
+     */
+    public static TraceContext extract(JSONObject message) {
+        JSONObject trace = message.optJSONObject(TRACE_DECORATOR);
+        return trace == null ? null : TraceContext.fromTraceparent(trace.optString(TRACEPARENT_HEADER, null));
+    }
+}
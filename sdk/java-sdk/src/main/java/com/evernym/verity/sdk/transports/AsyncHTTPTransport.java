@@ -0,0 +1,245 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Support for sending messages using non-blocking HTTP
+ *
+ * Requests are multiplexed over a small number of IO reactor threads, so a few caller threads can keep many
+ * messages in flight. Like HTTPTransport, instances own a connection pool and should be reused and closed.
+ */
+public class AsyncHTTPTransport extends Transport implements Closeable {
+    private static AsyncHTTPTransport shared;
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final ScheduledExecutorService idleEvictor;
+    private final InFlight inFlight = new InFlight(this);
+
+    public AsyncHTTPTransport() throws IOException {
+        this(HTTPTransportConfig.defaults());
+    }
+
+    public AsyncHTTPTransport(HTTPTransportConfig config) throws IOException {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(config.connectTimeoutMs())
+                .setSoTimeout(config.socketTimeoutMs())
+                .setTcpNoDelay(true)
+                .build();
+
+        this.connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+        this.connectionManager.setMaxTotal(config.maxConnectionsTotal());
+        this.connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.connectTimeoutMs())
+                .setSocketTimeout(config.socketTimeoutMs())
+                .setConnectionRequestTimeout(config.connectionRequestTimeoutMs())
+                .build();
+
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(HTTPTransport.keepAliveStrategy(config.keepAliveMs()))
+                .build();
+        this.httpClient.start();
+
+        // the async client has no built-in evictor, so idle and expired connections are closed periodically
+        this.idleEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "verity-sdk-async-http-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long idleMs = config.idleEvictionMs();
+        this.idleEvictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleMs, TimeUnit.MILLISECONDS);
+        }, idleMs, idleMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the process-wide async transport, creating it with the default configuration on first use
+     * @return the shared AsyncHTTPTransport
+     */
+    public static synchronized AsyncHTTPTransport shared() {
+        if (shared == null) {
+            try {
+                shared = new AsyncHTTPTransport();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to start async HTTP transport", e);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Replaces the process-wide async transport with one using the given configuration. The previous shared
+     * transport (if any) is closed once the requests in flight on it have finished; requests started on it
+     * after that are sent with the new one.
+     * @param config the pool and timeout settings for the new shared transport
+     * @throws IOException when the new transport fails to start or the previous one is idle and fails to close
+     */
+    public static void configureShared(HTTPTransportConfig config) throws IOException {
+        AsyncHTTPTransport previous;
+        synchronized (AsyncHTTPTransport.class) {
+            previous = shared;
+            shared = new AsyncHTTPTransport(config);
+        }
+        if (previous != null) {
+            previous.inFlight.retire();
+        }
+    }
+
+    /**
+     * Closes the process-wide async transport once the requests in flight on it have finished. A later call to
+     * shared() creates a new one.
+     * @throws IOException when the shared transport is idle and fails to close
+     */
+    public static void closeShared() throws IOException {
+        AsyncHTTPTransport previous;
+        synchronized (AsyncHTTPTransport.class) {
+            previous = shared;
+            shared = null;
+        }
+        if (previous != null) {
+            previous.inFlight.retire();
+        }
+    }
+
+    private CompletableFuture<HttpResponse> transportMessage(String url, byte[] message) {
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.SEND);
+        CompletableFuture<HttpResponse> rtn = new CompletableFuture<>();
+        // committed by the IO reactor thread completing the request, like HTTPTransport.transportMessage
+        rtn.whenComplete((response, ex) -> {
+            if (event.isEnabled()) event.payloadSize(message.length);
+            event.commit();
+        });
+        httpClient.execute(HTTPTransport.buildRequest(url, message), new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if(statusCode > 399) {
+                    String body;
+                    try {
+                        body = EntityUtils.toString(response.getEntity());
+                    } catch (IOException e) {
+                        body = "";
+                    }
+                    rtn.completeExceptionally(HTTPTransport.requestFailed(response, body));
+                }
+                else {
+                    rtn.complete(response);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                rtn.completeExceptionally(ex instanceof IOException ? ex : new IOException(ex));
+            }
+
+            @Override
+            public void cancelled() {
+                rtn.cancel(false);
+            }
+        });
+        return rtn;
+    }
+
+    /**
+     * Send an encrypted agent message to a specified endpoint, blocking until the response is received
+     * @param verityUrl the url where the message will be POSTed to
+     * @param message the encrypted agent message
+     * @throws IOException when the HTTP library fails to post to the url
+     */
+    @Override
+    public void sendMessage(String verityUrl, byte[] message) throws IOException {
+        await(sendMessageAsync(verityUrl, message));
+    }
+
+    /**
+     * Send an encrypted agent message to a specified endpoint without blocking
+     * @param verityUrl the url where the message will be POSTed to
+     * @param message the encrypted agent message
+     * @return a future completed when Verity accepted the message, or completed exceptionally with an IOException
+     */
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(String verityUrl, byte[] message) {
+        if (!inFlight.enter()) {
+            return shared().sendMessageAsync(verityUrl, message);
+        }
+        return transportMessage(HTTPTransport.msgEndpointUrl(verityUrl), message)
+                .thenAccept(resp -> {})
+                .whenComplete((ignored, ex) -> inFlight.exit());
+    }
+
+    /**
+     * Send an encrypted agent message to a specified endpoint without blocking and collect the response body
+     * @param verityUrl the url where the message will be POSTed to
+     * @param message the encrypted agent message
+     * @return a future completed with the response body, or completed exceptionally with an IOException
+     */
+    public CompletableFuture<byte[]> sendSyncMessageAsync(String verityUrl, byte[] message) {
+        if (!inFlight.enter()) {
+            return shared().sendSyncMessageAsync(verityUrl, message);
+        }
+        return transportMessage(HTTPTransport.msgEndpointUrl(verityUrl), message)
+                .thenApply(resp -> {
+                    try {
+                        return EntityUtils.toByteArray(resp.getEntity());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .whenComplete((ignored, ex) -> inFlight.exit());
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Statistics of the connection pool (leased, pending, available and max connections)
+     * @return a snapshot of the pool totals across all routes
+     */
+    public PoolStats poolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Stops the IO reactor and closes all pooled connections
+     * @throws IOException when the HTTP client fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        idleEvictor.shutdownNow();
+        httpClient.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.evernym.verity.sdk.transports;
+
+import java.io.IOException;
+
+/**
+ * Thrown by ResilientTransport instead of sending, while the circuit of the endpoint is open
+ */
+public class CircuitOpenException extends IOException {
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
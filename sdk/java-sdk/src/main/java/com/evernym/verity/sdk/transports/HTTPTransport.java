@@ -1,47 +1,174 @@
 package com.evernym.verity.sdk.transports;
 
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.tracing.Tracing;
+import org.apache.http.Header;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Support for sending messages using the HTTP transport
+ *
+ * Each instance owns a pool of persistent connections. Creating an instance is expensive, so instances should be
+ * reused and closed when no longer needed. The protocol classes use the process-wide instance returned by shared().
  */
-public class HTTPTransport extends Transport {
+public class HTTPTransport extends Transport implements Closeable {
+    private static HTTPTransport shared;
+
     private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final InFlight inFlight = new InFlight(this);
 
     public HTTPTransport() {
-        this.httpClient = HttpClientBuilder.create().build();
+        this(HTTPTransportConfig.defaults());
+    }
+
+    public HTTPTransport(HTTPTransportConfig config) {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(config.maxConnectionsTotal());
+        this.connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.connectTimeoutMs())
+                .setSocketTimeout(config.socketTimeoutMs())
+                .setConnectionRequestTimeout(config.connectionRequestTimeoutMs())
+                .build();
+
+        this.httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(config.keepAliveMs()))
+                .evictExpiredConnections()
+                .evictIdleConnections(config.idleEvictionMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the process-wide transport, creating it with the default configuration on first use
+     * @return the shared HTTPTransport
+     */
+    public static synchronized HTTPTransport shared() {
+        if (shared == null) {
+            shared = new HTTPTransport();
+        }
+        return shared;
+    }
+
+    /**
+     * Replaces the process-wide transport with one using the given configuration. The previous shared
+     * transport (if any) is closed once the requests in flight on it have finished; requests started on it
+     * after that are sent with the new one.
+     * @param config the pool and timeout settings for the new shared transport
+     * @throws IOException when the previous shared transport is idle and fails to close
+     */
+    public static void configureShared(HTTPTransportConfig config) throws IOException {
+        HTTPTransport previous;
+        synchronized (HTTPTransport.class) {
+            previous = shared;
+            shared = new HTTPTransport(config);
+        }
+        if (previous != null) {
+            previous.inFlight.retire();
+        }
+    }
+
+    /**
+     * Closes the process-wide transport once the requests in flight on it have finished. A later call to
+     * shared() creates a new one.
+     * @throws IOException when the shared transport is idle and fails to close
+     */
+    public static void closeShared() throws IOException {
+        HTTPTransport previous;
+        synchronized (HTTPTransport.class) {
+            previous = shared;
+            shared = null;
+        }
+        if (previous != null) {
+            previous.inFlight.retire();
+        }
+    }
+
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAliveMs) {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? serverKeepAlive : defaultKeepAliveMs;
+        };
     }
 
     private CloseableHttpClient client() {
         return httpClient;
     }
 
-    private HttpPost buildRequest(String url, byte[] message) {
+    static HttpPost buildRequest(String url, byte[] message) {
         HttpPost request = new HttpPost(url);
         request.setEntity(new ByteArrayEntity(message));
         request.setHeader("Content-Type", "application/octet-stream");
+        TraceContext trace = Tracing.current();
+        if (trace != null) {
+            request.setHeader(Tracing.TRACEPARENT_HEADER, trace.toTraceparent());
+        }
         return request;
     }
 
     private HttpResponse transportMessage(HttpPost request) throws IOException {
-        HttpResponse response = client().execute(request);
-        int statusCode = response.getStatusLine().getStatusCode();
-        if(statusCode > 399) {
-            throw new IOException("Request failed! - " + statusCode + " - " + EntityUtils.toString(response.getEntity()));
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.SEND);
+        try {
+            HttpResponse response = client().execute(request);
+            int statusCode = response.getStatusLine().getStatusCode();
+            if(statusCode > 399) {
+                throw requestFailed(response, EntityUtils.toString(response.getEntity()));
+            }
+            else {
+                return response;
+            }
+        }
+        finally {
+            if (event.isEnabled()) event.payloadSize(request.getEntity().getContentLength());
+            event.commit();
         }
-        else {
-            return response;
+    }
+
+    static TransportException requestFailed(HttpResponse response, String body) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        Header retryAfter = response.getFirstHeader("Retry-After");
+        return new TransportException(
+                "Request failed! - " + statusCode + " - " + body,
+                statusCode,
+                retryAfter == null ? -1 : retryAfterMs(retryAfter.getValue(), System.currentTimeMillis())
+        );
+    }
+
+    /**
+     * Reads a Retry-After value, either a number of seconds or an HTTP date
+     * @return the delay in milliseconds, -1 when the value can not be read
+     */
+    static long retryAfterMs(String value, long now) {
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(trimmed);
+            return date == null ? -1 : Math.max(0, date.getTime() - now);
         }
     }
 
-    private String msgEndpointUrl(String verityUrl) {
+    static String msgEndpointUrl(String verityUrl) {
         return String.format("%s/agency/msg", verityUrl);
     }
 
@@ -52,9 +179,20 @@ public class HTTPTransport extends Transport {
      * @throws IOException when the HTTP library fails to post to the url
      */
     public void sendMessage(String verityUrl, byte[] message) throws IOException {
-        HttpPost request = buildRequest(msgEndpointUrl(verityUrl), message);
+        if (!inFlight.enter()) {
+            shared().sendMessage(verityUrl, message);
+            return;
+        }
+        try {
+            HttpPost request = buildRequest(msgEndpointUrl(verityUrl), message);
+
+            HttpResponse resp = transportMessage(request);
 
-        transportMessage(request);
+            // the response body must be consumed so the connection is returned to the pool
+            EntityUtils.consume(resp.getEntity());
+        } finally {
+            inFlight.exit();
+        }
     }
     /**
      * Send an encrypted agent message to a specified endpoint
@@ -63,10 +201,34 @@ public class HTTPTransport extends Transport {
      * @throws IOException when the HTTP library fails to post to the url
      */
     public byte[] sendSyncMessage(String verityUrl, byte[] message) throws IOException {
-        HttpPost request = buildRequest(msgEndpointUrl(verityUrl), message);
+        if (!inFlight.enter()) {
+            return shared().sendSyncMessage(verityUrl, message);
+        }
+        try {
+            HttpPost request = buildRequest(msgEndpointUrl(verityUrl), message);
+
+            HttpResponse resp = transportMessage(request);
 
-        HttpResponse resp = transportMessage(request);
+            return EntityUtils.toByteArray(resp.getEntity());
+        } finally {
+            inFlight.exit();
+        }
+    }
 
-        return EntityUtils.toByteArray(resp.getEntity());
+    /**
+     * Statistics of the connection pool (leased, pending, available and max connections)
+     * @return a snapshot of the pool totals across all routes
+     */
+    public PoolStats poolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Closes the underlying HTTP client and all pooled connections
+     * @throws IOException when the HTTP client fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
     }
-}
\ No newline at end of file
+}
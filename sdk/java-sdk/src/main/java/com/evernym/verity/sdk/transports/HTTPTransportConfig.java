@@ -0,0 +1,80 @@
+package com.evernym.verity.sdk.transports;
+
+/**
+ * Connection pool and timeout settings used by HTTPTransport. Instances are created with HTTPTransportConfigBuilder.
+ */
+public final class HTTPTransportConfig {
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+    public static final long DEFAULT_KEEP_ALIVE_MS = 30_000;
+    public static final long DEFAULT_IDLE_EVICTION_MS = 60_000;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 10_000;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS = 10_000;
+
+    private final int maxConnectionsTotal;
+    private final int maxConnectionsPerRoute;
+    private final long keepAliveMs;
+    private final long idleEvictionMs;
+    private final int connectTimeoutMs;
+    private final int socketTimeoutMs;
+    private final int connectionRequestTimeoutMs;
+
+    HTTPTransportConfig( // Not a public constructor! Allows work with HTTPTransportConfigBuilder
+            int maxConnectionsTotal,
+            int maxConnectionsPerRoute,
+            long keepAliveMs,
+            long idleEvictionMs,
+            int connectTimeoutMs,
+            int socketTimeoutMs,
+            int connectionRequestTimeoutMs) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAliveMs = keepAliveMs;
+        this.idleEvictionMs = idleEvictionMs;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.socketTimeoutMs = socketTimeoutMs;
+        this.connectionRequestTimeoutMs = connectionRequestTimeoutMs;
+    }
+
+    public static HTTPTransportConfig defaults() {
+        return HTTPTransportConfigBuilder.blank().build();
+    }
+
+    public int maxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public int maxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * @return how long an idle connection is kept alive when the server does not send a Keep-Alive header
+     */
+    public long keepAliveMs() {
+        return keepAliveMs;
+    }
+
+    /**
+     * @return how long a connection may sit idle in the pool before it is evicted
+     */
+    public long idleEvictionMs() {
+        return idleEvictionMs;
+    }
+
+    public int connectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public int socketTimeoutMs() {
+        return socketTimeoutMs;
+    }
+
+    /**
+     * @return how long to wait for a free connection from the pool
+     */
+    public int connectionRequestTimeoutMs() {
+        return connectionRequestTimeoutMs;
+    }
+}
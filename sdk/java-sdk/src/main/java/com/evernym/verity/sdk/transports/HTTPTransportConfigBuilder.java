@@ -0,0 +1,75 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import static com.evernym.verity.sdk.transports.HTTPTransportConfig.*;
+
+public class HTTPTransportConfigBuilder {
+    public static HTTPTransportConfigBuilder blank() {
+        return new HTTPTransportConfigBuilder();
+    }
+
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+    private long idleEvictionMs = DEFAULT_IDLE_EVICTION_MS;
+    private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    private int socketTimeoutMs = DEFAULT_SOCKET_TIMEOUT_MS;
+    private int connectionRequestTimeoutMs = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS;
+
+    private HTTPTransportConfigBuilder() {}
+
+    public HTTPTransportConfigBuilder maxConnectionsTotal(int val) {
+        DbcUtil.require(val > 0, "maxConnectionsTotal must be positive");
+        maxConnectionsTotal = val;
+        return this;
+    }
+
+    public HTTPTransportConfigBuilder maxConnectionsPerRoute(int val) {
+        DbcUtil.require(val > 0, "maxConnectionsPerRoute must be positive");
+        maxConnectionsPerRoute = val;
+        return this;
+    }
+
+    public HTTPTransportConfigBuilder keepAliveMs(long val) {
+        DbcUtil.require(val >= 0, "keepAliveMs must NOT be negative");
+        keepAliveMs = val;
+        return this;
+    }
+
+    public HTTPTransportConfigBuilder idleEvictionMs(long val) {
+        DbcUtil.require(val > 0, "idleEvictionMs must be positive");
+        idleEvictionMs = val;
+        return this;
+    }
+
+    public HTTPTransportConfigBuilder connectTimeoutMs(int val) {
+        DbcUtil.require(val >= 0, "connectTimeoutMs must NOT be negative");
+        connectTimeoutMs = val;
+        return this;
+    }
+
+    public HTTPTransportConfigBuilder socketTimeoutMs(int val) {
+        DbcUtil.require(val >= 0, "socketTimeoutMs must NOT be negative");
+        socketTimeoutMs = val;
+        return this;
+    }
+
+    public HTTPTransportConfigBuilder connectionRequestTimeoutMs(int val) {
+        DbcUtil.require(val >= 0, "connectionRequestTimeoutMs must NOT be negative");
+        connectionRequestTimeoutMs = val;
+        return this;
+    }
+
+    public HTTPTransportConfig build() {
+        return new HTTPTransportConfig(
+                maxConnectionsTotal,
+                Math.min(maxConnectionsPerRoute, maxConnectionsTotal),
+                keepAliveMs,
+                idleEvictionMs,
+                connectTimeoutMs,
+                socketTimeoutMs,
+                connectionRequestTimeoutMs
+        );
+    }
+}
@@ -0,0 +1,54 @@
+package com.evernym.verity.sdk.transports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the requests in flight on a transport, so a shared transport that was replaced (see
+ * HTTPTransport.configureShared) is closed only once the requests it already started have finished.
+ */
+final class InFlight {
+    private static final int CLOSED = -1;
+
+    private final Closeable transport;
+    // the number of requests in flight, or CLOSED once the retired transport was closed
+    private final AtomicInteger state = new AtomicInteger();
+    private volatile boolean retired = false;
+
+    InFlight(Closeable transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * @return false when the transport was retired and closed, the request must then use the current shared one
+     */
+    boolean enter() {
+        while (true) {
+            int s = state.get();
+            if (s == CLOSED) return false;
+            if (state.compareAndSet(s, s + 1)) return true;
+        }
+    }
+
+    void exit() {
+        if (state.decrementAndGet() == 0 && retired && state.compareAndSet(0, CLOSED)) {
+            try {
+                transport.close();
+            } catch (IOException ignored) {
+                // nobody is left to report it to
+            }
+        }
+    }
+
+    /**
+     * Closes the transport now when it is idle, otherwise when its last request in flight finishes
+     * @throws IOException when the transport is idle and fails to close
+     */
+    void retire() throws IOException {
+        retired = true;
+        if (state.compareAndSet(0, CLOSED)) {
+            transport.close();
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.evernym.verity.sdk.transports;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * A Transport that writes packed messages to a local log before sending them, giving at-least-once delivery to
+ * Verity across restarts. Instances are created with OutboxBuilder.
+ *
+ * The log is a directory of memory-mapped segment files. A message is appended to the active segment and made
+ * durable by a flusher thread that forces all segments written since its last run at once (group commit), so
+ * concurrent senders share one fsync. Sender threads then deliver the message with the underlying transport; a
+ * message that fails is retried with exponential backoff and jitter, starting at redeliveryDelayMs and doubling up
+ * to maxRedeliveryDelayMs, so that an unreachable Verity is not hit by every pending message at a fixed pace. Once
+ * accepted its record is marked as delivered; a message Verity refused for good (a 4xx status other than 408 and
+ * 429), or one that still failed after maxDeliveryAttempts when that limit is set, is marked as dead and not
+ * retried. The attempt count is kept in memory, so it starts over when the outbox is reopened. A segment is deleted when none of its messages is pending. Messages still pending when the
+ * process stopped are sent again when the outbox is opened on the same directory.
+ *
+ * sendMessage returns once the message is durable in the log, not once Verity accepted it; use send for a future
+ * completed on delivery. As a message may be delivered more than once, Verity relies on its @id to recognise it.
+ */
+public class Outbox extends Transport implements Closeable {
+    static final String SEGMENT_SUFFIX = ".log";
+    // record: int body length, int crc32 of the body, byte state, body (int url length, url, message)
+    private static final int HEADER_BYTES = 9;
+    private static final int STATE_OFFSET = 8;
+    private static final byte PENDING = 0;
+    private static final byte DELIVERED = 1;
+    private static final byte DEAD = 2;
+
+    private final File directory;
+    private final int segmentBytes;
+    private final Transport transport;
+    private final long flushIntervalMs;
+    private final boolean waitForFlush;
+    private final long redeliveryDelayMs;
+    private final long maxRedeliveryDelayMs;
+    private final int maxDeliveryAttempts;
+
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService redelivery;
+    private final Thread flusher;
+
+    // guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+    private Segment active;
+    private long nextSegmentId;
+    private long appended;
+    private long flushed;
+    private int pending;
+    private boolean closed;
+
+    Outbox( // Not a public constructor! Allows work with OutboxBuilder
+            File directory,
+            int segmentBytes,
+            Transport transport,
+            int senderThreads,
+            long flushIntervalMs,
+            boolean waitForFlush,
+            long redeliveryDelayMs,
+            long maxRedeliveryDelayMs,
+            int maxDeliveryAttempts) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.transport = transport;
+        this.flushIntervalMs = flushIntervalMs;
+        this.waitForFlush = waitForFlush;
+        this.redeliveryDelayMs = redeliveryDelayMs;
+        this.maxRedeliveryDelayMs = maxRedeliveryDelayMs;
+        this.maxDeliveryAttempts = maxDeliveryAttempts;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create outbox directory " + directory);
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(
+                senderThreads,
+                senderThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> daemon(r, "verity-sdk-outbox-sender-" + count.incrementAndGet())
+        );
+        this.redelivery = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "verity-sdk-outbox-redelivery"));
+        this.flusher = daemon(this::flushLoop, "verity-sdk-outbox-flusher");
+
+        List<Record> replay = recover();
+        this.flusher.start();
+        for (Record record : replay) {
+            submit(record);
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Appends the message to the log and sends it in the background
+     * @param url the url where the message will be sent to
+     * @param message the encrypted agent message
+     * @return a future completed once the underlying transport delivered the message, or completed exceptionally
+     * with the TransportException when Verity refused it for good
+     * @throws IOException when the message can not be written to the log
+     */
+    public CompletableFuture<Void> send(String url, byte[] message) throws IOException {
+        Record record = append(url, message);
+        if (waitForFlush) {
+            awaitFlush(record.sequence);
+        }
+        submit(record);
+        return record.delivered;
+    }
+
+    /**
+     * Appends the message to the log and returns once it is durable; it is sent in the background
+     * @param url the url where the message will be sent to
+     * @param message the encrypted agent message
+     * @throws IOException when the message can not be written to the log
+     */
+    @Override
+    public void sendMessage(String url, byte[] message) throws IOException {
+        send(url, message);
+    }
+
+    /**
+     * @return the number of messages in the log that were not delivered yet
+     */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * @return the number of segment files in the log
+     */
+    public synchronized int segments() {
+        return segments.size();
+    }
+
+    /**
+     * Stops sending and closes the log. Messages not delivered yet stay in the log and are sent again when an
+     * outbox is opened on the same directory.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        redelivery.shutdownNow();
+        senders.shutdownNow();
+        try {
+            flusher.join();
+            senders.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+        }
+    }
+
+    private synchronized Record append(String url, byte[] message) throws IOException {
+        if (closed) {
+            throw new IOException("Outbox is closed");
+        }
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 4 + urlBytes.length + message.length;
+        int recordLength = HEADER_BYTES + bodyLength;
+        // the record is followed by at least an empty length, marking the end of the segment
+        if (active == null || active.writePosition + recordLength + 4 > active.buffer.capacity()) {
+            Segment previous = active;
+            active = openSegment(nextSegmentId++, Math.max(segmentBytes, recordLength + 4));
+            segments.add(active);
+            if (previous != null && previous.live == 0) {
+                delete(previous);
+            }
+        }
+
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.writePosition;
+        // through Buffer: the ByteBuffer overrides of Java 9+ would fail with NoSuchMethodError on Java 8
+        ((Buffer) buffer).position(offset + HEADER_BYTES);
+        buffer.putInt(urlBytes.length);
+        buffer.put(urlBytes);
+        buffer.put(message);
+        buffer.put(offset + STATE_OFFSET, PENDING);
+        buffer.putInt(offset + 4, crc(buffer, offset + HEADER_BYTES, bodyLength));
+        buffer.putInt(offset, bodyLength); // written last, a torn record reads as the end of the segment
+
+        active.writePosition = offset + recordLength;
+        active.live++;
+        pending++;
+        dirty.add(active);
+        notifyAll();
+        return new Record(++appended, active, offset, url, message);
+    }
+
+    private synchronized void awaitFlush(long sequence) throws IOException {
+        while (flushed < sequence) {
+            if (closed) {
+                throw new IOException("Outbox is closed");
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the outbox to flush");
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Segment> toForce;
+            long target;
+            synchronized (this) {
+                while (appended == flushed && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (appended == flushed) return; // closed
+                toForce = new ArrayList<>(dirty);
+                dirty.clear();
+                target = appended;
+            }
+
+            for (Segment segment : toForce) {
+                segment.buffer.force();
+            }
+
+            synchronized (this) {
+                flushed = target;
+                notifyAll();
+            }
+            if (flushIntervalMs > 0) {
+                try {
+                    Thread.sleep(flushIntervalMs); // lets more appends share the next force
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void submit(Record record) {
+        try {
+            senders.execute(() -> deliver(record));
+        } catch (RejectedExecutionException ignored) {
+            // closed, the record is sent again when the log is reopened
+        }
+    }
+
+    private void deliver(Record record) {
+        try {
+            transport.sendMessage(record.url, record.message);
+        } catch (TransportException e) {
+            if (isRefused(e.statusCode())) {
+                acknowledge(record, DEAD);
+                record.delivered.completeExceptionally(e);
+            } else {
+                redeliver(record, e);
+            }
+            return;
+        } catch (IOException | RuntimeException e) {
+            redeliver(record, e);
+            return;
+        }
+        acknowledge(record, DELIVERED);
+        record.delivered.complete(null);
+    }
+
+    // a client error other than a timeout or throttling, sending the same message again would fail the same way
+    static boolean isRefused(int statusCode) {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+    }
+
+    private void redeliver(Record record, Exception failure) {
+        int attempt = ++record.attempts;
+        if (maxDeliveryAttempts > 0 && attempt >= maxDeliveryAttempts) {
+            acknowledge(record, DEAD);
+            record.delivered.completeExceptionally(failure);
+            return;
+        }
+        long delayMs = ResilientTransport.backoffMs(redeliveryDelayMs, 2.0, maxRedeliveryDelayMs, attempt);
+        try {
+            redelivery.schedule(() -> submit(record), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // closed, the record is sent again when the log is reopened
+        }
+    }
+
+    private synchronized void acknowledge(Record record, byte state) {
+        Segment segment = record.segment;
+        if (closed && !segment.channel.isOpen()) return;
+        segment.buffer.put(record.offset + STATE_OFFSET, state);
+        segment.live--;
+        pending--;
+        if (segment.live == 0 && segment != active) {
+            delete(segment);
+        }
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment);
+        dirty.remove(segment);
+        try {
+            segment.channel.close();
+        } catch (IOException ignored) {
+            // the file is deleted anyway
+        }
+        //noinspection ResultOfMethodCallIgnored
+        segment.file.delete();
+    }
+
+    private synchronized List<Record> recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        List<Record> rtn = new ArrayList<>();
+        if (files == null) return rtn;
+        Arrays.sort(files);
+
+        for (File file : files) {
+            long id = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            Segment segment = openSegment(id, (int) file.length());
+            segments.add(segment);
+            rtn.addAll(readPending(segment));
+            if (segment.live == 0) {
+                delete(segment);
+            }
+        }
+        return rtn;
+    }
+
+    private List<Record> readPending(Segment segment) {
+        List<Record> rtn = new ArrayList<>();
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            int bodyLength = buffer.getInt(offset);
+            if (bodyLength < 4 || offset + HEADER_BYTES + bodyLength > buffer.capacity()) break;
+
+            if (crc(buffer, offset + HEADER_BYTES, bodyLength) != buffer.getInt(offset + 4)) {
+                break; // torn write, nothing follows it
+            }
+
+            if (buffer.get(offset + STATE_OFFSET) == PENDING) {
+                int urlLength = buffer.getInt(offset + HEADER_BYTES);
+                byte[] urlBytes = new byte[urlLength];
+                byte[] message = new byte[bodyLength - 4 - urlLength];
+                ((Buffer) buffer).position(offset + HEADER_BYTES + 4);
+                buffer.get(urlBytes);
+                buffer.get(message);
+                String url = new String(urlBytes, StandardCharsets.UTF_8);
+                rtn.add(new Record(++appended, segment, offset, url, message));
+                segment.live++;
+                pending++;
+            }
+            offset += HEADER_BYTES + bodyLength;
+        }
+        flushed = appended;
+        segment.writePosition = offset;
+        return rtn;
+    }
+
+    private static int crc(MappedByteBuffer buffer, int offset, int length) {
+        ByteBuffer body = buffer.duplicate();
+        ((Buffer) body).limit(offset + length).position(offset);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private Segment openSegment(long id, int size) throws IOException {
+        File file = new File(directory, String.format("%020d%s", id, SEGMENT_SUFFIX));
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static class Segment {
+        final File file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // guarded by the outbox
+        int writePosition;
+        int live;
+
+        Segment(File file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private static class Record {
+        final long sequence;
+        final Segment segment;
+        final int offset;
+        final String url;
+        final byte[] message;
+        final CompletableFuture<Void> delivered = new CompletableFuture<>();
+        // failed deliveries so far, only touched by the sender delivering the record
+        int attempts;
+
+        Record(long sequence, Segment segment, int offset, String url, byte[] message) {
+            this.sequence = sequence;
+            this.segment = segment;
+            this.offset = offset;
+            this.url = url;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import java.io.File;
+import java.io.IOException;
+
+public class OutboxBuilder {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_SENDER_THREADS = 4;
+    public static final long DEFAULT_REDELIVERY_DELAY_MS = 5_000;
+    public static final long DEFAULT_MAX_REDELIVERY_DELAY_MS = 5 * 60_000;
+
+    public static OutboxBuilder blank() {
+        return new OutboxBuilder();
+    }
+
+    private File directory;
+    private int segmentBytes = DEFAULT_SEGMENT_BYTES;
+    private Transport transport;
+    private int senderThreads = DEFAULT_SENDER_THREADS;
+    private long flushIntervalMs = 0;
+    private boolean waitForFlush = true;
+    private long redeliveryDelayMs = DEFAULT_REDELIVERY_DELAY_MS;
+    private long maxRedeliveryDelayMs = DEFAULT_MAX_REDELIVERY_DELAY_MS;
+    private int maxDeliveryAttempts = 0;
+
+    private OutboxBuilder() {}
+
+    /**
+     * @param val the directory holding the log; pending messages found there are sent again
+     * @return this builder
+     */
+    public OutboxBuilder directory(File val) {
+        directory = val;
+        return this;
+    }
+
+    /**
+     * @param val the size of a segment file, larger messages get a segment of their own
+     * @return this builder
+     */
+    public OutboxBuilder segmentBytes(int val) {
+        DbcUtil.require(val > 0, "segmentBytes must be positive");
+        segmentBytes = val;
+        return this;
+    }
+
+    /**
+     * @param val the transport delivering the messages, by default a ResilientTransport around
+     *            AsyncHTTPTransport.shared()
+     * @return this builder
+     */
+    public OutboxBuilder transport(Transport val) {
+        transport = val;
+        return this;
+    }
+
+    public OutboxBuilder senderThreads(int val) {
+        DbcUtil.require(val > 0, "senderThreads must be positive");
+        senderThreads = val;
+        return this;
+    }
+
+    /**
+     * @param val the minimum delay between two forces of the log; a longer delay batches more messages per force
+     *            at the cost of latency. 0 forces as soon as messages were appended.
+     * @return this builder
+     */
+    public OutboxBuilder flushIntervalMs(long val) {
+        DbcUtil.require(val >= 0, "flushIntervalMs must NOT be negative");
+        flushIntervalMs = val;
+        return this;
+    }
+
+    /**
+     * @param val whether sending waits until the message is forced to disk (the default). Without waiting, a
+     *            message can be lost when the machine (not only the process) fails before the next force.
+     * @return this builder
+     */
+    public OutboxBuilder waitForFlush(boolean val) {
+        waitForFlush = val;
+        return this;
+    }
+
+    /**
+     * @param val the delay before a message that failed to be delivered is sent again for the first time; it
+     *            doubles (with jitter) on every further failure of the same message
+     * @return this builder
+     */
+    public OutboxBuilder redeliveryDelayMs(long val) {
+        DbcUtil.require(val >= 0, "redeliveryDelayMs must NOT be negative");
+        redeliveryDelayMs = val;
+        return this;
+    }
+
+    /**
+     * @param val the longest delay between two deliveries of the same message
+     * @return this builder
+     */
+    public OutboxBuilder maxRedeliveryDelayMs(long val) {
+        DbcUtil.require(val >= 0, "maxRedeliveryDelayMs must NOT be negative");
+        maxRedeliveryDelayMs = val;
+        return this;
+    }
+
+    /**
+     * @param val the number of deliveries after which a failing message is marked as dead and its future completed
+     *            exceptionally with the last failure. 0 (the default) retries until the message is accepted.
+     * @return this builder
+     */
+    public OutboxBuilder maxDeliveryAttempts(int val) {
+        DbcUtil.require(val >= 0, "maxDeliveryAttempts must NOT be negative");
+        maxDeliveryAttempts = val;
+        return this;
+    }
+
+    /**
+     * @return an open outbox, already sending the messages left pending in the directory
+     * @throws IOException when the directory or its segments can not be opened
+     */
+    public Outbox build() throws IOException {
+        DbcUtil.requireNotNull(directory, "directory");
+        return new Outbox(
+                directory,
+                segmentBytes,
+                transport != null ? transport : new ResilientTransport(AsyncHTTPTransport.shared()),
+                senderThreads,
+                flushIntervalMs,
+                waitForFlush,
+                redeliveryDelayMs,
+                Math.max(maxRedeliveryDelayMs, redeliveryDelayMs),
+                maxDeliveryAttempts
+        );
+    }
+}
@@ -0,0 +1,99 @@
+package com.evernym.verity.sdk.transports;
+
+import java.util.Set;
+
+/**
+ * Retry, backoff and circuit breaker settings used by ResilientTransport. Instances are created with
+ * ResilienceConfigBuilder.
+ */
+public final class ResilienceConfig {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 5_000;
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2.0;
+    public static final long DEFAULT_MAX_RETRY_AFTER_MS = 60_000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_DURATION_MS = 30_000;
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double backoffMultiplier;
+    private final long maxRetryAfterMs;
+    private final Set<Integer> retryableStatuses;
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    ResilienceConfig( // Not a public constructor! Allows work with ResilienceConfigBuilder
+            int maxAttempts,
+            long initialBackoffMs,
+            long maxBackoffMs,
+            double backoffMultiplier,
+            long maxRetryAfterMs,
+            Set<Integer> retryableStatuses,
+            int failureThreshold,
+            long openDurationMs) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMultiplier = backoffMultiplier;
+        this.maxRetryAfterMs = maxRetryAfterMs;
+        this.retryableStatuses = retryableStatuses;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    public static ResilienceConfig defaults() {
+        return ResilienceConfigBuilder.blank().build();
+    }
+
+    /**
+     * @return how many times a message is sent at most, the first attempt included
+     */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return the backoff before the first retry, before jitter
+     */
+    public long initialBackoffMs() {
+        return initialBackoffMs;
+    }
+
+    public long maxBackoffMs() {
+        return maxBackoffMs;
+    }
+
+    public double backoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    /**
+     * @return the longest Retry-After that is waited for; the message fails when Verity asks for more
+     */
+    public long maxRetryAfterMs() {
+        return maxRetryAfterMs;
+    }
+
+    /**
+     * @return the HTTP statuses that are retried; connection failures are always retried
+     */
+    public Set<Integer> retryableStatuses() {
+        return retryableStatuses;
+    }
+
+    /**
+     * @return the number of consecutive failures that opens the circuit of an endpoint
+     */
+    public int failureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * @return how long an open circuit rejects messages before letting a trial message through
+     */
+    public long openDurationMs() {
+        return openDurationMs;
+    }
+}
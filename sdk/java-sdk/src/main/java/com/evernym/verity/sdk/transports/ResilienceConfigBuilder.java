@@ -0,0 +1,88 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.evernym.verity.sdk.transports.ResilienceConfig.*;
+
+public class ResilienceConfigBuilder {
+    public static ResilienceConfigBuilder blank() {
+        return new ResilienceConfigBuilder();
+    }
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long initialBackoffMs = DEFAULT_INITIAL_BACKOFF_MS;
+    private long maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+    private double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+    private long maxRetryAfterMs = DEFAULT_MAX_RETRY_AFTER_MS;
+    private Set<Integer> retryableStatuses = new HashSet<>(Arrays.asList(408, 429, 502, 503, 504));
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private long openDurationMs = DEFAULT_OPEN_DURATION_MS;
+
+    private ResilienceConfigBuilder() {}
+
+    public ResilienceConfigBuilder maxAttempts(int val) {
+        DbcUtil.require(val > 0, "maxAttempts must be positive");
+        maxAttempts = val;
+        return this;
+    }
+
+    public ResilienceConfigBuilder initialBackoffMs(long val) {
+        DbcUtil.require(val >= 0, "initialBackoffMs must NOT be negative");
+        initialBackoffMs = val;
+        return this;
+    }
+
+    public ResilienceConfigBuilder maxBackoffMs(long val) {
+        DbcUtil.require(val >= 0, "maxBackoffMs must NOT be negative");
+        maxBackoffMs = val;
+        return this;
+    }
+
+    public ResilienceConfigBuilder backoffMultiplier(double val) {
+        DbcUtil.require(val >= 1.0, "backoffMultiplier must NOT be less than 1");
+        backoffMultiplier = val;
+        return this;
+    }
+
+    public ResilienceConfigBuilder maxRetryAfterMs(long val) {
+        DbcUtil.require(val >= 0, "maxRetryAfterMs must NOT be negative");
+        maxRetryAfterMs = val;
+        return this;
+    }
+
+    public ResilienceConfigBuilder retryableStatuses(Integer... val) {
+        DbcUtil.requireNotNull(val, "retryableStatuses");
+        retryableStatuses = new HashSet<>(Arrays.asList(val));
+        return this;
+    }
+
+    public ResilienceConfigBuilder failureThreshold(int val) {
+        DbcUtil.require(val > 0, "failureThreshold must be positive");
+        failureThreshold = val;
+        return this;
+    }
+
+    public ResilienceConfigBuilder openDurationMs(long val) {
+        DbcUtil.require(val >= 0, "openDurationMs must NOT be negative");
+        openDurationMs = val;
+        return this;
+    }
+
+    public ResilienceConfig build() {
+        return new ResilienceConfig(
+                maxAttempts,
+                initialBackoffMs,
+                Math.max(maxBackoffMs, initialBackoffMs),
+                backoffMultiplier,
+                maxRetryAfterMs,
+                Collections.unmodifiableSet(new HashSet<>(retryableStatuses)),
+                failureThreshold,
+                openDurationMs
+        );
+    }
+}
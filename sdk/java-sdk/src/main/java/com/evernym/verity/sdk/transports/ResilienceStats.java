@@ -0,0 +1,101 @@
+package com.evernym.verity.sdk.transports;
+
+/**
+ * A snapshot of the counters of a ResilientTransport
+ */
+public final class ResilienceStats {
+    private final long messages;
+    private final long attempts;
+    private final long retries;
+    private final long retryAfterWaits;
+    private final long succeeded;
+    private final long failed;
+    private final long rejected;
+    private final int openCircuits;
+
+    ResilienceStats(long messages,
+                    long attempts,
+                    long retries,
+                    long retryAfterWaits,
+                    long succeeded,
+                    long failed,
+                    long rejected,
+                    int openCircuits) {
+        this.messages = messages;
+        this.attempts = attempts;
+        this.retries = retries;
+        this.retryAfterWaits = retryAfterWaits;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.openCircuits = openCircuits;
+    }
+
+    /**
+     * @return the number of messages given to the transport
+     */
+    public long messages() {
+        return messages;
+    }
+
+    /**
+     * @return the number of times a message was handed to the underlying transport
+     */
+    public long attempts() {
+        return attempts;
+    }
+
+    public long retries() {
+        return retries;
+    }
+
+    /**
+     * @return the number of retries delayed by a Retry-After header
+     */
+    public long retryAfterWaits() {
+        return retryAfterWaits;
+    }
+
+    public long succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return the number of messages that failed after their last attempt, rejected ones included
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of attempts rejected because the circuit of the endpoint was open
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    public int openCircuits() {
+        return openCircuits;
+    }
+
+    /**
+     * @return attempts per message; 1.0 means nothing was retried
+     */
+    public double amplification() {
+        return messages == 0 ? 1.0 : (double) attempts / messages;
+    }
+
+    @Override
+    public String toString() {
+        return "ResilienceStats{" +
+                "messages=" + messages +
+                ", attempts=" + attempts +
+                ", retries=" + retries +
+                ", retryAfterWaits=" + retryAfterWaits +
+                ", succeeded=" + succeeded +
+                ", failed=" + failed +
+                ", rejected=" + rejected +
+                ", openCircuits=" + openCircuits +
+                '}';
+    }
+}
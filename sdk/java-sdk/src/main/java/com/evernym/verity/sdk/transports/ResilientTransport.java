@@ -0,0 +1,313 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps another Transport with retries and a circuit breaker per endpoint
+ *
+ * Failed sends are retried with exponential backoff and jitter when the failure is transient: a connection error or
+ * one of the configured statuses (by default 408, 429, 502, 503 and 504). A Retry-After header sent by Verity is
+ * honoured. A retry posts the very same packed bytes, so the message keeps its @id and Verity can recognise a
+ * message it already received; messages are never packed again.
+ *
+ * After failureThreshold consecutive transient failures the circuit of the endpoint opens and messages fail at once
+ * with CircuitOpenException. After openDuration one trial message is let through; the circuit closes again when it
+ * succeeds.
+ *
+ * The async variant waits between attempts on a shared scheduler thread, not on the caller's thread.
+ */
+public class ResilientTransport extends Transport {
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private static ScheduledExecutorService scheduler;
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "verity-sdk-retry");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return scheduler;
+    }
+
+    private final Transport delegate;
+    private final ResilienceConfig config;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retryAfterWaits = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ResilientTransport(Transport delegate) {
+        this(delegate, ResilienceConfig.defaults());
+    }
+
+    public ResilientTransport(Transport delegate, ResilienceConfig config) {
+        DbcUtil.requireNotNull(delegate, "delegate");
+        DbcUtil.requireNotNull(config, "config");
+        this.delegate = delegate;
+        this.config = config;
+    }
+
+    /**
+     * Sends the message, retrying transient failures and sleeping between attempts
+     * @param url the url where the message will be sent to
+     * @param message the encrypted agent message
+     * @throws CircuitOpenException when the circuit of the endpoint is open
+     * @throws IOException the failure of the last attempt
+     */
+    @Override
+    public void sendMessage(String url, byte[] message) throws IOException {
+        messages.increment();
+        CircuitBreaker breaker = breaker(url);
+        for (int attempt = 1; ; attempt++) {
+            acquire(breaker, url);
+            attempts.increment();
+            try {
+                delegate.sendMessage(url, message);
+                succeeded(breaker);
+                return;
+            } catch (IOException e) {
+                long delay = onFailure(breaker, e, attempt);
+                if (delay < 0) throw e;
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failed.increment();
+                    throw new InterruptedIOException("Interrupted while waiting to retry");
+                }
+            } catch (RuntimeException e) {
+                // frees the trial of a half-open circuit, like the async variant does
+                breaker.onSuccess(); // not the endpoint's fault
+                failed.increment();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sends the message without blocking, retrying transient failures
+     * @param url the url where the message will be sent to
+     * @param message the encrypted agent message
+     * @return a future completed when the message was accepted, or completed exceptionally with the failure of
+     * the last attempt (a CircuitOpenException when the circuit of the endpoint is open)
+     */
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(String url, byte[] message) {
+        messages.increment();
+        CompletableFuture<Void> rtn = new CompletableFuture<>();
+        attemptAsync(breaker(url), url, message, 1, rtn);
+        return rtn;
+    }
+
+    private void attemptAsync(CircuitBreaker breaker, String url, byte[] message, int attempt, CompletableFuture<Void> rtn) {
+        try {
+            acquire(breaker, url);
+        } catch (CircuitOpenException e) {
+            rtn.completeExceptionally(e);
+            return;
+        }
+        attempts.increment();
+        CompletableFuture<Void> sent;
+        try {
+            sent = delegate.sendMessageAsync(url, message);
+        } catch (RuntimeException e) {
+            breaker.onSuccess(); // not the endpoint's fault
+            failed.increment();
+            rtn.completeExceptionally(e);
+            return;
+        }
+        sent.whenComplete((ignored, t) -> {
+            if (t == null) {
+                succeeded(breaker);
+                rtn.complete(null);
+                return;
+            }
+
+            Throwable cause = (t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null
+                    ? t.getCause()
+                    : t;
+            if (!(cause instanceof IOException)) {
+                breaker.onSuccess(); // not the endpoint's fault
+                failed.increment();
+                rtn.completeExceptionally(cause);
+                return;
+            }
+            long delay = onFailure(breaker, (IOException) cause, attempt);
+            if (delay < 0) {
+                rtn.completeExceptionally(cause);
+            } else {
+                scheduler().schedule(
+                        () -> attemptAsync(breaker, url, message, attempt + 1, rtn),
+                        delay,
+                        TimeUnit.MILLISECONDS
+                );
+            }
+        });
+    }
+
+    private void acquire(CircuitBreaker breaker, String url) throws CircuitOpenException {
+        if (!breaker.tryAcquire(System.currentTimeMillis())) {
+            rejected.increment();
+            failed.increment();
+            throw new CircuitOpenException("Circuit is open for " + url);
+        }
+    }
+
+    private void succeeded(CircuitBreaker breaker) {
+        breaker.onSuccess();
+        succeeded.increment();
+    }
+
+    // records the failure and returns the delay before the next attempt, or -1 when the message has failed
+    private long onFailure(CircuitBreaker breaker, IOException e, int attempt) {
+        boolean transientFailure = isTransient(e);
+        if (transientFailure) {
+            breaker.onFailure(System.currentTimeMillis());
+        } else {
+            breaker.onSuccess(); // the endpoint answered, the message itself was refused
+        }
+
+        long delay = transientFailure && attempt < config.maxAttempts() ? backoffMs(attempt) : -1;
+        if (delay >= 0 && e instanceof TransportException) {
+            long retryAfter = ((TransportException) e).retryAfterMs();
+            if (retryAfter > config.maxRetryAfterMs()) {
+                delay = -1;
+            } else if (retryAfter > delay) {
+                delay = retryAfter;
+                retryAfterWaits.increment();
+            }
+        }
+
+        if (delay < 0) {
+            failed.increment();
+        } else {
+            retries.increment();
+        }
+        return delay;
+    }
+
+    boolean isTransient(IOException e) {
+        if (e instanceof CircuitOpenException) return false;
+        if (e instanceof TransportException) {
+            return config.retryableStatuses().contains(((TransportException) e).statusCode());
+        }
+        return true;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: a random delay between half and all of the exponential value
+     */
+    long backoffMs(int attempt) {
+        return backoffMs(config.initialBackoffMs(), config.backoffMultiplier(), config.maxBackoffMs(), attempt);
+    }
+
+    // shared with Outbox, attempt counts from 1
+    static long backoffMs(long initialMs, double multiplier, long maxMs, int attempt) {
+        double exponential = initialMs * Math.pow(multiplier, attempt - 1);
+        long capped = (long) Math.min(exponential, maxMs);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped - capped / 2 + 1);
+    }
+
+    private CircuitBreaker breaker(String url) {
+        return breakers.computeIfAbsent(url, u -> new CircuitBreaker(config.failureThreshold(), config.openDurationMs()));
+    }
+
+    /**
+     * @param url the url messages are sent to
+     * @return the state of the endpoint's circuit, CLOSED when nothing was sent to it yet
+     */
+    public CircuitState circuitState(String url) {
+        CircuitBreaker breaker = breakers.get(url);
+        return breaker == null ? CircuitState.CLOSED : breaker.state(System.currentTimeMillis());
+    }
+
+    /**
+     * @return a snapshot of the transport's counters
+     */
+    public ResilienceStats stats() {
+        long now = System.currentTimeMillis();
+        int open = 0;
+        for (CircuitBreaker breaker : breakers.values()) {
+            if (breaker.state(now) != CircuitState.CLOSED) open++;
+        }
+        return new ResilienceStats(
+                messages.sum(),
+                attempts.sum(),
+                retries.sum(),
+                retryAfterWaits.sum(),
+                succeeded.sum(),
+                failed.sum(),
+                rejected.sum(),
+                open
+        );
+    }
+
+    /**
+     * Consecutive failure counting breaker. Half open lets a single trial attempt through.
+     */
+    private static class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openDurationMs;
+        private int failures;
+        private long openedAt = -1;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int failureThreshold, long openDurationMs) {
+            this.failureThreshold = failureThreshold;
+            this.openDurationMs = openDurationMs;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            switch (state(now)) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (trialInFlight) return false;
+                    trialInFlight = true;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        synchronized void onSuccess() {
+            failures = 0;
+            openedAt = -1;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure(long now) {
+            failures++;
+            if (trialInFlight || failures >= failureThreshold) {
+                openedAt = now;
+            }
+            trialInFlight = false;
+        }
+
+        synchronized CircuitState state(long now) {
+            if (openedAt < 0) return CircuitState.CLOSED;
+            return now - openedAt < openDurationMs ? CircuitState.OPEN : CircuitState.HALF_OPEN;
+        }
+    }
+}
@@ -1,10 +1,29 @@
 package com.evernym.verity.sdk.transports;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * The base class for all Transports used for sending messages to Verity
  */
 public abstract class Transport {
     public abstract void sendMessage(String url, byte[] message) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * Sends a message without blocking the caller. Transports that are not natively asynchronous fall back
+     * to running sendMessage on the common fork-join pool; AsyncHTTPTransport overrides this with non-blocking IO.
+     * @param url the url where the message will be sent to
+     * @param message the encrypted agent message
+     * @return a future completed when the message was accepted, or completed exceptionally with an IOException
+     */
+    public CompletableFuture<Void> sendMessageAsync(String url, byte[] message) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                sendMessage(url, message);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.evernym.verity.sdk.transports;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the HTTP transports when Verity answers with an error status
+ */
+public class TransportException extends IOException {
+    private final int statusCode;
+    private final long retryAfterMs;
+
+    public TransportException(String message, int statusCode, long retryAfterMs) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * @return the HTTP status of the response
+     */
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return how long Verity asked to wait before sending again (Retry-After header), -1 when it did not say
+     */
+    public long retryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,55 @@
+package com.evernym.verity.sdk.transports;
+
+/**
+ * Holds the transports the protocol classes send their messages with. By default these are HTTPTransport.shared()
+ * and AsyncHTTPTransport.shared(); any other transport, like a ResilientTransport wrapping them, can be installed
+ * for every protocol with setTransport and setAsyncTransport.
+ */
+public final class Transports {
+    private static volatile Transport transport;
+    private static volatile Transport asyncTransport;
+
+    private Transports() {}
+
+    /**
+     * @return the transport used by the blocking send methods of the protocols
+     */
+    public static Transport transport() {
+        Transport rtn = transport;
+        return rtn != null ? rtn : HTTPTransport.shared();
+    }
+
+    /**
+     * @param val the transport used by the blocking send methods of the protocols, null for HTTPTransport.shared()
+     */
+    public static void setTransport(Transport val) {
+        transport = val;
+    }
+
+    /**
+     * @return the transport used by the async send methods of the protocols (sendAsync, sendAll and
+     * sendAndAwaitReply)
+     */
+    public static Transport asyncTransport() {
+        Transport rtn = asyncTransport;
+        return rtn != null ? rtn : AsyncHTTPTransport.shared();
+    }
+
+    /**
+     * @param val the transport used by the async send methods of the protocols, null for
+     *            AsyncHTTPTransport.shared()
+     */
+    public static void setAsyncTransport(Transport val) {
+        asyncTransport = val;
+    }
+
+    /**
+     * Installs ResilientTransports wrapping the shared HTTP transports, so the messages of every protocol are
+     * retried on transient failures
+     * @param config the retry and circuit breaker settings
+     */
+    public static void useResilience(ResilienceConfig config) {
+        setTransport(new ResilientTransport(HTTPTransport.shared(), config));
+        setAsyncTransport(new ResilientTransport(AsyncHTTPTransport.shared(), config));
+    }
+}
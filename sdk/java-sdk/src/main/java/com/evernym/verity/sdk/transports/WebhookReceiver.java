@@ -0,0 +1,314 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.handlers.Handlers;
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.tracing.Tracing;
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.DbcUtil;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.bootstrap.HttpServer;
+import org.apache.http.impl.nio.bootstrap.ServerBootstrap;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncRequestConsumer;
+import org.apache.http.nio.protocol.BasicAsyncResponseProducer;
+import org.apache.http.nio.protocol.HttpAsyncExchange;
+import org.apache.http.nio.protocol.HttpAsyncRequestConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestHandler;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An HTTP endpoint receiving the messages Verity posts to the webhook configured with UpdateEndpoint
+ *
+ * Connections are served by a small number of non-blocking IO threads. Request bodies are read straight into a
+ * byte array which is handed to a bounded pool of worker threads. When every worker is busy and the queue is full,
+ * requests are answered with 429 (and 503 while stopping), both with a Retry-After header, so Verity backs off
+ * instead of the receiver running out of memory or threads. That is decided when the request headers arrive, and
+ * the body of a rejected request is discarded rather than buffered.
+ *
+ * The workers are daemon threads, like the other threads of the SDK: close the receiver before the JVM exits to
+ * let the queued messages be handled.
+ *
+ * The trace context of a traceparent request header is the current context while the message is handled, see
+ * Tracing.
+ */
+public class WebhookReceiver implements Closeable {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /**
+     * Receives the body of each message posted to the webhook, on one of the worker threads. When it throws, the
+     * sender gets a 500 response without any detail of the failure, so the sink should log it.
+     */
+    public interface MessageSink {
+        void receive(byte[] message) throws Exception;
+    }
+
+    private final WebhookReceiverConfig config;
+    private final MessageSink sink;
+    private final ThreadPoolExecutor workers;
+    private final HttpServer server;
+
+    /**
+     * Creates a receiver that hands every message to Handlers.handleMessage
+     * @param config listener and worker settings
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param handlers the handlers called for the received messages
+     */
+    public WebhookReceiver(WebhookReceiverConfig config, Context context, Handlers handlers) {
+        this(config, message -> handlers.handleMessage(context, message));
+    }
+
+    /**
+     * Creates a receiver that hands every message to the given sink
+     * @param config listener and worker settings
+     * @param sink called with the body of each received message
+     */
+    public WebhookReceiver(WebhookReceiverConfig config, MessageSink sink) {
+        DbcUtil.requireNotNull(config, "config");
+        DbcUtil.requireNotNull(sink, "sink");
+
+        this.config = config;
+        this.sink = sink;
+
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                config.workerThreads(),
+                config.workerThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.queueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "verity-sdk-webhook-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.ioThreads())
+                .setSoTimeout(config.socketTimeoutMs())
+                .setSoReuseAddress(true)
+                .setTcpNoDelay(true)
+                .build();
+
+        ServerBootstrap bootstrap = ServerBootstrap.bootstrap()
+                .setListenerPort(config.port())
+                .setIOReactorConfig(reactorConfig)
+                .setServerInfo("verity-sdk")
+                .registerHandler("*", new RequestHandler());
+        if (config.host() != null) {
+            try {
+                bootstrap.setLocalAddress(InetAddress.getByName(config.host()));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unknown host: " + config.host(), e);
+            }
+        }
+        this.server = bootstrap.create();
+    }
+
+    /**
+     * Starts listening. Returns once the listener is bound.
+     * @throws IOException when the port can not be bound
+     */
+    public void start() throws IOException {
+        server.start();
+        try {
+            server.getEndpoint().waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting the webhook receiver", e);
+        }
+        if (server.getEndpoint().getException() != null) {
+            throw server.getEndpoint().getException();
+        }
+    }
+
+    /**
+     * @return the port the receiver listens on, useful when it was configured with port 0
+     */
+    public int port() {
+        return ((InetSocketAddress) server.getEndpoint().getAddress()).getPort();
+    }
+
+    /**
+     * @return the number of received messages waiting for a worker
+     */
+    public int queuedMessages() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Stops accepting messages, waits for the queued ones to be handled and stops listening
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(config.socketTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    private void respond(HttpAsyncExchange exchange, int status) {
+        HttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        if (status == 429 || status == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            response.setHeader("Retry-After", Integer.toString(config.retryAfterSeconds()));
+        }
+        exchange.submitResponse(new BasicAsyncResponseProducer(response));
+    }
+
+    private class RequestHandler implements HttpAsyncRequestHandler<BodyConsumer> {
+        @Override
+        public HttpAsyncRequestConsumer<BodyConsumer> processRequest(HttpRequest request, HttpContext context) {
+            // rejected before the body is read, so a burst holds no more than the queue in memory
+            int rejected = 0;
+            if (workers.isShutdown()) {
+                rejected = HttpStatus.SC_SERVICE_UNAVAILABLE;
+            } else if (workers.getQueue().remainingCapacity() == 0) {
+                rejected = 429;
+            }
+            return new BodyConsumer(config.maxMessageBytes(), rejected);
+        }
+
+        @Override
+        public void handle(BodyConsumer body, HttpAsyncExchange exchange, HttpContext context) {
+            if (!"POST".equalsIgnoreCase(body.method)) {
+                respond(exchange, HttpStatus.SC_METHOD_NOT_ALLOWED);
+                return;
+            }
+            if (body.rejected != 0) {
+                respond(exchange, body.rejected);
+                return;
+            }
+            if (body.tooLarge) {
+                respond(exchange, HttpStatus.SC_REQUEST_TOO_LONG);
+                return;
+            }
+            if (workers.isShutdown()) {
+                respond(exchange, HttpStatus.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+
+            byte[] message = body.message();
+            TraceContext trace = TraceContext.fromTraceparent(body.traceparent);
+            try {
+                workers.execute(() -> {
+                    try (Tracing.Scope ignored = Tracing.activate(trace)) {
+                        sink.receive(message);
+                        respond(exchange, HttpStatus.SC_OK);
+                    } catch (Exception e) {
+                        respond(exchange, HttpStatus.SC_INTERNAL_SERVER_ERROR);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                respond(exchange, workers.isShutdown() ? HttpStatus.SC_SERVICE_UNAVAILABLE : 429);
+            }
+        }
+    }
+
+    /**
+     * Reads the request body into a byte array, sized from Content-Length when the sender provides it
+     */
+    private static class BodyConsumer extends AbstractAsyncRequestConsumer<BodyConsumer> {
+        private final int maxMessageBytes;
+        // the status answered without reading the body, 0 when the request is accepted
+        private final int rejected;
+        private String method;
+        private String traceparent;
+        private byte[] buffer = new byte[0];
+        private int length;
+        private boolean tooLarge;
+
+        BodyConsumer(int maxMessageBytes, int rejected) {
+            this.maxMessageBytes = maxMessageBytes;
+            this.rejected = rejected;
+        }
+
+        @Override
+        protected void onRequestReceived(HttpRequest request) {
+            method = request.getRequestLine().getMethod();
+            Header trace = request.getFirstHeader(Tracing.TRACEPARENT_HEADER);
+            traceparent = trace == null ? null : trace.getValue();
+            if (rejected != 0 || !(request instanceof HttpEntityEnclosingRequest)) {
+                return;
+            }
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            long contentLength = entity == null ? -1 : entity.getContentLength();
+            if (contentLength > maxMessageBytes) {
+                tooLarge = true;
+            } else {
+                buffer = new byte[contentLength >= 0 ? (int) contentLength : INITIAL_BUFFER_SIZE];
+            }
+        }
+
+        @Override
+        protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) { }
+
+        @Override
+        protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+            if (tooLarge || rejected != 0) {
+                discard(decoder);
+                return;
+            }
+            int read;
+            do {
+                if (length == buffer.length) {
+                    if (length >= maxMessageBytes) {
+                        tooLarge = true;
+                        buffer = new byte[0];
+                        discard(decoder);
+                        return;
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(Math.max(buffer.length * 2, INITIAL_BUFFER_SIZE), maxMessageBytes));
+                }
+                read = decoder.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+                if (read > 0) {
+                    length += read;
+                }
+            } while (read > 0);
+        }
+
+        private static void discard(ContentDecoder decoder) throws IOException {
+            ByteBuffer scratch = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+            while (decoder.read(scratch) > 0) {
+                ((Buffer) scratch).clear();
+            }
+        }
+
+        @Override
+        protected BodyConsumer buildResult(HttpContext context) {
+            return this;
+        }
+
+        @Override
+        protected void releaseResources() { }
+
+        byte[] message() {
+            return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.evernym.verity.sdk.transports;
+
+/**
+ * Listener, worker pool and limit settings used by WebhookReceiver. Instances are created with
+ * WebhookReceiverConfigBuilder.
+ */
+public final class WebhookReceiverConfig {
+    public static final int DEFAULT_PORT = 4000;
+    public static final int DEFAULT_IO_THREADS = 1;
+    public static final int DEFAULT_WORKER_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+    public static final int DEFAULT_MAX_MESSAGE_BYTES = 1024 * 1024;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MS = 15_000;
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final String host;
+    private final int port;
+    private final int ioThreads;
+    private final int workerThreads;
+    private final int queueCapacity;
+    private final int maxMessageBytes;
+    private final int socketTimeoutMs;
+    private final int retryAfterSeconds;
+
+    WebhookReceiverConfig( // Not a public constructor! Allows work with WebhookReceiverConfigBuilder
+            String host,
+            int port,
+            int ioThreads,
+            int workerThreads,
+            int queueCapacity,
+            int maxMessageBytes,
+            int socketTimeoutMs,
+            int retryAfterSeconds) {
+        this.host = host;
+        this.port = port;
+        this.ioThreads = ioThreads;
+        this.workerThreads = workerThreads;
+        this.queueCapacity = queueCapacity;
+        this.maxMessageBytes = maxMessageBytes;
+        this.socketTimeoutMs = socketTimeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public static WebhookReceiverConfig defaults() {
+        return WebhookReceiverConfigBuilder.blank().build();
+    }
+
+    /**
+     * @return the address to listen on, or null to listen on all interfaces
+     */
+    public String host() {
+        return host;
+    }
+
+    /**
+     * @return the port to listen on, 0 picks a free port
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * @return the number of NIO threads accepting connections and reading requests
+     */
+    public int ioThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * @return the number of threads that hand received messages to the handlers
+     */
+    public int workerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * @return how many received messages may wait for a worker before requests are answered with 429
+     */
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the largest accepted request body, larger bodies are answered with 413
+     */
+    public int maxMessageBytes() {
+        return maxMessageBytes;
+    }
+
+    public int socketTimeoutMs() {
+        return socketTimeoutMs;
+    }
+
+    /**
+     * @return the Retry-After value sent with 429 and 503 responses
+     */
+    public int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
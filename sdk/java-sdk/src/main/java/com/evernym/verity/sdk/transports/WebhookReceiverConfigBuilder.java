@@ -0,0 +1,82 @@
+package com.evernym.verity.sdk.transports;
+
+import com.evernym.verity.sdk.utils.DbcUtil;
+
+import static com.evernym.verity.sdk.transports.WebhookReceiverConfig.*;
+
+public class WebhookReceiverConfigBuilder {
+    public static WebhookReceiverConfigBuilder blank() {
+        return new WebhookReceiverConfigBuilder();
+    }
+
+    private String host = null;
+    private int port = DEFAULT_PORT;
+    private int ioThreads = DEFAULT_IO_THREADS;
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int maxMessageBytes = DEFAULT_MAX_MESSAGE_BYTES;
+    private int socketTimeoutMs = DEFAULT_SOCKET_TIMEOUT_MS;
+    private int retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+
+    private WebhookReceiverConfigBuilder() {}
+
+    public WebhookReceiverConfigBuilder host(String val) {
+        host = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder port(int val) {
+        DbcUtil.require(val >= 0 && val <= 65535, "port must be between 0 and 65535");
+        port = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder ioThreads(int val) {
+        DbcUtil.require(val > 0, "ioThreads must be positive");
+        ioThreads = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder workerThreads(int val) {
+        DbcUtil.require(val > 0, "workerThreads must be positive");
+        workerThreads = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder queueCapacity(int val) {
+        DbcUtil.require(val > 0, "queueCapacity must be positive");
+        queueCapacity = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder maxMessageBytes(int val) {
+        DbcUtil.require(val > 0, "maxMessageBytes must be positive");
+        maxMessageBytes = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder socketTimeoutMs(int val) {
+        DbcUtil.require(val >= 0, "socketTimeoutMs must NOT be negative");
+        socketTimeoutMs = val;
+        return this;
+    }
+
+    public WebhookReceiverConfigBuilder retryAfterSeconds(int val) {
+        DbcUtil.require(val >= 0, "retryAfterSeconds must NOT be negative");
+        retryAfterSeconds = val;
+        return this;
+    }
+
+    public WebhookReceiverConfig build() {
+        return new WebhookReceiverConfig(
+                host,
+                port,
+                ioThreads,
+                workerThreads,
+                queueCapacity,
+                maxMessageBytes,
+                socketTimeoutMs,
+                retryAfterSeconds
+        );
+    }
+}
@@ -1,7 +1,10 @@
 package com.evernym.verity.sdk.utils;
 
 import com.evernym.verity.sdk.exceptions.*;
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
 import com.evernym.verity.sdk.wallet.WalletConfig;
+import com.evernym.verity.sdk.wallet.WalletPool;
 import org.bitcoinj.core.Base58;
 import org.hyperledger.indy.sdk.IndyException;
 import org.hyperledger.indy.sdk.crypto.Crypto;
@@ -9,6 +12,7 @@ import org.hyperledger.indy.sdk.wallet.Wallet;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutionException;
 
@@ -18,11 +22,14 @@ import static com.evernym.verity.sdk.utils.ContextConstants.*;
  * An object used to hold the wallet handle and other configuration information. 
  * An instance if this object is passed around to many different API calls.
  */
-public final class Context implements AsJsonObject{
+public final class Context implements AsJsonObject, RestApiTokenProvider {
     final private String version;
 
     final private WalletConfig walletConfig;
     final private Wallet walletHandle;
+    final private WalletPool walletPool;
+    final private WalletRegistry walletRegistry;
+    final private ThreadRegistry threadRegistry;
     final private String endpointUrl;
 
     final private String verityUrl;
@@ -35,6 +42,12 @@ public final class Context implements AsJsonObject{
 
     private boolean walletClosedFlag = false;
 
+    // derived values used for every outbound message, computed once on first use
+    private volatile String pairwiseReceiverKeys;
+    private volatile String verityReceiverKeys;
+    private volatile byte[] forwardPrefix;
+    private volatile String restApiToken;
+
     Context( // Not a public constructor! Allows work with ContextBuilder
         WalletConfig walletConfig,
         String version,
@@ -45,7 +58,8 @@ public final class Context implements AsJsonObject{
         String verityAgentVerKey,
         String sdkVerKeyId,
         String sdkVerKey,
-        String endpointUrl
+        String endpointUrl,
+        ThreadRegistry threadRegistry
     ) throws WalletOpenException {
         this.walletConfig = walletConfig;
         this.version = version;
@@ -58,6 +72,9 @@ public final class Context implements AsJsonObject{
         this.sdkVerKey = sdkVerKey;
         this.endpointUrl = endpointUrl;
         this.walletHandle = openWallet();
+        this.walletPool = null;
+        this.walletRegistry = null;
+        this.threadRegistry = threadRegistry;
     }
 
     Context( // Not a public constructor! Allows work with ContextBuilder
@@ -71,7 +88,10 @@ public final class Context implements AsJsonObject{
             String sdkVerKeyId,
             String sdkVerKey,
             String endpointUrl,
-            Wallet handle
+            Wallet handle,
+            WalletPool walletPool,
+            WalletRegistry walletRegistry,
+            ThreadRegistry threadRegistry
     ) throws WalletOpenException {
         if (handle == null) {
             throw new WalletOpenException("Context can not be constructed without wallet handle");
@@ -88,6 +108,9 @@ public final class Context implements AsJsonObject{
         this.sdkVerKey = sdkVerKey;
         this.endpointUrl = endpointUrl;
         this.walletHandle = handle;
+        this.walletPool = walletPool;
+        this.walletRegistry = walletRegistry;
+        this.threadRegistry = threadRegistry;
     }
 
     private Wallet openWallet() throws WalletOpenException, JSONException {
@@ -95,25 +118,45 @@ public final class Context implements AsJsonObject{
             throw new WalletOpenException("Unable to open wallet without wallet configuration.");
         }
 
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.OPEN_WALLET);
         try {
             return Wallet.openWallet(walletConfig.config(), walletConfig.credential()).get();
         }
         catch (IndyException | ExecutionException | InterruptedException e){
             throw new WalletOpenException(e);
         }
+        finally {
+            event.commit();
+        }
     }
 
     /**
-     * Closes the wallet handle stored inside the Context object.
+     * Closes the wallet handle stored inside the Context object. When the Context was built with a WalletRegistry,
+     * its reference to the handle is released instead, and the handle is closed once no Context uses it.
      *
      * @throws WalletCloseException when failing to close the wallet
      */
     public void closeWallet() throws WalletCloseException {
+        if (walletRegistry != null) {
+            synchronized (this) {
+                if (walletClosedFlag) return;
+                walletClosedFlag = true;
+            }
+            restApiToken = null;
+            walletRegistry.release(walletConfig);
+            return;
+        }
+
         walletClosedFlag = true;
+        restApiToken = null;
         try {
-            walletHandle.closeWallet().get();
+            if (walletPool != null) {
+                walletPool.close();
+            } else {
+                walletHandle.closeWallet().get();
+            }
         }
-        catch (IndyException | ExecutionException | InterruptedException e){
+        catch (IndyException | ExecutionException | InterruptedException | IOException e){
             throw new WalletCloseException(e);
         }
     }
@@ -167,11 +210,38 @@ public final class Context implements AsJsonObject{
         return throwIfNull(version, VERSION);
     }
 
+    /**
+     * The token is the sdkVerKey signed with itself. It is computed on the first call and kept until the wallet
+     * is closed or invalidateRestApiToken is called.
+     * @return the API key for the Verity REST API
+     */
+    @Override
     public String restApiToken() throws VerityException, IndyException {
-        try {
-            String verkey = sdkVerKey();
+        String rtn = restApiToken;
+        if (rtn == null) {
+            synchronized (this) {
+                rtn = restApiToken;
+                if (rtn == null) {
+                    rtn = signRestApiToken();
+                    restApiToken = rtn;
+                }
+            }
+        }
+        return rtn;
+    }
+
+    /**
+     * Drops the cached REST API token, for example after the keys of the sdkVerKey were rotated in the wallet
+     */
+    public void invalidateRestApiToken() {
+        restApiToken = null;
+    }
+
+    private String signRestApiToken() throws VerityException, IndyException {
+        String verkey = sdkVerKey();
+        try (WalletPool.Lease handle = cryptoWalletHandle()) {
             byte[] signature = Crypto.cryptoSign(
-                    walletHandle(),
+                    handle.handle(),
                     verkey,
                     verkey.getBytes(StandardCharsets.UTF_8)
             ).get();
@@ -184,6 +254,42 @@ public final class Context implements AsJsonObject{
         }
     }
 
+    /**
+     * @return the JSON array of recipient keys for messages to the Verity agent (ie. ["verityAgentVerKey"])
+     */
+    String pairwiseReceiverKeys() throws UndefinedContextException {
+        String rtn = pairwiseReceiverKeys;
+        if (rtn == null) {
+            rtn = Util.receiverKeys(verityAgentVerKey());
+            pairwiseReceiverKeys = rtn;
+        }
+        return rtn;
+    }
+
+    /**
+     * @return the JSON array of recipient keys for the outer forward message (ie. ["verityPublicVerKey"])
+     */
+    String verityReceiverKeys() throws UndefinedContextException {
+        String rtn = verityReceiverKeys;
+        if (rtn == null) {
+            rtn = Util.receiverKeys(verityPublicVerKey());
+            verityReceiverKeys = rtn;
+        }
+        return rtn;
+    }
+
+    /**
+     * @return the UTF-8 bytes of the forward message that precede the embedded packed message
+     */
+    byte[] forwardPrefix() throws UndefinedContextException {
+        byte[] rtn = forwardPrefix;
+        if (rtn == null) {
+            rtn = Util.forwardPrefix(domainDID());
+            forwardPrefix = rtn;
+        }
+        return rtn;
+    }
+
     public Wallet walletHandle() throws WalletClosedException {
         if (walletClosedFlag) {
             throw new WalletClosedException();
@@ -191,6 +297,41 @@ public final class Context implements AsJsonObject{
         return walletHandle;
     }
 
+    /**
+     * @return the wallet handle to use for pack, unpack and signing, to be closed once the call is done; a lease
+     * from the WalletPool when the Context was built with one, otherwise the wallet handle
+     */
+    WalletPool.Lease cryptoWalletHandle() throws WalletClosedException {
+        Wallet rtn = walletHandle();
+        return walletPool == null ? WalletPool.Lease.unpooled(rtn) : walletPool.lease();
+    }
+
+    /**
+     * @return the WalletPool this Context was built with, or null
+     */
+    public WalletPool walletPool() {
+        return walletPool;
+    }
+
+    /**
+     * @return the ThreadRegistry recording the messages packed with this Context, or null
+     */
+    public ThreadRegistry threadRegistry() {
+        return threadRegistry;
+    }
+
+    void recordOutbound(JSONObject message) {
+        if (threadRegistry != null) {
+            threadRegistry.recordOutbound(message);
+        }
+    }
+
+    void recordOutbound(ProtocolMessage message) {
+        if (threadRegistry != null) {
+            threadRegistry.recordOutbound(message);
+        }
+    }
+
     public boolean walletIsClosed() {
         return walletClosedFlag;
     }
@@ -206,9 +347,16 @@ public final class Context implements AsJsonObject{
         if(sdkVerKeyId != null) rtn.sdkVerKeyId(sdkVerKeyId);
         if(sdkVerKey != null) rtn.sdkVerKey(sdkVerKey);
         if(endpointUrl != null) rtn.endpointUrl(endpointUrl);
+        if(threadRegistry != null) rtn.threadRegistry(threadRegistry);
 
         if (!walletClosedFlag) {
-            rtn.walletHandle(walletHandle);
+            if (walletPool != null) {
+                rtn.walletPool(walletPool);
+            } else if (walletRegistry != null) {
+                rtn.walletRegistry(walletRegistry);
+            } else {
+                rtn.walletHandle(walletHandle);
+            }
         }
 
         return rtn;
@@ -1,9 +1,12 @@
 package com.evernym.verity.sdk.utils;
 
+import com.evernym.verity.sdk.exceptions.WalletCloseException;
 import com.evernym.verity.sdk.exceptions.WalletException;
 import com.evernym.verity.sdk.exceptions.WalletOpenException;
 import com.evernym.verity.sdk.wallet.DefaultWalletConfig;
+import com.evernym.verity.sdk.wallet.KeyDerivationMethod;
 import com.evernym.verity.sdk.wallet.WalletConfig;
+import com.evernym.verity.sdk.wallet.WalletPool;
 import org.hyperledger.indy.sdk.wallet.Wallet;
 import org.json.JSONObject;
 
@@ -132,6 +135,9 @@ public class ContextBuilder {
     private final Map<String, String> elements = new HashMap<>();
     private WalletConfig walletConfig;
     private Wallet walletHandle = null;
+    private WalletPool walletPool = null;
+    private WalletRegistry walletRegistry = null;
+    private ThreadRegistry threadRegistry = null;
 
     private ContextBuilder() {}
 
@@ -148,10 +154,12 @@ public class ContextBuilder {
     }
 
     public ContextBuilder json(JSONObject json){
+        String keyDerivationMethod = json.optString("walletKeyDerivationMethod", null);
         WalletConfig w = DefaultWalletConfig.build(
                 json.getString("walletName"),
                 json.getString("walletKey"),
-                json.optString("walletPath", null)
+                json.optString("walletPath", null),
+                keyDerivationMethod == null ? null : KeyDerivationMethod.fromString(keyDerivationMethod)
         );
         this.walletConfig(w);
         putElementIgnoreNull(ENDPOINT_URL, json.optString(ENDPOINT_URL));
@@ -203,27 +211,54 @@ public class ContextBuilder {
         return this;
     }
 
+    /**
+     * Spreads the crypto work of the built Context across the handles of the pool. The pool's primary handle is
+     * used as the wallet handle, and closing the Context's wallet closes the pool.
+     * @param val an open WalletPool for the wallet of this Context
+     * @return this builder
+     */
+    public ContextBuilder walletPool(WalletPool val) {
+        walletPool = val;
+        return this;
+    }
+
+    /**
+     * Takes the wallet handle of the built Context from the registry, which opens the wallet only when no other
+     * Context uses it. Contexts derived from the built one with toContextBuilder use the same registry.
+     * @param val the registry holding the open wallet handles, usually WalletRegistry.shared()
+     * @return this builder
+     */
+    public ContextBuilder walletRegistry(WalletRegistry val) {
+        walletRegistry = val;
+        return this;
+    }
+
+    /**
+     * Records the messages packed with the built Context in the registry, see ThreadRegistry
+     * @param val the registry of protocol threads
+     * @return this builder
+     */
+    public ContextBuilder threadRegistry(ThreadRegistry val) {
+        threadRegistry = val;
+        return this;
+    }
+
     /**
      *
      * @return Built Context instance from this builder.
      * @throws WalletOpenException when the wallet does not exist or Indy is unable to open it.
      */
     public Context build() throws WalletOpenException {
-        if (walletHandle == null) {
-            return new Context(
-                    walletConfig,
-                    elements.get(VERSION),
-                    elements.get(VERITY_URL),
-                    elements.get(VERITY_PUBLIC_DID),
-                    elements.get(VERITY_PUBLIC_VER_KEY),
-                    elements.get(DOMAIN_DID),
-                    elements.get(VERITY_AGENT_VER_KEY),
-                    elements.get(SDK_VER_KEY_ID),
-                    elements.get(SDK_VER_KEY),
-                    elements.get(ENDPOINT_URL)
-            );
+        Wallet handle = walletHandle;
+        WalletRegistry registry = null;
+        if (walletPool != null) {
+            handle = walletPool.primary();
+        } else if (walletRegistry != null && handle == null) {
+            handle = walletRegistry.acquire(walletConfig);
+            registry = walletRegistry;
         }
-        else {
+
+        if (handle == null) {
             return new Context(
                     walletConfig,
                     elements.get(VERSION),
@@ -235,9 +270,43 @@ public class ContextBuilder {
                     elements.get(SDK_VER_KEY_ID),
                     elements.get(SDK_VER_KEY),
                     elements.get(ENDPOINT_URL),
-                    walletHandle
+                    threadRegistry
             );
         }
+        else {
+            try {
+                return new Context(
+                        walletConfig,
+                        elements.get(VERSION),
+                        elements.get(VERITY_URL),
+                        elements.get(VERITY_PUBLIC_DID),
+                        elements.get(VERITY_PUBLIC_VER_KEY),
+                        elements.get(DOMAIN_DID),
+                        elements.get(VERITY_AGENT_VER_KEY),
+                        elements.get(SDK_VER_KEY_ID),
+                        elements.get(SDK_VER_KEY),
+                        elements.get(ENDPOINT_URL),
+                        handle,
+                        walletPool,
+                        registry,
+                        threadRegistry
+                );
+            } catch (WalletOpenException | RuntimeException e) {
+                if (registry != null) {
+                    releaseQuietly(registry, e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    // gives back the reference taken for a Context that could not be built
+    private void releaseQuietly(WalletRegistry registry, Exception cause) {
+        try {
+            registry.release(walletConfig);
+        } catch (WalletCloseException e) {
+            cause.addSuppressed(e);
+        }
     }
 }
 
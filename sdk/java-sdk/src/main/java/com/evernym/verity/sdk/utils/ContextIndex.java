@@ -0,0 +1,53 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.exceptions.InvalidEnvelopeException;
+import com.evernym.verity.sdk.exceptions.UndefinedContextException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contexts indexed by their sdkVerKey, used to find the Context an inbound message is addressed to
+ * (see Handlers.handleMessage(ContextIndex, byte[]))
+ */
+public class ContextIndex {
+    private final Map<String, Context> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the Context, replacing one with the same sdkVerKey
+     * @param context a Context with an sdkVerKey
+     * @return this index
+     * @throws UndefinedContextException when the Context has no sdkVerKey
+     */
+    public ContextIndex add(Context context) throws UndefinedContextException {
+        contexts.put(context.sdkVerKey(), context);
+        return this;
+    }
+
+    public void remove(String sdkVerKey) {
+        contexts.remove(sdkVerKey);
+    }
+
+    public Context get(String sdkVerKey) {
+        return contexts.get(sdkVerKey);
+    }
+
+    public int size() {
+        return contexts.size();
+    }
+
+    /**
+     * Finds the Context of the first recipient of the packed message that is in the index
+     * @param packedMessage a message packed by libindy
+     * @return the Context able to unpack the message
+     * @throws InvalidEnvelopeException when the message is not a packed message
+     * @throws UndefinedContextException when no recipient of the message is in the index
+     */
+    public Context find(byte[] packedMessage) throws InvalidEnvelopeException, UndefinedContextException {
+        for (String verKey : EnvelopeInspector.recipientVerKeys(packedMessage)) {
+            Context rtn = contexts.get(verKey);
+            if (rtn != null) return rtn;
+        }
+        throw new UndefinedContextException("No Context for the recipients of the message");
+    }
+}
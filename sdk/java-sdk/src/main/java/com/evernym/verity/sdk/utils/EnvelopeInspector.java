@@ -0,0 +1,110 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.exceptions.InvalidEnvelopeException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reads the unencrypted parts of a message packed by libindy (Crypto.packMessage) without decrypting it
+ *
+ * A packed message is a JWE whose "protected" member is the base64url encoded JSON header listing the recipients,
+ * each with its verkey as "kid". Only the header is decoded and parsed; the ciphertext is skipped, so inspecting
+ * costs a small fraction of an unpack.
+ */
+public final class EnvelopeInspector {
+    private static final byte[] PROTECTED = "\"protected\"".getBytes(StandardCharsets.US_ASCII);
+
+    private EnvelopeInspector() {}
+
+    /**
+     * @param packedMessage a message packed by libindy
+     * @return the verkeys of the recipients, in the order of the envelope
+     * @throws InvalidEnvelopeException when the message is not a packed message
+     */
+    public static List<String> recipientVerKeys(byte[] packedMessage) throws InvalidEnvelopeException {
+        try {
+            JSONArray recipients = protectedHeader(packedMessage).getJSONArray("recipients");
+            List<String> rtn = new ArrayList<>(recipients.length());
+            for (int i = 0; i < recipients.length(); i++) {
+                rtn.add(recipients.getJSONObject(i).getJSONObject("header").getString("kid"));
+            }
+            return rtn;
+        } catch (JSONException e) {
+            throw new InvalidEnvelopeException("Packed message has no recipient list", e);
+        }
+    }
+
+    /**
+     * @param packedMessage a message packed by libindy
+     * @return the decoded protected header (enc, typ, alg and recipients)
+     * @throws InvalidEnvelopeException when the message is not a packed message
+     */
+    public static JSONObject protectedHeader(byte[] packedMessage) throws InvalidEnvelopeException {
+        int start = valueStart(packedMessage);
+        int end = start;
+        while (end < packedMessage.length && packedMessage[end] != '"') {
+            end++;
+        }
+        if (end == packedMessage.length) {
+            throw new InvalidEnvelopeException("Packed message has an unterminated protected header");
+        }
+
+        try {
+            byte[] header = Base64.getUrlDecoder().decode(urlSafe(packedMessage, start, end));
+            return new JSONObject(new String(header, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | JSONException e) {
+            throw new InvalidEnvelopeException("Packed message has an invalid protected header", e);
+        }
+    }
+
+    // index of the first character of the "protected" string value
+    private static int valueStart(byte[] message) throws InvalidEnvelopeException {
+        int key = indexOf(message, PROTECTED);
+        if (key < 0) {
+            throw new InvalidEnvelopeException("Packed message has no protected header");
+        }
+        int i = skipWhitespace(message, key + PROTECTED.length);
+        if (i >= message.length || message[i] != ':') {
+            throw new InvalidEnvelopeException("Packed message has an invalid protected header");
+        }
+        i = skipWhitespace(message, i + 1);
+        if (i >= message.length || message[i] != '"') {
+            throw new InvalidEnvelopeException("Packed message has an invalid protected header");
+        }
+        return i + 1;
+    }
+
+    private static int skipWhitespace(byte[] message, int i) {
+        while (i < message.length && (message[i] == ' ' || message[i] == '\n' || message[i] == '\r' || message[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOf(byte[] message, byte[] target) {
+        outer:
+        for (int i = 0; i <= message.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (message[i + j] != target[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // accepts standard base64 too, the url decoder already accepts missing padding
+    private static byte[] urlSafe(byte[] message, int start, int end) {
+        byte[] rtn = new byte[end - start];
+        for (int i = 0; i < rtn.length; i++) {
+            byte b = message[start + i];
+            rtn[i] = b == '+' ? (byte) '-' : b == '/' ? (byte) '_' : b;
+        }
+        return rtn;
+    }
+}
@@ -0,0 +1,283 @@
+package com.evernym.verity.sdk.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes JSON as UTF-8 bytes into a growable buffer, without building a JSONObject or a String first. It is used
+ * to serialise the typed protocol messages (see ProtocolMessage) for packing.
+ *
+ * The writer keeps no stack of open objects and arrays: callers are expected to nest begin and end calls
+ * correctly. local() hands out a writer per thread whose buffer is reused from one message to the next.
+ */
+public final class JsonWriter {
+    private static final int INITIAL_SIZE = 1024;
+    // buffers grown beyond this are not kept by local(), so one large message does not pin memory to a thread
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(JsonWriter::new);
+
+    private byte[] buffer;
+    private int size;
+    // true when the next name or value follows another one and needs a comma
+    private boolean comma;
+
+    public JsonWriter() {
+        this(INITIAL_SIZE);
+    }
+
+    public JsonWriter(int initialSize) {
+        buffer = new byte[initialSize];
+    }
+
+    /**
+     * @return the empty writer of the calling thread; it must not be used again before its bytes were copied
+     */
+    public static JsonWriter local() {
+        JsonWriter rtn = LOCAL.get();
+        if (rtn.buffer.length > MAX_RETAINED_SIZE) {
+            rtn.buffer = new byte[INITIAL_SIZE];
+        }
+        rtn.reset();
+        return rtn;
+    }
+
+    public JsonWriter reset() {
+        size = 0;
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        write((byte) '{');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        write((byte) '}');
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        write((byte) '[');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        write((byte) ']');
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes the name of the next field of the current object
+     */
+    public JsonWriter name(String name) {
+        separate();
+        string(name);
+        write((byte) ':');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            raw("null");
+        } else {
+            string(value);
+        }
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        raw(Long.toString(value));
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        raw(value ? "true" : "false");
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes any value org.json can hold: null, String, Number, Boolean, JSONObject, JSONArray, Map, Collection,
+     * array or AsJsonObject
+     */
+    public JsonWriter value(Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            separate();
+            raw("null");
+            comma = true;
+        } else if (value instanceof String) {
+            value((String) value);
+        } else if (value instanceof Boolean) {
+            value(((Boolean) value).booleanValue());
+        } else if (value instanceof Number) {
+            separate();
+            raw(JSONObject.numberToString((Number) value));
+            comma = true;
+        } else if (value instanceof AsJsonObject) {
+            value(((AsJsonObject) value).toJson());
+        } else if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            beginObject();
+            for (String key : object.keySet()) {
+                name(key).value(object.opt(key));
+            }
+            endObject();
+        } else if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getValue() != null) { // like JSONObject, which drops null values
+                    name(String.valueOf(entry.getKey())).value(entry.getValue());
+                }
+            }
+            endObject();
+        } else if (value instanceof JSONArray) {
+            beginArray();
+            for (Object item : (JSONArray) value) {
+                value(item);
+            }
+            endArray();
+        } else if (value instanceof Collection) {
+            beginArray();
+            for (Object item : (Collection<?>) value) {
+                value(item);
+            }
+            endArray();
+        } else if (value.getClass().isArray()) {
+            beginArray();
+            for (int i = 0, n = Array.getLength(value); i < n; i++) {
+                value(Array.get(value, i));
+            }
+            endArray();
+        } else {
+            value(value.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Writes the field unless its value is null, as JSONObject.put drops null values
+     */
+    public JsonWriter optField(String name, Object value) {
+        if (value != null) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the bytes written
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void separate() {
+        if (comma) {
+            write((byte) ',');
+        }
+    }
+
+    private void string(String value) {
+        ensure(value.length() + 2);
+        buffer[size++] = '"';
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    write((byte) '\\');
+                    write((byte) c);
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else {
+                    write((byte) c);
+                }
+            } else if (c < 0x800) {
+                write((byte) (0xc0 | (c >> 6)));
+                write((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write((byte) (0xf0 | (codePoint >> 18)));
+                write((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                write((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                write((byte) (0x80 | (codePoint & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                write((byte) '?'); // a lone surrogate can not be encoded, as String.getBytes does
+            } else {
+                write((byte) (0xe0 | (c >> 12)));
+                write((byte) (0x80 | ((c >> 6) & 0x3f)));
+                write((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        write((byte) '"');
+    }
+
+    private void escapeControl(char c) {
+        write((byte) '\\');
+        switch (c) {
+            case '\b': write((byte) 'b'); break;
+            case '\f': write((byte) 'f'); break;
+            case '\n': write((byte) 'n'); break;
+            case '\r': write((byte) 'r'); break;
+            case '\t': write((byte) 't'); break;
+            default:
+                write((byte) 'u');
+                write((byte) '0');
+                write((byte) '0');
+                write(HEX[c >> 4]);
+                write(HEX[c & 0xf]);
+        }
+    }
+
+    // only for ASCII
+    private void raw(String value) {
+        ensure(value.length());
+        for (int i = 0, n = value.length(); i < n; i++) {
+            buffer[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void write(byte b) {
+        if (size == buffer.length) {
+            ensure(1);
+        }
+        buffer[size++] = b;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
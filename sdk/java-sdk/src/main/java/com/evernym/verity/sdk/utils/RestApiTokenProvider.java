@@ -0,0 +1,12 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.exceptions.VerityException;
+import org.hyperledger.indy.sdk.IndyException;
+
+/**
+ * Supplies the API key (X-API-key header) used with the Verity REST API. Context implements it and signs the
+ * token only once, so clients sending many REST requests can ask for it on every request.
+ */
+public interface RestApiTokenProvider {
+    String restApiToken() throws VerityException, IndyException;
+}
@@ -0,0 +1,373 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.exceptions.UndefinedContextException;
+import com.evernym.verity.sdk.exceptions.VerityException;
+import com.evernym.verity.sdk.exceptions.WalletCloseException;
+import com.evernym.verity.sdk.handlers.Handlers;
+import com.evernym.verity.sdk.transports.Transport;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the Contexts of many provisioned agents (tenants) in one process, keyed by their domainDID. Instances are
+ * created with TenantContextManagerBuilder.
+ *
+ * Tenants are registered with their Context configuration (as produced by Context.toJson). Their wallets are
+ * opened on first use and, once more than maxOpenWallets are open, the least recently used wallets that are not
+ * in use are closed again. All tenants share one transport and one executor.
+ *
+ * The budget is a number of open wallets rather than bytes: the memory of an open tenant is the native libindy
+ * state behind its wallet handle (the wallet storage, its caches and keys), which the JVM can not measure, while
+ * a closed tenant only keeps its configuration on the heap. maxOpenWallets times the footprint of one open wallet
+ * bounds that memory.
+ *
+ * Inbound messages are routed to their tenant by the recipient verkey found in the packed message, so the
+ * message is decrypted only once, with the right wallet.
+ */
+public class TenantContextManager implements Closeable {
+
+    /**
+     * Work done with the Context of a tenant, see withContext
+     */
+    public interface ContextFunction<T> {
+        T apply(Context context) throws VerityException;
+    }
+
+    private final int maxOpenWallets;
+    private final Transport transport;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final Map<String, Tenant> tenantsByVerKey = new ConcurrentHashMap<>();
+    // open tenants in access order, guarded by this
+    private final LinkedHashMap<Tenant, Boolean> openTenants = new LinkedHashMap<>(16, 0.75f, true);
+
+    TenantContextManager(int maxOpenWallets, Transport transport, Executor executor) {
+        this.maxOpenWallets = maxOpenWallets;
+        this.transport = transport;
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            this.ownedExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "verity-sdk-tenant-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Registers a tenant from its Context configuration. Its wallet is opened when the tenant is first used.
+     * @param config the Context configuration, as produced by Context.toJson
+     * @return the domainDID of the tenant
+     * @throws UndefinedContextException when the configuration has no domainDID or sdkVerKey
+     */
+    public String register(JSONObject config) throws UndefinedContextException {
+        Tenant tenant = new Tenant(
+                requireField(config, ContextConstants.DOMAIN_DID),
+                requireField(config, ContextConstants.SDK_VER_KEY),
+                new JSONObject(config.toString())
+        );
+        add(tenant);
+        return tenant.domainDID;
+    }
+
+    /**
+     * Registers a tenant from a Context. The manager takes over the Context and closes its wallet when it is
+     * evicted or when the manager is closed.
+     * @param context the Context of the tenant, with an open wallet
+     * @return the domainDID of the tenant
+     * @throws UndefinedContextException when the Context has no domainDID or sdkVerKey
+     */
+    public String register(Context context) throws UndefinedContextException {
+        Tenant tenant = new Tenant(context.domainDID(), context.sdkVerKey(), context.toJson());
+        List<Tenant> evicted = Collections.emptyList();
+        // published together with its open Context: lease takes this monitor before reading tenant.context, so it
+        // never finds the tenant without it and opens the same wallet a second time
+        synchronized (this) {
+            add(tenant);
+            if (!context.walletIsClosed()) {
+                tenant.context = context;
+                openTenants.put(tenant, Boolean.TRUE);
+                evicted = evictLocked();
+            }
+        }
+        closeEvicted(evicted);
+        return tenant.domainDID;
+    }
+
+    private void add(Tenant tenant) {
+        Tenant previous = tenants.putIfAbsent(tenant.domainDID, tenant);
+        if (previous != null) {
+            throw new IllegalArgumentException("Tenant is already registered: " + tenant.domainDID);
+        }
+        tenantsByVerKey.put(tenant.sdkVerKey, tenant);
+    }
+
+    /**
+     * Removes a tenant, closing its wallet when it is open
+     * @param domainDID the domainDID of the tenant
+     * @throws WalletCloseException when failing to close the wallet
+     */
+    public void unregister(String domainDID) throws WalletCloseException {
+        Tenant tenant = tenants.remove(domainDID);
+        if (tenant == null) return;
+        tenantsByVerKey.remove(tenant.sdkVerKey, tenant);
+
+        synchronized (tenant) {
+            Context open;
+            synchronized (this) {
+                open = tenant.context != null ? tenant.context : tenant.pendingClose;
+                tenant.context = null;
+                tenant.pendingClose = null;
+                openTenants.remove(tenant);
+            }
+            if (open != null && !open.walletIsClosed()) {
+                open.closeWallet();
+            }
+        }
+    }
+
+    /**
+     * Runs the function with the Context of the tenant, opening its wallet when needed. The wallet is not closed
+     * by eviction while the function runs.
+     * @param domainDID the domainDID of the tenant
+     * @param fn the work to do with the Context
+     * @param <T> the result type of the function
+     * @return the result of the function
+     * @throws VerityException when the tenant is unknown, its wallet can not be opened or the function fails
+     */
+    public <T> T withContext(String domainDID, ContextFunction<T> fn) throws VerityException {
+        Tenant tenant = tenants.get(domainDID);
+        if (tenant == null) {
+            throw new UndefinedContextException("No tenant registered for domainDID " + domainDID);
+        }
+        return withContext(tenant, fn);
+    }
+
+    private <T> T withContext(Tenant tenant, ContextFunction<T> fn) throws VerityException {
+        Context context = lease(tenant);
+        try {
+            return fn.apply(context);
+        } finally {
+            List<Tenant> evicted;
+            synchronized (this) {
+                tenant.inUse--;
+                evicted = evictLocked();
+            }
+            closeEvicted(evicted);
+        }
+    }
+
+    /**
+     * Packs the message with the Context of the tenant on the manager's executor and sends it with the shared
+     * transport
+     * @param domainDID the domainDID of the tenant
+     * @param message the message to send to Verity
+     * @return a future completed once Verity accepted the message
+     */
+    public CompletableFuture<Void> send(String domainDID, JSONObject message) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return withContext(domainDID, context ->
+                        new PackedMessage(context.verityUrl(), Util.packMessageForVerity(context, message))
+                );
+            } catch (VerityException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(packed -> transport.sendMessageAsync(packed.url, packed.message));
+    }
+
+    /**
+     * Finds the tenant the packed message is addressed to and calls Handlers.handleMessage with its Context
+     * @param handlers the handlers called for the message
+     * @param rawMessage the raw bytes received from Verity
+     * @throws VerityException when no tenant matches a recipient of the message, or when handling fails
+     */
+    public void handleMessage(Handlers handlers, byte[] rawMessage) throws VerityException {
+        Tenant tenant = null;
+        for (String verKey : EnvelopeInspector.recipientVerKeys(rawMessage)) {
+            tenant = tenantsByVerKey.get(verKey);
+            if (tenant != null) break;
+        }
+        if (tenant == null) {
+            throw new UndefinedContextException("No tenant registered for the recipients of the message");
+        }
+
+        withContext(tenant, context -> {
+            handlers.handleMessage(context, rawMessage);
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of registered tenants
+     */
+    public int size() {
+        return tenants.size();
+    }
+
+    /**
+     * @return the number of tenants whose wallet is open
+     */
+    public synchronized int openWallets() {
+        return openTenants.size();
+    }
+
+    /**
+     * Closes the wallets of all tenants and the executor the manager created
+     */
+    @Override
+    public void close() {
+        List<Context> open = new ArrayList<>();
+        synchronized (this) {
+            for (Tenant tenant : openTenants.keySet()) {
+                open.add(tenant.context);
+                tenant.context = null;
+            }
+            for (Tenant tenant : tenants.values()) {
+                if (tenant.pendingClose != null) {
+                    open.add(tenant.pendingClose);
+                    tenant.pendingClose = null;
+                }
+            }
+            openTenants.clear();
+        }
+        closeAll(open);
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private Context lease(Tenant tenant) throws VerityException {
+        Context context;
+        List<Tenant> evicted;
+        // the tenant's monitor serialises opening and closing its wallet, libindy can not open it twice
+        synchronized (tenant) {
+            synchronized (this) {
+                if (tenant.context != null) {
+                    tenant.inUse++;
+                    openTenants.get(tenant); // marks the tenant as most recently used
+                    return tenant.context;
+                }
+            }
+            closePending(tenant);
+
+            context = ContextBuilder.fromJson(tenant.config).build();
+            synchronized (this) {
+                tenant.context = context;
+                tenant.inUse++;
+                openTenants.put(tenant, Boolean.TRUE);
+                evicted = evictLocked();
+            }
+        }
+        // closed outside of the tenant's monitor, as closing takes the monitors of the evicted tenants
+        closeEvicted(evicted);
+        return context;
+    }
+
+    private List<Tenant> evictLocked() {
+        List<Tenant> rtn = new ArrayList<>();
+        Iterator<Tenant> lru = openTenants.keySet().iterator();
+        while (openTenants.size() > maxOpenWallets && lru.hasNext()) {
+            Tenant tenant = lru.next();
+            if (tenant.inUse == 0) {
+                lru.remove();
+                tenant.pendingClose = tenant.context;
+                tenant.context = null;
+                rtn.add(tenant);
+            }
+        }
+        return rtn;
+    }
+
+    private void closeEvicted(List<Tenant> evicted) {
+        for (Tenant tenant : evicted) {
+            synchronized (tenant) {
+                try {
+                    closePending(tenant);
+                } catch (WalletCloseException ignored) {
+                    // the handle is gone either way
+                }
+            }
+        }
+    }
+
+    // called with the tenant's monitor held
+    private void closePending(Tenant tenant) throws WalletCloseException {
+        Context stale;
+        synchronized (this) {
+            stale = tenant.pendingClose;
+            tenant.pendingClose = null;
+        }
+        if (stale != null && !stale.walletIsClosed()) {
+            stale.closeWallet();
+        }
+    }
+
+    private void closeAll(List<Context> contexts) {
+        for (Context context : contexts) {
+            try {
+                if (!context.walletIsClosed()) {
+                    context.closeWallet();
+                }
+            } catch (WalletCloseException ignored) {
+                // the handle is gone either way
+            }
+        }
+    }
+
+    private static String requireField(JSONObject config, String field) throws UndefinedContextException {
+        String rtn = config.optString(field, null);
+        if (rtn == null) {
+            throw new UndefinedContextException(
+                    String.format("Context field is used without definition -- %s", field)
+            );
+        }
+        return rtn;
+    }
+
+    private static class Tenant {
+        final String domainDID;
+        final String sdkVerKey;
+        final JSONObject config;
+        // guarded by the manager
+        Context context;
+        Context pendingClose;
+        int inUse;
+
+        Tenant(String domainDID, String sdkVerKey, JSONObject config) {
+            this.domainDID = domainDID;
+            this.sdkVerKey = sdkVerKey;
+            this.config = config;
+        }
+    }
+
+    private static class PackedMessage {
+        final String url;
+        final byte[] message;
+
+        PackedMessage(String url, byte[] message) {
+            this.url = url;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.transports.Transport;
+import com.evernym.verity.sdk.transports.Transports;
+
+import java.util.concurrent.Executor;
+
+public class TenantContextManagerBuilder {
+    public static final int DEFAULT_MAX_OPEN_WALLETS = 100;
+
+    public static TenantContextManagerBuilder blank() {
+        return new TenantContextManagerBuilder();
+    }
+
+    private int maxOpenWallets = DEFAULT_MAX_OPEN_WALLETS;
+    private Transport transport;
+    private Executor executor;
+
+    private TenantContextManagerBuilder() {}
+
+    /**
+     * @param val how many tenant wallets may be open at once; the least recently used idle ones are closed
+     *            beyond that
+     * @return this builder
+     */
+    public TenantContextManagerBuilder maxOpenWallets(int val) {
+        DbcUtil.require(val > 0, "maxOpenWallets must be positive");
+        maxOpenWallets = val;
+        return this;
+    }
+
+    /**
+     * @param val the transport used to send the messages of every tenant, Transports.asyncTransport() by default
+     * @return this builder
+     */
+    public TenantContextManagerBuilder transport(Transport val) {
+        transport = val;
+        return this;
+    }
+
+    /**
+     * @param val the executor packing outbound messages; by default the manager owns a pool with one thread
+     *            per available core
+     * @return this builder
+     */
+    public TenantContextManagerBuilder executor(Executor val) {
+        executor = val;
+        return this;
+    }
+
+    public TenantContextManager build() {
+        return new TenantContextManager(
+                maxOpenWallets,
+                transport != null ? transport : Transports.asyncTransport(),
+                executor
+        );
+    }
+}
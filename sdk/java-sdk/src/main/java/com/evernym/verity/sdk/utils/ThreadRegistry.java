@@ -0,0 +1,220 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Records the protocol threads this agent takes part in, keyed by thid, so that an inbound message can be tied to
+ * the interaction it belongs to with a single lookup. Instances are created with ThreadRegistryBuilder.
+ *
+ * Outbound messages are recorded when they are packed with a Context built with the registry (see
+ * ContextBuilder.threadRegistry) and inbound messages when they are handled by Handlers tracking the registry
+ * (see Handlers.trackThreads). Each thread keeps its protocol, last message, relationship and timestamps.
+ *
+ * Threads that saw no message for ttlMs are forgotten. When more than maxEntries threads are known, the expired
+ * ones and then the least recently updated ones are dropped until a tenth of the capacity is free again, so the
+ * cost of a sweep is spread over many insertions.
+ *
+ * When built with a file, the registry is loaded from it and written back by save() and close().
+ */
+public class ThreadRegistry implements Closeable {
+    private final int maxEntries;
+    private final long ttlMs;
+    private final File file;
+    private final LongSupplier clock;
+    private final Map<String, ThreadState> threads = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    ThreadRegistry( // Not a public constructor! Allows work with ThreadRegistryBuilder
+            int maxEntries,
+            long ttlMs,
+            File file,
+            LongSupplier clock) throws IOException {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.file = file;
+        this.clock = clock;
+        if (file != null && file.exists()) {
+            load();
+        }
+    }
+
+    /**
+     * Records a message sent on a thread
+     * @param message the message before it is packed
+     */
+    public void recordOutbound(JSONObject message) {
+        record(message, ThreadState.Direction.OUTBOUND);
+    }
+
+    /**
+     * Records a typed message sent on a thread
+     * @param message the message before it is packed
+     */
+    public void recordOutbound(ProtocolMessage message) {
+        record(message.threadId(), message.type(), message.forRelationship(), ThreadState.Direction.OUTBOUND);
+    }
+
+    /**
+     * Records a message received on a thread
+     * @param message the decrypted message
+     */
+    public void recordInbound(JSONObject message) {
+        record(message, ThreadState.Direction.INBOUND);
+    }
+
+    private void record(JSONObject message, ThreadState.Direction direction) {
+        JSONObject thread = message.optJSONObject("~thread");
+        String thid = thread == null ? null : thread.optString("thid", null);
+        if (thid == null) return;
+
+        String relationship = message.optString("~for_relationship", null);
+        if (relationship == null) {
+            relationship = message.optString("relationship", null);
+        }
+        record(thid, message.optString("@type", null), relationship, direction);
+    }
+
+    private void record(String thid, String msgType, String relationship, ThreadState.Direction direction) {
+        if (thid == null) return;
+
+        int nameStart = msgType == null ? -1 : msgType.lastIndexOf('/');
+        String protocol = nameStart > 0 ? msgType.substring(0, nameStart) : null;
+        String msgName = nameStart > 0 ? msgType.substring(nameStart + 1) : msgType;
+
+        long now = clock.getAsLong();
+        String rel = relationship;
+        threads.compute(thid, (k, previous) -> {
+            if (previous == null || expired(previous, now)) {
+                return new ThreadState(thid, protocol, msgName, direction, rel, now, now, 1);
+            }
+            return new ThreadState(
+                    thid,
+                    protocol != null ? protocol : previous.protocol(),
+                    msgName,
+                    direction,
+                    rel != null ? rel : previous.relationship(),
+                    previous.createdAt(),
+                    now,
+                    previous.messages() + 1
+            );
+        });
+
+        if (threads.size() > maxEntries) {
+            sweep();
+        }
+    }
+
+    /**
+     * @param threadId the thid of the thread
+     * @return what is known about the thread, null when it is unknown or expired
+     */
+    public ThreadState get(String threadId) {
+        ThreadState rtn = threads.get(threadId);
+        if (rtn != null && expired(rtn, clock.getAsLong())) {
+            threads.remove(threadId, rtn);
+            return null;
+        }
+        return rtn;
+    }
+
+    /**
+     * Forgets the thread, for example once its protocol completed
+     * @param threadId the thid of the thread
+     */
+    public void remove(String threadId) {
+        threads.remove(threadId);
+    }
+
+    /**
+     * @return the number of known threads, expired ones not yet dropped included
+     */
+    public int size() {
+        return threads.size();
+    }
+
+    /**
+     * Drops the expired threads
+     */
+    public void expire() {
+        long now = clock.getAsLong();
+        threads.values().removeIf(state -> expired(state, now));
+    }
+
+    private boolean expired(ThreadState state, long now) {
+        return now - state.updatedAt() >= ttlMs;
+    }
+
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return; // another thread is sweeping
+        try {
+            expire();
+            int target = maxEntries - Math.max(1, maxEntries / 10);
+            if (threads.size() > target) {
+                List<ThreadState> oldest = new ArrayList<>(threads.values());
+                oldest.sort(Comparator.comparingLong(ThreadState::updatedAt));
+                for (int i = 0; i < oldest.size() && threads.size() > target; i++) {
+                    threads.remove(oldest.get(i).threadId(), oldest.get(i));
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Writes the known threads to the registry's file, replacing it. Does nothing when the registry has no file.
+     * @throws IOException when the file can not be written
+     */
+    public void save() throws IOException {
+        if (file == null) return;
+        expire();
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            for (ThreadState state : threads.values()) {
+                out.write(state.toJson().toString());
+                out.write('\n');
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() throws IOException {
+        long now = clock.getAsLong();
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                ThreadState state = ThreadState.fromJson(new JSONObject(line));
+                if (!expired(state, now)) {
+                    threads.put(state.threadId(), state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the registry when it has a file
+     * @throws IOException when the file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+}
@@ -0,0 +1,56 @@
+package com.evernym.verity.sdk.utils;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ThreadRegistryBuilder {
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final long DEFAULT_TTL_MS = 24 * 60 * 60_000;
+
+    public static ThreadRegistryBuilder blank() {
+        return new ThreadRegistryBuilder();
+    }
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long ttlMs = DEFAULT_TTL_MS;
+    private File file;
+
+    private ThreadRegistryBuilder() {}
+
+    /**
+     * @param val how many threads are kept at most; the least recently updated ones are dropped beyond that
+     * @return this builder
+     */
+    public ThreadRegistryBuilder maxEntries(int val) {
+        DbcUtil.require(val > 0, "maxEntries must be positive");
+        maxEntries = val;
+        return this;
+    }
+
+    /**
+     * @param val how long a thread is kept after its last message
+     * @return this builder
+     */
+    public ThreadRegistryBuilder ttlMs(long val) {
+        DbcUtil.require(val > 0, "ttlMs must be positive");
+        ttlMs = val;
+        return this;
+    }
+
+    /**
+     * @param val the file the registry is loaded from and saved to, none by default
+     * @return this builder
+     */
+    public ThreadRegistryBuilder file(File val) {
+        file = val;
+        return this;
+    }
+
+    /**
+     * @return the registry, holding the unexpired threads of its file
+     * @throws IOException when the file exists but can not be read
+     */
+    public ThreadRegistry build() throws IOException {
+        return new ThreadRegistry(maxEntries, ttlMs, file, System::currentTimeMillis);
+    }
+}
@@ -0,0 +1,108 @@
+package com.evernym.verity.sdk.utils;
+
+import org.json.JSONObject;
+
+/**
+ * What the ThreadRegistry knows about a protocol thread. Instances are immutable snapshots; the registry replaces
+ * them as messages of the thread are sent and received.
+ */
+public final class ThreadState implements AsJsonObject {
+    public enum Direction { OUTBOUND, INBOUND }
+
+    private final String threadId;
+    private final String protocol;
+    private final String lastMessage;
+    private final Direction lastDirection;
+    private final String relationship;
+    private final long createdAt;
+    private final long updatedAt;
+    private final int messages;
+
+    ThreadState(String threadId,
+                String protocol,
+                String lastMessage,
+                Direction lastDirection,
+                String relationship,
+                long createdAt,
+                long updatedAt,
+                int messages) {
+        this.threadId = threadId;
+        this.protocol = protocol;
+        this.lastMessage = lastMessage;
+        this.lastDirection = lastDirection;
+        this.relationship = relationship;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.messages = messages;
+    }
+
+    static ThreadState fromJson(JSONObject json) {
+        return new ThreadState(
+                json.getString("thid"),
+                json.optString("protocol", null),
+                json.optString("lastMessage", null),
+                Direction.valueOf(json.getString("lastDirection")),
+                json.optString("relationship", null),
+                json.getLong("createdAt"),
+                json.getLong("updatedAt"),
+                json.getInt("messages")
+        );
+    }
+
+    public String threadId() {
+        return threadId;
+    }
+
+    /**
+     * @return the message family of the thread (ie. "did:sov:123456789abcdefghi1234;spec/issue-credential/1.0")
+     */
+    public String protocol() {
+        return protocol;
+    }
+
+    /**
+     * @return the name of the last message sent or received on the thread (ie. "sent")
+     */
+    public String lastMessage() {
+        return lastMessage;
+    }
+
+    public Direction lastDirection() {
+        return lastDirection;
+    }
+
+    /**
+     * @return the relationship DID the thread belongs to, null when no message said
+     */
+    public String relationship() {
+        return relationship;
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    public long updatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * @return the number of messages sent and received on the thread
+     */
+    public int messages() {
+        return messages;
+    }
+
+    @Override
+    public JSONObject toJson() {
+        return new JSONObject()
+                .put("thid", threadId)
+                .putOpt("protocol", protocol)
+                .putOpt("lastMessage", lastMessage)
+                .put("lastDirection", lastDirection.name())
+                .putOpt("relationship", relationship)
+                .put("createdAt", createdAt)
+                .put("updatedAt", updatedAt)
+                .put("messages", messages);
+    }
+}
@@ -1,15 +1,37 @@
 package com.evernym.verity.sdk.utils;
 
 import com.evernym.verity.sdk.exceptions.UndefinedContextException;
+import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.exceptions.WalletException;
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import com.evernym.verity.sdk.metrics.Metrics;
+import com.evernym.verity.sdk.metrics.Operation;
 import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.protocols.ProtocolMessage;
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.wallet.WalletPool;
 import org.hyperledger.indy.sdk.IndyException;
 import org.hyperledger.indy.sdk.crypto.Crypto;
 import org.hyperledger.indy.sdk.wallet.Wallet;
-import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Static helper functions used for packaging and unpackaging messages
@@ -18,6 +40,8 @@ public class Util {
     public static final String EVERNYM_MSG_QUALIFIER = "did:sov:123456789abcdefghi1234";
     public static final String COMMUNITY_MSG_QUALIFIER = "did:sov:BzCbsNYhMrjHiqZDTUASHg";
 
+    private static final String FWD_MSG_TYPE = EVERNYM_MSG_QUALIFIER + ";spec/routing/1.0/FWD";
+
     public static byte[] packMessageForVerity(Wallet walletHandle,
                                               JSONObject message,
                                               String pairwiseRemoteDID,
@@ -25,64 +49,419 @@ public class Util {
                                               String pairwiseLocalVerkey,
                                               String publicVerkey
     ) throws WalletException {
+        return pack(
+                walletHandle,
+                message,
+                receiverKeys(pairwiseRemoteVerkey),
+                pairwiseLocalVerkey,
+                forwardPrefix(pairwiseRemoteDID),
+                receiverKeys(publicVerkey)
+        );
+    }
+
+    /**
+     * Encrypts a message for the Evernym verity. This function should not be called directly because it is called by the individual protocol classes.
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message being sent
+     * @return Encrypted message ready to be sent to the verity
+     * @throws WalletException when there are issues with encryption and decryption
+     * @throws UndefinedContextException when the context don't have enough information for this operation
+     */
+    public static byte[] packMessageForVerity(Context context, JSONObject message) throws UndefinedContextException, WalletException {
+        context.recordOutbound(message);
+        String pairwiseReceiver = context.pairwiseReceiverKeys();
+        String sdkVerKey = context.sdkVerKey();
+        byte[] forwardPrefix = context.forwardPrefix();
+        String verityReceiver = context.verityReceiverKeys();
+        try (WalletPool.Lease handle = context.cryptoWalletHandle()) {
+            return pack(handle.handle(), message, pairwiseReceiver, sdkVerKey, forwardPrefix, verityReceiver);
+        }
+    }
+
+    /**
+     * Encrypts a typed message for the Evernym verity. The message is written straight to UTF-8 bytes, without
+     * building a JSONObject.
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message being sent
+     * @return Encrypted message ready to be sent to the verity
+     * @throws WalletException when there are issues with encryption and decryption
+     * @throws UndefinedContextException when the context don't have enough information for this operation
+     */
+    public static byte[] packMessageForVerity(Context context, ProtocolMessage message) throws UndefinedContextException, WalletException {
+        return packMessageForVerity(context, message, null);
+    }
+
+    /**
+     * Same as packMessageForVerity(Context, ProtocolMessage), adding the ~trace and ~timing decorators of the
+     * trace context to the message (see Tracing)
+     * @param trace the trace context of the span sending the message, null for none
+     */
+    public static byte[] packMessageForVerity(Context context, ProtocolMessage message, TraceContext trace)
+            throws UndefinedContextException, WalletException {
+        context.recordOutbound(message);
+        String pairwiseReceiver = context.pairwiseReceiverKeys();
+        String sdkVerKey = context.sdkVerKey();
+        byte[] forwardPrefix = context.forwardPrefix();
+        String verityReceiver = context.verityReceiverKeys();
+        try (WalletPool.Lease handle = context.cryptoWalletHandle()) {
+            return pack(
+                    handle.handle(),
+                    () -> serialize(message, trace),
+                    message.type(),
+                    message.threadId(),
+                    pairwiseReceiver,
+                    sdkVerKey,
+                    forwardPrefix,
+                    verityReceiver
+            );
+        }
+    }
+
+    private static byte[] pack(Wallet walletHandle,
+                               JSONObject message,
+                               String pairwiseReceiver,
+                               String pairwiseLocalVerkey,
+                               byte[] forwardPrefix,
+                               String verityReceiver) throws WalletException {
+        return pack(
+                walletHandle,
+                () -> message.toString().getBytes(StandardCharsets.UTF_8),
+                message.optString("@type", null),
+                threadId(message),
+                pairwiseReceiver,
+                pairwiseLocalVerkey,
+                forwardPrefix,
+                verityReceiver
+        );
+    }
+
+    private static byte[] pack(Wallet walletHandle,
+                               Supplier<byte[]> body,
+                               String msgType,
+                               String threadId,
+                               String pairwiseReceiver,
+                               String pairwiseLocalVerkey,
+                               byte[] forwardPrefix,
+                               String verityReceiver) throws WalletException {
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.PACK);
+        Operation step = Operation.BUILD;
+        long start = System.nanoTime();
         try {
-            String pairwiseReceiver = new JSONArray(new String[]{pairwiseRemoteVerkey}).toString();
-            String verityReceiver = new JSONArray(new String[]{publicVerkey}).toString();
+            byte[] json = body.get();
+            start = recordStep(step, msgType, start);
 
+            step = Operation.PACK;
             byte[] agentMessage = Crypto.packMessage(
                     walletHandle,
                     pairwiseReceiver,
                     pairwiseLocalVerkey,
-                    message.toString().getBytes()
+                    json
             ).get();
+            start = recordStep(step, msgType, start);
 
-            String innerFwd = prepareForwardMessage(
-                    pairwiseRemoteDID,
-                    agentMessage
-            );
-
-            return Crypto.packMessage(
+            step = Operation.FORWARD;
+            byte[] rtn = Crypto.packMessage(
                     walletHandle,
                     verityReceiver,
                     null,
-                    innerFwd.getBytes()
+                    prepareForwardMessage(forwardPrefix, agentMessage)
             ).get();
+            recordStep(step, msgType, start);
+            if (event.isEnabled()) event.messageType(msgType).threadId(threadId).payloadSize(rtn.length);
+            return rtn;
         } catch (IndyException | InterruptedException | ExecutionException e) {
+            Metrics.record(step, msgType, start, false);
             throw new WalletException("Unable to pack messages", e);
+        } finally {
+            event.commit();
         }
     }
 
+    private static byte[] serialize(ProtocolMessage message, TraceContext trace) {
+        JsonWriter out = JsonWriter.local();
+        message.writeTo(out, trace);
+        return out.toByteArray();
+    }
+
+    private static String threadId(JSONObject message) {
+        JSONObject thread = message.optJSONObject("~thread");
+        return thread == null ? null : thread.optString("thid", null);
+    }
+
+    // records a successful step started at start, returning the start of the next step
+    private static long recordStep(Operation step, String msgType, long start) {
+        long now = System.nanoTime();
+        Metrics.recorder().record(step, msgType, now - start, true);
+        return now;
+    }
+
     /**
-     * Encrypts a message for the Evernym verity. This function should not be called directly because it is called by the individual protocol classes.
+     * Asynchronous variant of packMessageForVerity. The inner and outer libindy pack calls are chained on the
+     * futures returned by libindy, so the calling thread is never blocked.
      * @param context an instance of Context configured with the results of the provision_sdk.py script
      * @param message the message being sent
-     * @return Encrypted message ready to be sent to the verity
-     * @throws WalletException when there are issues with encryption and decryption
-     * @throws UndefinedContextException when the context don't have enough information for this operation
+     * @return a future completed with the encrypted message, or completed exceptionally with a VerityException, or
+     * with the JSONException when the message can not be serialised
      */
-    public static byte[] packMessageForVerity(Context context, JSONObject message) throws UndefinedContextException, WalletException {
-        Wallet handle = context.walletHandle();
-        return packMessageForVerity(
-                handle,
+    public static CompletableFuture<byte[]> packMessageForVerityAsync(Context context, JSONObject message) {
+        try {
+            context.recordOutbound(message);
+            String pairwiseReceiver = context.pairwiseReceiverKeys();
+            String sdkVerKey = context.sdkVerKey();
+            byte[] forwardPrefix = context.forwardPrefix();
+            String verityReceiver = context.verityReceiverKeys();
+            WalletPool.Lease handle = context.cryptoWalletHandle();
+            try {
+                return releasing(
+                        packAsync(handle.handle(), message, pairwiseReceiver, sdkVerKey, forwardPrefix, verityReceiver),
+                        handle
+                );
+            } catch (RuntimeException e) {
+                handle.close();
+                throw e;
+            }
+        } catch (VerityException | RuntimeException e) {
+            return failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of packMessageForVerity(Context, ProtocolMessage, TraceContext)
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message being sent
+     * @param trace the trace context of the span sending the message, null for none
+     * @return a future completed with the encrypted message, or completed exceptionally with a VerityException, or
+     * with the JSONException when the message can not be serialised
+     */
+    public static CompletableFuture<byte[]> packMessageForVerityAsync(Context context,
+                                                                     ProtocolMessage message,
+                                                                     TraceContext trace) {
+        try {
+            context.recordOutbound(message);
+            String pairwiseReceiver = context.pairwiseReceiverKeys();
+            String sdkVerKey = context.sdkVerKey();
+            byte[] forwardPrefix = context.forwardPrefix();
+            String verityReceiver = context.verityReceiverKeys();
+            WalletPool.Lease handle = context.cryptoWalletHandle();
+            try {
+                return releasing(
+                        packAsync(
+                                handle.handle(),
+                                () -> serialize(message, trace),
+                                message.type(),
+                                message.threadId(),
+                                pairwiseReceiver,
+                                sdkVerKey,
+                                forwardPrefix,
+                                verityReceiver
+                        ),
+                        handle
+                );
+            } catch (RuntimeException e) {
+                handle.close();
+                throw e;
+            }
+        } catch (VerityException | RuntimeException e) {
+            return failedFuture(e);
+        }
+    }
+
+    public static CompletableFuture<byte[]> packMessageForVerityAsync(Wallet walletHandle,
+                                                                     JSONObject message,
+                                                                     String pairwiseRemoteDID,
+                                                                     String pairwiseRemoteVerkey,
+                                                                     String pairwiseLocalVerkey,
+                                                                     String publicVerkey) {
+        return packAsync(
+                walletHandle,
                 message,
-                context.domainDID(),
-                context.verityAgentVerKey(),
-                context.sdkVerKey(),
-                context.verityPublicVerKey()
+                receiverKeys(pairwiseRemoteVerkey),
+                pairwiseLocalVerkey,
+                forwardPrefix(pairwiseRemoteDID),
+                receiverKeys(publicVerkey)
         );
     }
 
+    private static CompletableFuture<byte[]> packAsync(Wallet walletHandle,
+                                                       JSONObject message,
+                                                       String pairwiseReceiver,
+                                                       String pairwiseLocalVerkey,
+                                                       byte[] forwardPrefix,
+                                                       String verityReceiver) {
+        return packAsync(
+                walletHandle,
+                // toString(0) throws the JSONException that toString() swallows into a null
+                () -> message.toString(0).getBytes(StandardCharsets.UTF_8),
+                message.optString("@type", null),
+                threadId(message),
+                pairwiseReceiver,
+                pairwiseLocalVerkey,
+                forwardPrefix,
+                verityReceiver
+        );
+    }
+
+    private static CompletableFuture<byte[]> packAsync(Wallet walletHandle,
+                                                       Supplier<byte[]> body,
+                                                       String msgType,
+                                                       String threadId,
+                                                       String pairwiseReceiver,
+                                                       String pairwiseLocalVerkey,
+                                                       byte[] forwardPrefix,
+                                                       String verityReceiver) {
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.PACK);
+        long start = System.nanoTime();
+        byte[] json;
+        try {
+            json = body.get();
+        } catch (RuntimeException e) {
+            // a message that can not be serialised, the caller releases the wallet on the failed future
+            Metrics.record(Operation.BUILD, msgType, start, false);
+            event.commit();
+            return failedFuture(e);
+        }
+        CompletableFuture<byte[]> rtn = new CompletableFuture<>();
+        // the event spans both libindy packs, it is committed by the thread completing the future
+        rtn.whenComplete((packed, ex) -> {
+            if (packed != null && event.isEnabled()) {
+                event.messageType(msgType).threadId(threadId).payloadSize(packed.length);
+            }
+            event.commit();
+        });
+        long packStart = recordStep(Operation.BUILD, msgType, start);
+        // the start of the forward pack, written by the libindy callback thread before the forward pack is called
+        long[] forwardStart = {0};
+        try {
+            Crypto.packMessage(
+                    walletHandle,
+                    pairwiseReceiver,
+                    pairwiseLocalVerkey,
+                    json
+            ).thenCompose(agentMessage -> {
+                forwardStart[0] = recordStep(Operation.PACK, msgType, packStart);
+                try {
+                    return Crypto.packMessage(
+                            walletHandle,
+                            verityReceiver,
+                            null,
+                            prepareForwardMessage(forwardPrefix, agentMessage)
+                    );
+                } catch (IndyException e) {
+                    throw new CompletionException(e);
+                }
+            }).whenComplete((packed, ex) -> {
+                if (ex != null) {
+                    if (forwardStart[0] == 0) {
+                        Metrics.record(Operation.PACK, msgType, packStart, false);
+                    } else {
+                        Metrics.record(Operation.FORWARD, msgType, forwardStart[0], false);
+                    }
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    rtn.completeExceptionally(new WalletException("Unable to pack messages", cause));
+                } else {
+                    recordStep(Operation.FORWARD, msgType, forwardStart[0]);
+                    rtn.complete(packed);
+                }
+            });
+        } catch (IndyException e) {
+            Metrics.record(Operation.PACK, msgType, packStart, false);
+            rtn.completeExceptionally(new WalletException("Unable to pack messages", e));
+        }
+        return rtn;
+    }
+
+    /**
+     * Encrypts a batch of messages for the Evernym verity. The libindy pack calls are spread across the shared
+     * pack executor (one thread per available core), so a large batch is packed in parallel.
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param messages the messages being sent
+     * @return one future per message, in the same order as the messages; each completes with the encrypted
+     * message or exceptionally with a VerityException
+     */
+    public static List<CompletableFuture<byte[]>> packMessagesForVerity(Context context, List<JSONObject> messages) {
+        return packMessagesForVerity(context, messages, packExecutor());
+    }
+
     /**
-     * Builds a forward message
+     * Encrypts a batch of messages for the Evernym verity using the given executor for the libindy pack calls
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param messages the messages being sent
+     * @param executor the executor running the pack calls; its size bounds the number of concurrent packs
+     * @return one future per message, in the same order as the messages; each completes with the encrypted
+     * message or exceptionally with a VerityException
+     */
+    public static List<CompletableFuture<byte[]>> packMessagesForVerity(Context context,
+                                                                      List<JSONObject> messages,
+                                                                      Executor executor) {
+        List<CompletableFuture<byte[]>> rtn = new ArrayList<>(messages.size());
+        for (JSONObject message : messages) {
+            rtn.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return packMessageForVerity(context, message);
+                } catch (VerityException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+        return rtn;
+    }
+
+    private static ExecutorService packExecutor;
+
+    private static synchronized Executor packExecutor() {
+        if (packExecutor == null) {
+            AtomicInteger count = new AtomicInteger();
+            packExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "verity-sdk-pack-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return packExecutor;
+    }
+
+    // closes the lease once the future completes, returning the future itself so its exceptions are not wrapped
+    private static <T> CompletableFuture<T> releasing(CompletableFuture<T> future, WalletPool.Lease handle) {
+        future.whenComplete((ignored, ex) -> handle.close());
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+        CompletableFuture<T> rtn = new CompletableFuture<>();
+        rtn.completeExceptionally(t);
+        return rtn;
+    }
+
+    /**
+     * Builds the JSON array of recipient keys expected by libindy's pack
+     * @param verkey the single recipient verkey
+     */
+    static String receiverKeys(String verkey) {
+        return "[" + JSONObject.quote(verkey) + "]";
+    }
+
+    /**
+     * Builds the start of a forward message, up to and including the key of the embedded message
      * @param DID the DID the message is being forwarded to
+     */
+    static byte[] forwardPrefix(String DID) {
+        return ("{\"@type\":" + JSONObject.quote(FWD_MSG_TYPE) +
+                ",\"@fwd\":" + JSONObject.quote(DID) +
+                ",\"@msg\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a forward message by splicing the packed message (already a JSON object) into the prefix, rather
+     * than parsing and re-serialising it
+     * @param forwardPrefix the bytes returned by forwardPrefix for the DID the message is being forwarded to
      * @param message the raw bytes of the message being forwarded
      */
-    private static String prepareForwardMessage(String DID, byte[] message) {
-        JSONObject fwdMessage = new JSONObject();
-        fwdMessage.put("@type", "did:sov:123456789abcdefghi1234;spec/routing/1.0/FWD");
-        fwdMessage.put("@fwd", DID);
-        fwdMessage.put("@msg", new JSONObject(new String(message)));
-        return fwdMessage.toString();
+    static byte[] prepareForwardMessage(byte[] forwardPrefix, byte[] message) {
+        byte[] rtn = new byte[forwardPrefix.length + message.length + 1];
+        System.arraycopy(forwardPrefix, 0, rtn, 0, forwardPrefix.length);
+        System.arraycopy(message, 0, rtn, forwardPrefix.length, message.length);
+        rtn[rtn.length - 1] = '}';
+        return rtn;
     }
 
     /**
@@ -93,13 +472,46 @@ public class Util {
      * @throws WalletException when there are issues with encryption and decryption
      */
     public static JSONObject unpackMessage(Context context, byte[] message) throws WalletException {
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.UNPACK);
+        long start = System.nanoTime();
         try {
-            byte[] jwe = Crypto.unpackMessage(context.walletHandle(), message).get();
-            return new JSONObject(new JSONObject(new String(jwe)).getString("message"));
+            JSONObject rtn = new JSONObject(decrypt(context, message));
+            Metrics.record(Operation.UNPACK, rtn.optString("@type", null), start, true);
+            if (event.isEnabled()) event.message(rtn);
+            return rtn;
         }
         catch (IndyException | InterruptedException | ExecutionException e) {
+            Metrics.record(Operation.UNPACK, null, start, false);
             throw new WalletException("Unable to unpack message", e);
         }
+        finally {
+            if (event.isEnabled()) event.payloadSize(message.length);
+            event.commit();
+        }
+    }
+
+    /**
+     * Unpacks a message received from the Evernym verity. The remaining bytes of the buffer are used; a heap buffer
+     * covering a whole array is passed to libindy without copying.
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message received from the Evernym verity
+     * @return an unencrypted String message
+     * @throws WalletException when there are issues with encryption and decryption
+     */
+    public static JSONObject unpackMessage(Context context, ByteBuffer message) throws WalletException {
+        return unpackMessage(context, toBytes(message));
+    }
+
+    /**
+     * Unpacks a message received from the Evernym verity, reading it to the end of the stream
+     * @param context an instance of Context configured with the results of the provision_sdk.py script
+     * @param message the message received from the Evernym verity
+     * @return an unencrypted String message
+     * @throws WalletException when there are issues with encryption and decryption
+     * @throws IOException when the stream can not be read
+     */
+    public static JSONObject unpackMessage(Context context, InputStream message) throws WalletException, IOException {
+        return unpackMessage(context, toBytes(message));
     }
 
     /**
@@ -110,9 +522,156 @@ public class Util {
      * @throws WalletException when there are issues with encryption and decryption
      */
     public static JSONObject unpackForwardMessage(Context context, byte[] message) throws WalletException {
-        JSONObject unpackedOnceMessage = unpackMessage(context, message);
-        byte[] unpackedOnceMessageMessage = unpackedOnceMessage.getJSONObject("@msg").toString().getBytes();
-        return unpackMessage(context, unpackedOnceMessageMessage);
+        long start = System.nanoTime();
+        String forward;
+        try {
+            forward = decrypt(context, message);
+            Metrics.record(Operation.UNPACK, FWD_MSG_TYPE, start, true);
+        }
+        catch (IndyException | InterruptedException | ExecutionException e) {
+            Metrics.record(Operation.UNPACK, null, start, false);
+            throw new WalletException("Unable to unpack message", e);
+        }
+        // the packed inner message is passed on as the text it was sent as, not parsed and written again
+        return unpackMessage(context, rawField(forward, "@msg").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // unpacks the message with libindy and returns the decrypted text
+    private static String decrypt(Context context, byte[] message)
+            throws WalletException, IndyException, InterruptedException, ExecutionException {
+        try (WalletPool.Lease handle = context.cryptoWalletHandle()) {
+            return unpackedPayload(Crypto.unpackMessage(handle.handle(), message).get());
+        }
+    }
+
+    /**
+     * Finds the text of a field of a JSON object without parsing the object, like unpackedPayload. The key is
+     * compared as written, so it must not need escaping.
+     * @param json the JSON object text
+     * @param key the name of the field
+     * @return the value of the field exactly as it is written in json
+     */
+    static String rawField(String json, String key) {
+        int i = skipWhitespace(json, 0);
+        if (i == json.length() || json.charAt(i) != '{') {
+            throw new JSONException("A JSONObject text must begin with '{'");
+        }
+        while (true) {
+            i = skipWhitespace(json, i + 1);
+            if (i == json.length() || json.charAt(i) != '"') {
+                throw new JSONException("Message has no '" + key + "' field");
+            }
+            int keyEnd = endOfString(json, i);
+            boolean found = json.regionMatches(i + 1, key, 0, key.length()) && keyEnd == i + 1 + key.length();
+            i = skipWhitespace(json, keyEnd + 1);
+            if (i == json.length() || json.charAt(i) != ':') {
+                throw new JSONException("Expected a ':' after a key");
+            }
+            int valueStart = skipWhitespace(json, i + 1);
+            int valueEnd = endOfValue(json, valueStart);
+            if (found) {
+                return json.substring(valueStart, valueEnd);
+            }
+            i = skipWhitespace(json, valueEnd);
+            if (i == json.length() || json.charAt(i) != ',') {
+                throw new JSONException("Message has no '" + key + "' field");
+            }
+        }
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+
+    // the index of the quote closing the string starting at start
+    private static int endOfString(String json, int start) {
+        for (int i = start + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        throw new JSONException("Unterminated string");
+    }
+
+    // the index following the value starting at start
+    private static int endOfValue(String json, int start) {
+        if (start == json.length()) throw new JSONException("Missing value");
+        char first = json.charAt(start);
+        if (first == '"') return endOfString(json, start) + 1;
+        if (first != '{' && first != '[') {
+            int i = start;
+            while (i < json.length() && ",}] \t\r\n".indexOf(json.charAt(i)) < 0) i++;
+            return i;
+        }
+        int depth = 0;
+        for (int i = start; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                i = endOfString(json, i);
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        throw new JSONException("Unterminated value");
+    }
+
+    /**
+     * Reads the "message" field of the JSON returned by libindy's unpack, without building a JSONObject for
+     * the envelope (which also holds the sender and recipient keys)
+     * @param unpacked the UTF-8 JSON returned by Crypto.unpackMessage
+     * @return the decrypted message text
+     */
+    static String unpackedPayload(byte[] unpacked) {
+        JSONTokener tokener = new JSONTokener(new String(unpacked, StandardCharsets.UTF_8));
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("A JSONObject text must begin with '{'");
+        }
+        while (true) {
+            char c = tokener.nextClean();
+            if (c == '}' || c == 0) {
+                throw tokener.syntaxError("Unpacked message has no 'message' field");
+            }
+            tokener.back();
+            String key = tokener.nextValue().toString();
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a key");
+            }
+            Object value = tokener.nextValue();
+            if ("message".equals(key)) {
+                return value.toString();
+            }
+            if (tokener.nextClean() != ',') {
+                throw tokener.syntaxError("Unpacked message has no 'message' field");
+            }
+        }
+    }
+
+    static byte[] toBytes(ByteBuffer buffer) {
+        if (buffer.hasArray()
+                && buffer.arrayOffset() == 0
+                && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] rtn = new byte[buffer.remaining()];
+        buffer.duplicate().get(rtn);
+        return rtn;
+    }
+
+    static byte[] toBytes(InputStream stream) throws IOException {
+        ByteArrayOutputStream rtn = new ByteArrayOutputStream(Math.max(stream.available(), 4096));
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = stream.read(chunk)) != -1) {
+            rtn.write(chunk, 0, read);
+        }
+        return rtn.toByteArray();
     }
 
     // FIXME move to MessageFamily interface
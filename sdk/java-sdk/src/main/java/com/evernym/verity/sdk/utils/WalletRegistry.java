@@ -0,0 +1,189 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.exceptions.WalletCloseException;
+import com.evernym.verity.sdk.exceptions.WalletOpenException;
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import com.evernym.verity.sdk.wallet.WalletConfig;
+import org.hyperledger.indy.sdk.IndyException;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps one open wallet handle per wallet (identified by WalletConfig.config()) and counts the Contexts using it
+ *
+ * Contexts built with a registry (see ContextBuilder.walletRegistry) take their handle from it instead of opening
+ * the wallet, so building a Context for an already open wallet is a map lookup. Contexts derived with
+ * toContextBuilder take a reference of their own. The handle is closed when the last Context using it closes its
+ * wallet.
+ */
+public class WalletRegistry {
+    private static WalletRegistry shared;
+
+    /**
+     * @return the registry shared by the whole process
+     */
+    public static synchronized WalletRegistry shared() {
+        if (shared == null) {
+            shared = new WalletRegistry();
+        }
+        return shared;
+    }
+
+    // guarded by this; opening and closing a wallet is done holding only the monitor of its entry
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Returns the open handle for the wallet, opening it when no Context uses it yet. Opening a wallet does not
+     * hold up the Contexts of other wallets.
+     * @param config the configuration of the wallet
+     * @return the wallet handle
+     * @throws WalletOpenException when the wallet does not exist or Indy is unable to open it
+     */
+    public Wallet acquire(WalletConfig config) throws WalletOpenException {
+        if (config == null) {
+            throw new WalletOpenException("Unable to open wallet without wallet configuration.");
+        }
+
+        String key = config.config();
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                entry = entries.computeIfAbsent(key, k -> new Entry());
+                entry.references++;
+            }
+            synchronized (entry) {
+                if (entry.removed) continue; // closed by closeAll while waiting, the next entry opens it again
+                if (entry.handle == null) {
+                    FlightEvent event = FlightEvent.begin(FlightEvent.Kind.OPEN_WALLET);
+                    try {
+                        entry.handle = Wallet.openWallet(config.config(), config.credential()).get();
+                    }
+                    catch (IndyException | ExecutionException | InterruptedException e) {
+                        synchronized (this) {
+                            entry.references--;
+                            if (entry.references == 0) {
+                                entry.removed = true;
+                                entries.remove(key, entry);
+                            }
+                        }
+                        throw new WalletOpenException(e);
+                    }
+                    finally {
+                        event.commit();
+                    }
+                }
+                return entry.handle;
+            }
+        }
+    }
+
+    /**
+     * Gives back a reference taken with acquire, closing the handle when it was the last one
+     * @param config the configuration of the wallet
+     * @throws WalletCloseException when failing to close the wallet
+     */
+    public void release(WalletConfig config) throws WalletCloseException {
+        String key = config.config();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.references == 0) {
+                return;
+            }
+            entry.references--;
+            if (entry.references > 0) {
+                return;
+            }
+        }
+
+        synchronized (entry) {
+            synchronized (this) {
+                // taken again while waiting for the entry; acquire waits for this monitor before using the handle
+                if (entry.references > 0 || entry.removed) return;
+            }
+            Wallet handle = entry.handle;
+            entry.handle = null;
+            try {
+                if (handle != null) {
+                    close(handle);
+                }
+            } finally {
+                synchronized (this) {
+                    // an acquire waiting for the entry opens the wallet again
+                    if (entry.references == 0) {
+                        entry.removed = true;
+                        entries.remove(key, entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param config the configuration of the wallet
+     * @return the number of Contexts using the wallet's handle, 0 when it is not open
+     */
+    public synchronized int references(WalletConfig config) {
+        Entry entry = entries.get(config.config());
+        return entry == null ? 0 : entry.references;
+    }
+
+    /**
+     * @return the number of open wallet handles
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Closes every handle, whatever the number of references. Contexts still using them can no longer be used.
+     * @throws WalletCloseException when failing to close a wallet; the other wallets are closed anyway
+     */
+    public void closeAll() throws WalletCloseException {
+        List<Entry> open;
+        synchronized (this) {
+            open = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+
+        WalletCloseException failure = null;
+        for (Entry entry : open) {
+            synchronized (entry) {
+                entry.removed = true;
+                try {
+                    if (entry.handle != null) {
+                        close(entry.handle);
+                    }
+                } catch (WalletCloseException e) {
+                    failure = e;
+                } finally {
+                    entry.handle = null;
+                }
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private static void close(Wallet handle) throws WalletCloseException {
+        try {
+            handle.closeWallet().get();
+        }
+        catch (IndyException | ExecutionException | InterruptedException e) {
+            throw new WalletCloseException(e);
+        }
+    }
+
+    private static class Entry {
+        // guarded by the entry
+        Wallet handle;
+        // guarded by the registry
+        int references;
+        // guarded by the entry, set once the entry left the map
+        boolean removed;
+    }
+}
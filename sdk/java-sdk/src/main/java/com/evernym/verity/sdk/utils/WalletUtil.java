@@ -31,6 +31,35 @@ public class WalletUtil {
         tryToCreateWallet(config.config(), config.credential());
     }
 
+    /**
+     * Generates a random key for a wallet using the RAW key derivation method
+     * @return a base58 encoded 32 byte key
+     * @throws WalletException when libindy fails to generate the key
+     */
+    public static String generateRawKey() throws WalletException {
+        return generateRawKey(null);
+    }
+
+    /**
+     * Generates the key for a wallet using the RAW key derivation method from a seed, so the same seed always
+     * gives the same key
+     * @param seed a seed of up to 32 characters, or null for a random key
+     * @return a base58 encoded 32 byte key
+     * @throws WalletException when libindy fails to generate the key
+     */
+    public static String generateRawKey(String seed) throws WalletException {
+        JSONObject config = new JSONObject();
+        if (seed != null) {
+            config.put("seed", seed);
+        }
+        try {
+            return Wallet.generateWalletKey(config.toString()).get();
+        }
+        catch (IndyException | InterruptedException | ExecutionException e) {
+            throw new WalletException("Unable to generate wallet key", e);
+        }
+    }
+
     private static void tryToCreateWallet(String walletConfig, String walletCredentials) throws WalletException {
         try {
             Wallet.createWallet(walletConfig, walletCredentials).get();
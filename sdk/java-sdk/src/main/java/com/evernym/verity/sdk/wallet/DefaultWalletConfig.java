@@ -11,20 +11,28 @@ public class DefaultWalletConfig implements WalletConfig {
         return new DefaultWalletConfig(id, key);
     }
 
+    public static DefaultWalletConfig build(String id, String key, String path, KeyDerivationMethod keyDerivationMethod) {
+        return new DefaultWalletConfig(id, key, path, keyDerivationMethod);
+    }
+
     public final String id;
     public final String key;
     public final String path;
+    public final KeyDerivationMethod keyDerivationMethod;
 
     private DefaultWalletConfig(String id, String key) {
-        this.id = id;
-        this.key = key;
-        this.path = null;
+        this(id, key, null);
     }
 
     private DefaultWalletConfig(String id, String key, String path) {
+        this(id, key, path, null);
+    }
+
+    private DefaultWalletConfig(String id, String key, String path, KeyDerivationMethod keyDerivationMethod) {
         this.id = id;
         this.key = key;
         this.path = path;
+        this.keyDerivationMethod = keyDerivationMethod;
     }
 
     @Override
@@ -41,7 +49,11 @@ public class DefaultWalletConfig implements WalletConfig {
 
     @Override
     public String credential() {
-        return new JSONObject().put("key", this.key).toString();
+        JSONObject rtn = new JSONObject().put("key", this.key);
+        if (keyDerivationMethod != null) {
+            rtn.put("key_derivation_method", keyDerivationMethod.name());
+        }
+        return rtn.toString();
     }
 
     @Override
@@ -49,5 +61,6 @@ public class DefaultWalletConfig implements WalletConfig {
         if(id != null) json.put("walletName", id);
         if(key != null) json.put("walletKey", key);
         if(path != null) json.put("walletPath", path);
+        if(keyDerivationMethod != null) json.put("walletKeyDerivationMethod", keyDerivationMethod.name());
     }
 }
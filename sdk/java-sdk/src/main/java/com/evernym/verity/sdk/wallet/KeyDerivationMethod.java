@@ -0,0 +1,28 @@
+package com.evernym.verity.sdk.wallet;
+
+/**
+ * How libindy turns the wallet key into the key that encrypts the wallet
+ */
+public enum KeyDerivationMethod {
+    /**
+     * Argon2i with moderate cost, libindy's default. Slow by design (hundreds of milliseconds per open).
+     */
+    ARGON2I_MOD,
+    /**
+     * Argon2i with interactive cost. Several times faster than ARGON2I_MOD, weaker against brute force.
+     */
+    ARGON2I_INT,
+    /**
+     * No derivation: the wallet key is a base58 encoded 32 byte key, for example one made by
+     * WalletUtil.generateRawKey. Opening costs no key derivation at all.
+     */
+    RAW;
+
+    /**
+     * @param val the name of the method as used by libindy, or null
+     * @return the method, ARGON2I_MOD when val is null
+     */
+    public static KeyDerivationMethod fromString(String val) {
+        return val == null ? ARGON2I_MOD : valueOf(val);
+    }
+}
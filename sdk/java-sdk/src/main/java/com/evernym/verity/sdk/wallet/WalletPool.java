@@ -0,0 +1,346 @@
+package com.evernym.verity.sdk.wallet;
+
+import com.evernym.verity.sdk.exceptions.WalletCloseException;
+import com.evernym.verity.sdk.exceptions.WalletClosedException;
+import com.evernym.verity.sdk.exceptions.WalletException;
+import com.evernym.verity.sdk.exceptions.WalletOpenException;
+import com.evernym.verity.sdk.jfr.FlightEvent;
+import org.hyperledger.indy.sdk.IndyException;
+import org.hyperledger.indy.sdk.did.Did;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * A fixed set of wallet handles holding the same keys, used to spread crypto work (pack, unpack and signing)
+ * across libindy handles. Instances are created with WalletPoolBuilder.
+ *
+ * libindy does not allow a wallet to be opened twice, so handle 0 is the wallet itself (the primary) and the other
+ * handles are replicas: copies of the primary made with export/import when the pool is created, and deleted when
+ * it is closed. Replicas only hold the keys the primary had at that time, so anything that writes to the wallet
+ * (like creating a DID) must use primary(). A Context built with a pool does this on its own.
+ *
+ * A background health check lists the DIDs of every handle; handles that fail are skipped by lease() and next()
+ * until they pass again. A failed replica is reopened once no lease of it is open; the primary is never reopened,
+ * as the Context built with the pool holds it as its wallet handle.
+ *
+ * Once the pool is closed it hands out no more leases, and every handle is closed only when its leases are closed.
+ */
+public class WalletPool implements Closeable {
+    // how long close() waits for the open leases to be closed
+    private static final long CLOSE_TIMEOUT_MS = 5_000;
+
+    private final Member[] members;
+    private final boolean ownsPrimary;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong healthCheckFailures = new AtomicLong();
+    private final AtomicLong reopened = new AtomicLong();
+    private final ScheduledExecutorService healthChecker;
+    private volatile boolean closed = false;
+
+    WalletPool( // Not a public constructor! Allows work with WalletPoolBuilder
+            WalletConfig config,
+            Wallet primary,
+            int size,
+            IntFunction<WalletConfig> replicaConfigs,
+            long healthCheckIntervalMs) throws WalletException {
+        this.ownsPrimary = primary == null;
+        this.members = new Member[size];
+        this.members[0] = new Member(config, ownsPrimary ? open(config) : primary);
+
+        try {
+            if (size > 1) {
+                createReplicas(replicaConfigs);
+            }
+        } catch (WalletException e) {
+            closeHandles(System.nanoTime());
+            throw e;
+        }
+
+        if (healthCheckIntervalMs > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "verity-sdk-wallet-health");
+                t.setDaemon(true);
+                return t;
+            });
+            this.healthChecker.scheduleWithFixedDelay(
+                    this::checkHealth,
+                    healthCheckIntervalMs,
+                    healthCheckIntervalMs,
+                    TimeUnit.MILLISECONDS
+            );
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    private void createReplicas(IntFunction<WalletConfig> replicaConfigs) throws WalletException {
+        File export = new File(System.getProperty("java.io.tmpdir"), "verity-sdk-wallet-" + UUID.randomUUID());
+        String exportKey = UUID.randomUUID().toString();
+        String exportConfig = new JSONObject()
+                .put("path", export.getAbsolutePath())
+                .put("key", exportKey)
+                .put("key_derivation_method", KeyDerivationMethod.ARGON2I_INT.name()) // short-lived file
+                .toString();
+        try {
+            Wallet.exportWallet(members[0].handle, exportConfig).get();
+            for (int i = 1; i < members.length; i++) {
+                WalletConfig replica = replicaConfigs.apply(i);
+                delete(replica);
+                Wallet.importWallet(replica.config(), replica.credential(), exportConfig).get();
+                members[i] = new Member(replica, open(replica));
+            }
+        } catch (IndyException | ExecutionException | InterruptedException e) {
+            throw new WalletException("Unable to create wallet replica", e);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            export.delete();
+        }
+    }
+
+    /**
+     * @return the wallet handle to use for operations that change the wallet
+     */
+    public Wallet primary() {
+        return members[0].handle;
+    }
+
+    /**
+     * Hands out the handles in turn, skipping the ones that failed their last health check. The handle is not
+     * protected from being reopened by the health check while it is used, see lease().
+     * @return a wallet handle for pack, unpack and signing
+     */
+    public Wallet next() {
+        Member m = pick();
+        m.handedOut.increment();
+        return m.handle;
+    }
+
+    /**
+     * Hands out the handles in turn like next(). The health check does not reopen the handle before the lease
+     * is closed.
+     * @return a lease of a wallet handle for pack, unpack and signing
+     * @throws WalletClosedException when the pool was closed
+     */
+    public Lease lease() throws WalletClosedException {
+        while (true) {
+            Member m = pick();
+            m.inUse.incrementAndGet();
+            // checked after taking the lease: close sets closed before it waits for inUse to drop to 0
+            if (closed) {
+                m.inUse.decrementAndGet();
+                throw new WalletClosedException();
+            }
+            // checked after taking the lease: reopen marks the member unhealthy before it checks inUse
+            if (m.healthy || m == members[0]) {
+                m.handedOut.increment();
+                return new Lease(m, m.handle);
+            }
+            m.inUse.decrementAndGet();
+        }
+    }
+
+    private Member pick() {
+        int start = Math.floorMod(next.getAndIncrement(), members.length);
+        for (int i = 0; i < members.length; i++) {
+            Member m = members[(start + i) % members.length];
+            if (m.healthy) {
+                return m;
+            }
+        }
+        return members[0];
+    }
+
+    public int size() {
+        return members.length;
+    }
+
+    /**
+     * Checks every handle and tries to reopen the replicas that fail and are not leased. Leased replicas are
+     * reopened by a later check. It is called periodically when the pool was built with a health check interval.
+     */
+    public void checkHealth() {
+        for (Member m : members) {
+            if (closed) return;
+            try {
+                Did.getListMyDidsWithMeta(m.handle).get();
+                m.healthy = true;
+            } catch (IndyException | ExecutionException | InterruptedException e) {
+                m.healthy = false;
+                healthCheckFailures.incrementAndGet();
+                if (m != members[0] && m.inUse.get() == 0) {
+                    reopen(m);
+                }
+            }
+        }
+    }
+
+    // called with the member marked unhealthy and not leased, so lease() does not hand out the handle being closed
+    private void reopen(Member m) {
+        try {
+            m.handle.closeWallet().get();
+        } catch (IndyException | ExecutionException | InterruptedException ignored) {
+            // the handle is already unusable
+        }
+        try {
+            m.handle = open(m.config);
+            m.healthy = true;
+            reopened.incrementAndGet();
+        } catch (WalletOpenException ignored) {
+            // retried on the next health check
+        }
+    }
+
+    /**
+     * @return a snapshot of the pool's counters
+     */
+    public WalletPoolStats stats() {
+        long[] handedOut = new long[members.length];
+        int healthy = 0;
+        for (int i = 0; i < members.length; i++) {
+            handedOut[i] = members[i].handedOut.sum();
+            if (members[i].healthy) healthy++;
+        }
+        return new WalletPoolStats(members.length, healthy, handedOut, healthCheckFailures.get(), reopened.get());
+    }
+
+    /**
+     * Closes and deletes the replicas and closes the primary when the pool opened it. No more leases are handed
+     * out; a handle still leased is closed once its leases are closed, waiting for at most 5 seconds in all. Handles
+     * still leased after that are left open, and close fails with an IOException.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        try {
+            closeHandles(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MS));
+        } catch (WalletCloseException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // closes the handles that are not leased by the deadline, the others are left open
+    private void closeHandles(long deadlineNanos) throws WalletCloseException {
+        WalletCloseException failure = null;
+        int leased = 0;
+        for (int i = members.length - 1; i >= 0; i--) {
+            Member m = members[i];
+            if (m == null || (i == 0 && !ownsPrimary)) continue;
+            if (!awaitIdle(m, deadlineNanos)) {
+                leased++;
+                continue;
+            }
+            try {
+                m.handle.closeWallet().get();
+                if (i > 0) {
+                    delete(m.config);
+                }
+            } catch (IndyException | ExecutionException | InterruptedException e) {
+                failure = new WalletCloseException(e);
+            }
+        }
+        if (failure != null) throw failure;
+        if (leased > 0) {
+            throw new WalletCloseException(
+                    new IllegalStateException(leased + " wallet handles were still leased and were left open"));
+        }
+    }
+
+    private static boolean awaitIdle(Member m, long deadlineNanos) {
+        while (m.inUse.get() > 0) {
+            if (System.nanoTime() - deadlineNanos >= 0) return false;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Wallet open(WalletConfig config) throws WalletOpenException {
+        FlightEvent event = FlightEvent.begin(FlightEvent.Kind.OPEN_WALLET);
+        try {
+            return Wallet.openWallet(config.config(), config.credential()).get();
+        } catch (IndyException | ExecutionException | InterruptedException e) {
+            throw new WalletOpenException(e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static void delete(WalletConfig config) {
+        try {
+            Wallet.deleteWallet(config.config(), config.credential()).get();
+        } catch (IndyException | ExecutionException | InterruptedException ignored) {
+            // there was no wallet to delete
+        }
+    }
+
+    /**
+     * A wallet handle of the pool in use, see lease()
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Member member;
+        private final Wallet handle;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(Member member, Wallet handle) {
+            this.member = member;
+            this.handle = handle;
+        }
+
+        /**
+         * @param handle a wallet handle that does not belong to a pool
+         * @return a lease of the handle whose close does nothing
+         */
+        public static Lease unpooled(Wallet handle) {
+            return new Lease(null, handle);
+        }
+
+        public Wallet handle() {
+            return handle;
+        }
+
+        /**
+         * Returns the handle to the pool; closing the lease again does nothing
+         */
+        @Override
+        public void close() {
+            if (member != null && closed.compareAndSet(false, true)) {
+                member.inUse.decrementAndGet();
+            }
+        }
+    }
+
+    private static class Member {
+        final WalletConfig config;
+        final LongAdder handedOut = new LongAdder();
+        final AtomicInteger inUse = new AtomicInteger();
+        volatile Wallet handle;
+        volatile boolean healthy = true;
+
+        Member(WalletConfig config, Wallet handle) {
+            this.config = config;
+            this.handle = handle;
+        }
+    }
+}
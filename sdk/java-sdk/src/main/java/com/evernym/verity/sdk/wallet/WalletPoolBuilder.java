@@ -0,0 +1,88 @@
+package com.evernym.verity.sdk.wallet;
+
+import com.evernym.verity.sdk.exceptions.WalletException;
+import com.evernym.verity.sdk.utils.DbcUtil;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+
+import java.util.function.IntFunction;
+
+public class WalletPoolBuilder {
+    public static final int DEFAULT_SIZE = Runtime.getRuntime().availableProcessors();
+    public static final long DEFAULT_HEALTH_CHECK_INTERVAL_MS = 60_000;
+
+    public static WalletPoolBuilder blank() {
+        return new WalletPoolBuilder();
+    }
+
+    private WalletConfig walletConfig;
+    private Wallet primary;
+    private int size = DEFAULT_SIZE;
+    private IntFunction<WalletConfig> replicaConfigs;
+    private long healthCheckIntervalMs = DEFAULT_HEALTH_CHECK_INTERVAL_MS;
+
+    private WalletPoolBuilder() {}
+
+    public WalletPoolBuilder walletConfig(WalletConfig val) {
+        walletConfig = val;
+        return this;
+    }
+
+    /**
+     * Uses an already open handle as the primary, the pool will not close it
+     * @param val the open wallet handle
+     * @return this builder
+     */
+    public WalletPoolBuilder primary(Wallet val) {
+        primary = val;
+        return this;
+    }
+
+    public WalletPoolBuilder size(int val) {
+        DbcUtil.require(val > 0, "size must be positive");
+        size = val;
+        return this;
+    }
+
+    /**
+     * Sets how the replica wallets are configured. Not needed for a DefaultWalletConfig, whose replicas are named
+     * after the wallet with a "-replica-N" suffix.
+     * @param val returns the configuration of the replica with the given index (1 to size - 1)
+     * @return this builder
+     */
+    public WalletPoolBuilder replicaConfigs(IntFunction<WalletConfig> val) {
+        replicaConfigs = val;
+        return this;
+    }
+
+    /**
+     * @param val the delay between health checks, 0 disables them
+     * @return this builder
+     */
+    public WalletPoolBuilder healthCheckIntervalMs(long val) {
+        DbcUtil.require(val >= 0, "healthCheckIntervalMs must NOT be negative");
+        healthCheckIntervalMs = val;
+        return this;
+    }
+
+    /**
+     * @return a pool with its handles opened
+     * @throws WalletException when a handle can not be opened or a replica can not be created
+     */
+    public WalletPool build() throws WalletException {
+        DbcUtil.requireNotNull(walletConfig, "walletConfig");
+
+        IntFunction<WalletConfig> replicas = replicaConfigs;
+        if (replicas == null && size > 1) {
+            DbcUtil.require(walletConfig instanceof DefaultWalletConfig,
+                    "replicaConfigs must be set when walletConfig is not a DefaultWalletConfig");
+            DefaultWalletConfig config = (DefaultWalletConfig) walletConfig;
+            replicas = i -> DefaultWalletConfig.build(
+                    config.id + "-replica-" + i,
+                    config.key,
+                    config.path,
+                    config.keyDerivationMethod
+            );
+        }
+        return new WalletPool(walletConfig, primary, size, replicas, healthCheckIntervalMs);
+    }
+}
@@ -0,0 +1,62 @@
+package com.evernym.verity.sdk.wallet;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the counters of a WalletPool
+ */
+public final class WalletPoolStats {
+    private final int size;
+    private final int healthy;
+    private final long[] handedOut;
+    private final long healthCheckFailures;
+    private final long reopened;
+
+    WalletPoolStats(int size, int healthy, long[] handedOut, long healthCheckFailures, long reopened) {
+        this.size = size;
+        this.healthy = healthy;
+        this.handedOut = handedOut;
+        this.healthCheckFailures = healthCheckFailures;
+        this.reopened = reopened;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of handles that passed their last health check
+     */
+    public int healthy() {
+        return healthy;
+    }
+
+    /**
+     * @param handle the index of the handle, 0 being the primary
+     * @return how many times the handle was returned by WalletPool.next()
+     */
+    public long handedOut(int handle) {
+        return handedOut[handle];
+    }
+
+    public long totalHandedOut() {
+        return Arrays.stream(handedOut).sum();
+    }
+
+    public long healthCheckFailures() {
+        return healthCheckFailures;
+    }
+
+    /**
+     * @return how many handles were reopened after failing a health check
+     */
+    public long reopened() {
+        return reopened;
+    }
+
+    @Override
+    public String toString() {
+        return "[size: " + size + "; healthy: " + healthy + "; handed out: " + Arrays.toString(handedOut)
+                + "; health check failures: " + healthCheckFailures + "; reopened: " + reopened + "]";
+    }
+}
@@ -0,0 +1,99 @@
+package com.evernym.verity.sdk.jfr;
+
+import org.json.JSONObject;
+
+/**
+ * A JDK Flight Recorder event around an SDK operation, the Java 11 version of the class (see the Java 8 version
+ * for its use). Each Kind is recorded as its own jdk.jfr event type, so they can be enabled separately.
+ */
+public class FlightEvent {
+    /**
+     * The recorded operations, each one a JFR event type named com.evernym.verity.sdk.*
+     */
+    public enum Kind {
+        PACK,
+        UNPACK,
+        SEND,
+        OPEN_WALLET,
+        HANDLE_MESSAGE
+    }
+
+    private static final FlightEvent DISABLED = new FlightEvent(null);
+
+    private final SdkEvent event;
+
+    private FlightEvent(SdkEvent event) {
+        this.event = event;
+    }
+
+    /**
+     * Starts timing an operation
+     * @param kind the operation
+     * @return the event, disabled when the event type is not recorded
+     */
+    public static FlightEvent begin(Kind kind) {
+        SdkEvent event = create(kind);
+        if (!event.isEnabled()) {
+            return DISABLED;
+        }
+        event.begin();
+        return new FlightEvent(event);
+    }
+
+    private static SdkEvent create(Kind kind) {
+        switch (kind) {
+            case PACK: return new SdkEvent.Pack();
+            case UNPACK: return new SdkEvent.Unpack();
+            case SEND: return new SdkEvent.Send();
+            case OPEN_WALLET: return new SdkEvent.OpenWallet();
+            default: return new SdkEvent.HandleMessage();
+        }
+    }
+
+    /**
+     * @return true when the event is recorded, fields only need to be set then
+     */
+    public boolean isEnabled() {
+        return event != null;
+    }
+
+    /**
+     * Sets the message type and thread id of the event from the message's @type and ~thread.thid
+     * @param message the message the operation works on
+     * @return this event
+     */
+    public FlightEvent message(JSONObject message) {
+        if (event != null) {
+            event.messageType = message.optString("@type", null);
+            JSONObject thread = message.optJSONObject("~thread");
+            event.threadId = thread == null ? null : thread.optString("thid", null);
+        }
+        return this;
+    }
+
+    public FlightEvent messageType(String val) {
+        if (event != null) event.messageType = val;
+        return this;
+    }
+
+    public FlightEvent threadId(String val) {
+        if (event != null) event.threadId = val;
+        return this;
+    }
+
+    /**
+     * @param val the size in bytes of the payload the operation works on
+     * @return this event
+     */
+    public FlightEvent payloadSize(long val) {
+        if (event != null) event.payloadSize = val;
+        return this;
+    }
+
+    /**
+     * Ends timing the operation and writes the event to the recording when it is enabled
+     */
+    public void commit() {
+        if (event != null) event.commit();
+    }
+}
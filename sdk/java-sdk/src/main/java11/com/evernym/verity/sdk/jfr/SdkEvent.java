@@ -0,0 +1,51 @@
+package com.evernym.verity.sdk.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The jdk.jfr event types recorded by FlightEvent
+ */
+@Category("Verity SDK")
+@StackTrace(false)
+abstract class SdkEvent extends Event {
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Thread Id")
+    @Description("The ~thread.thid of the message")
+    String threadId;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Name("com.evernym.verity.sdk.Pack")
+    @Label("Pack Message")
+    @Description("Packing a message for Verity, payload size is the packed size")
+    static class Pack extends SdkEvent {}
+
+    @Name("com.evernym.verity.sdk.Unpack")
+    @Label("Unpack Message")
+    @Description("Unpacking a message received from Verity, payload size is the packed size")
+    static class Unpack extends SdkEvent {}
+
+    @Name("com.evernym.verity.sdk.Send")
+    @Label("Send Message")
+    @Description("Posting a packed message to Verity over HTTP")
+    static class Send extends SdkEvent {}
+
+    @Name("com.evernym.verity.sdk.OpenWallet")
+    @Label("Open Wallet")
+    static class OpenWallet extends SdkEvent {}
+
+    @Name("com.evernym.verity.sdk.HandleMessage")
+    @Label("Handle Message")
+    @Description("Running the handlers of a message received from Verity")
+    static class HandleMessage extends SdkEvent {}
+}
@@ -1,6 +1,154 @@
 package com.evernym.verity.sdk.handlers;
 
+import com.evernym.verity.sdk.exceptions.ProblemReportException;
+import com.evernym.verity.sdk.protocols.MessageFamily;
+import com.evernym.verity.sdk.utils.MsgFamilyBuilder;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
 public class HandlersTest {
+    private static final String ISSUE_CRED = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0";
+    private static final String PRESENT_PROOF = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/present-proof/1.0";
+
+    private static MessageFamily family(String familyType) {
+        return MsgFamilyBuilder.fromQualifiedMsgType(familyType + "/any");
+    }
+
+    private static JSONObject message(String msgType) {
+        return new JSONObject().put("@type", msgType).put("@id", "1");
+    }
+
+    @Test
+    public void dispatchesByFamily() {
+        List<String> calls = new ArrayList<>();
+        Handlers handlers = new Handlers();
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> calls.add("issue:" + msgName));
+        handlers.addHandler(family(PRESENT_PROOF), (msgName, message) -> calls.add("proof:" + msgName));
+        handlers.addDefaultHandler(message -> calls.add("default"));
+
+        handlers.handleUnpackedMessage(message(PRESENT_PROOF + "/presentation-result"));
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent"));
+        handlers.handleUnpackedMessage(message("did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/other/1.0/sent"));
+
+        assertEquals("proof:presentation-result", calls.get(0));
+        assertEquals("issue:sent", calls.get(1));
+        assertEquals("default", calls.get(2));
+    }
+
+    @Test
+    public void messageHandlerTakesPrecedence() {
+        List<String> calls = new ArrayList<>();
+        Handlers handlers = new Handlers();
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> calls.add("family:" + msgName));
+        handlers.addHandler(family(ISSUE_CRED), "sent", (msgName, message) -> calls.add("message:" + msgName));
+
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent"));
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/status-report"));
+
+        assertEquals("message:sent", calls.get(0));
+        assertEquals("family:status-report", calls.get(1));
+    }
+
+    @Test
+    public void laterHandlerReplacesEarlier() {
+        List<String> calls = new ArrayList<>();
+        Handlers handlers = new Handlers();
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> calls.add("first"));
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> calls.add("second"));
+
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent"));
+
+        assertEquals(1, calls.size());
+        assertEquals("second", calls.get(0));
+    }
+
+    @Test
+    public void missingOrIncompleteTypeGoesToDefault() {
+        List<String> calls = new ArrayList<>();
+        Handlers handlers = new Handlers();
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> calls.add("family"));
+        handlers.addDefaultHandler(message -> calls.add("default"));
+
+        handlers.handleUnpackedMessage(new JSONObject().put("@id", "1"));
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/"));
+
+        assertEquals(2, calls.size());
+        assertTrue(calls.stream().allMatch("default"::equals));
+    }
+
+    @Test
+    public void dropsDuplicates() {
+        List<String> calls = new ArrayList<>();
+        Handlers handlers = new Handlers();
+        handlers.deduplicate(new MessageDeduplicator());
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> {
+            if (message.optBoolean("fail")) throw new IllegalStateException("failed");
+            calls.add(msgName + ":" + message.getString("@id"));
+        });
+
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent"));
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent"));
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent").put("@id", "2"));
+        assertEquals(2, calls.size());
+
+        try {
+            handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent").put("@id", "3").put("fail", true));
+        } catch (IllegalStateException expected) { }
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent").put("@id", "3"));
+        assertEquals("sent:3", calls.get(2));
+    }
+
+    @Test
+    public void completesReplies() throws Exception {
+        Handlers handlers = new Handlers();
+        List<String> calls = new ArrayList<>();
+        handlers.addHandler(family(ISSUE_CRED), (msgName, message) -> calls.add(msgName));
+
+        CompletableFuture<JSONObject> sent = handlers.awaitReply("t1", "sent", 5, TimeUnit.SECONDS);
+        CompletableFuture<JSONObject> any = handlers.awaitReply("t1", null, 5, TimeUnit.SECONDS);
+        CompletableFuture<JSONObject> failed = handlers.awaitReply("t2", "sent", 5, TimeUnit.SECONDS);
+        assertEquals(3, handlers.pendingReplies());
+
+        JSONObject thread1 = new JSONObject().put("thid", "t1");
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/offer").put("~thread", new JSONObject().put("thid", "other")));
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/status-report").put("~thread", thread1));
+        assertFalse(sent.isDone());
+        assertEquals(ISSUE_CRED + "/status-report", any.get().getString("@type"));
+
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/sent").put("~thread", thread1));
+        assertEquals(ISSUE_CRED + "/sent", sent.get().getString("@type"));
+
+        handlers.handleUnpackedMessage(message(ISSUE_CRED + "/problem-report").put("~thread", new JSONObject().put("thid", "t2")));
+        try {
+            failed.get();
+            fail("Should complete exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ProblemReportException);
+        }
 
+        assertEquals(0, handlers.pendingReplies());
+        assertEquals(4, calls.size()); // the handlers still see every message
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void replyTimesOut() throws Exception {
+        Handlers handlers = new Handlers();
+        CompletableFuture<JSONObject> reply = handlers.awaitReply("t1", "sent", 10, TimeUnit.MILLISECONDS);
+        try {
+            reply.get(5, TimeUnit.SECONDS);
+            fail("Should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(0, handlers.pendingReplies());
+    }
+}
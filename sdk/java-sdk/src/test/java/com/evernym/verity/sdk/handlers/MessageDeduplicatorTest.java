@@ -0,0 +1,45 @@
+package com.evernym.verity.sdk.handlers;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MessageDeduplicatorTest {
+
+    private static JSONObject message(String id, String thid) {
+        JSONObject rtn = new JSONObject().put("@id", id);
+        if (thid != null) rtn.put("~thread", new JSONObject().put("thid", thid));
+        return rtn;
+    }
+
+    @Test
+    public void keyedByIdAndThread() {
+        MessageDeduplicator dedup = new MessageDeduplicator();
+        assertTrue(dedup.firstSeen(message("1", "a")));
+        assertFalse(dedup.firstSeen(message("1", "a")));
+        assertTrue(dedup.firstSeen(message("1", "b")));
+        assertTrue(dedup.firstSeen(message("1", null)));
+        assertTrue(dedup.firstSeen(new JSONObject())); // no @id, never a duplicate
+        assertTrue(dedup.firstSeen(new JSONObject()));
+        assertEquals(1, dedup.duplicates());
+    }
+
+    @Test
+    public void boundedByTimeAndSize() {
+        AtomicLong now = new AtomicLong();
+        MessageDeduplicator dedup = new MessageDeduplicator(2, 1000, now::get);
+        dedup.firstSeen(message("1", null));
+        now.set(500);
+        dedup.firstSeen(message("2", null));
+        now.set(1000);
+        assertEquals(1, dedup.size());
+        assertTrue(dedup.firstSeen(message("1", null)));
+
+        dedup.firstSeen(message("3", null));
+        assertEquals(2, dedup.size());
+        assertTrue(dedup.firstSeen(message("2", null))); // the oldest was dropped for size
+    }
+}
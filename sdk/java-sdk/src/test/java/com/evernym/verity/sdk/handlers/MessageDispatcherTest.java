@@ -0,0 +1,125 @@
+package com.evernym.verity.sdk.handlers;
+
+import com.evernym.verity.sdk.utils.MsgFamilyBuilder;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MessageDispatcherTest {
+    private static final String MSG_TYPE = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0/status-report";
+
+    private static JSONObject message(String thid, int seq) {
+        return new JSONObject()
+                .put("@type", MSG_TYPE)
+                .put("seq", seq)
+                .put("~thread", new JSONObject().put("thid", thid));
+    }
+
+    @Test
+    public void keepsOrderWithinThread() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+            Handlers handlers = new Handlers();
+            handlers.addHandler(MsgFamilyBuilder.fromQualifiedMsgType(MSG_TYPE), (msgName, message) -> {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String thid = message.getJSONObject("~thread").getString("thid");
+                seen.computeIfAbsent(thid, k -> new ArrayList<>()).add(message.getInt("seq"));
+            });
+
+            MessageDispatcher dispatcher = new MessageDispatcher(handlers, executor);
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            for (int seq = 0; seq < 50; seq++) {
+                for (int t = 0; t < 4; t++) {
+                    results.add(dispatcher.dispatch(message("thread-" + t, seq)));
+                }
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            assertEquals(4, seen.size());
+            for (List<Integer> order : seen.values()) {
+                assertEquals(50, order.size());
+                for (int i = 0; i < order.size(); i++) {
+                    assertEquals(Integer.valueOf(i), order.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void blockedThreadDoesNotDelayOthers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Handlers handlers = new Handlers();
+            handlers.addHandler(MsgFamilyBuilder.fromQualifiedMsgType(MSG_TYPE), (msgName, message) -> {
+                JSONObject thread = message.optJSONObject("~thread");
+                if (thread != null && "blocked".equals(thread.getString("thid"))) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            MessageDispatcher dispatcher = new MessageDispatcher(handlers, executor);
+
+            CompletableFuture<Void> blocked = dispatcher.dispatch(message("blocked", 0));
+            CompletableFuture<Void> queued = dispatcher.dispatch(message("blocked", 1));
+            dispatcher.dispatch(message("other", 0)).get(5, TimeUnit.SECONDS);
+            dispatcher.dispatch(new JSONObject().put("@type", MSG_TYPE)).get(5, TimeUnit.SECONDS);
+            assertFalse(blocked.isDone());
+            assertFalse(queued.isDone());
+
+            release.countDown();
+            CompletableFuture.allOf(blocked, queued).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void handlerFailureCompletesExceptionally() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Handlers handlers = new Handlers();
+            handlers.addHandler(MsgFamilyBuilder.fromQualifiedMsgType(MSG_TYPE), (msgName, message) -> {
+                throw new IllegalStateException("boom");
+            });
+            MessageDispatcher dispatcher = new MessageDispatcher(handlers, executor);
+
+            try {
+                dispatcher.dispatch(message("thread-0", 0)).get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+
+            // the thread is not blocked by the failed message
+            handlers.addHandler(MsgFamilyBuilder.fromQualifiedMsgType(MSG_TYPE), (msgName, message) -> { });
+            dispatcher.dispatch(message("thread-0", 1)).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.evernym.verity.sdk.metrics;
+
+import com.evernym.verity.sdk.handlers.Handlers;
+import net.jcip.annotations.NotThreadSafe;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+// recordsDispatch swaps the global recorder, which every test dispatching a message reports to
+@NotThreadSafe
+public class InMemoryMetricsTest {
+    private static final String OFFER = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0/offer";
+
+    @Test
+    public void recordsPerOperationAndType() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.record(Operation.PACK, OFFER, 2_000_000, true);
+        metrics.record(Operation.PACK, OFFER, 4_000_000, false);
+        metrics.record(Operation.SEND, OFFER, 1_000, true);
+        metrics.record(Operation.UNPACK, null, 1_000, false);
+
+        MetricSnapshot pack = metrics.snapshot(Operation.PACK, OFFER);
+        assertEquals("did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0", pack.messageFamily());
+        assertEquals("offer", pack.messageName());
+        assertEquals(2, pack.count());
+        assertEquals(1, pack.errors());
+        assertEquals(3.0, pack.mean(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(4, pack.max(TimeUnit.MILLISECONDS));
+
+        assertEquals(1, metrics.snapshot(Operation.UNPACK, InMemoryMetrics.UNKNOWN).errors());
+        assertNull(metrics.snapshot(Operation.DISPATCH, OFFER));
+        assertEquals(3, metrics.snapshot().size());
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot(Operation.PACK, OFFER).count());
+    }
+
+    @Test
+    public void capsMessageTypesPerOperation() {
+        InMemoryMetrics metrics = new InMemoryMetrics(2);
+        metrics.record(Operation.DISPATCH, OFFER, 1_000, true);
+        metrics.record(Operation.DISPATCH, OFFER + "-1", 1_000, true);
+        metrics.record(Operation.DISPATCH, OFFER + "-2", 1_000, true);
+        metrics.record(Operation.DISPATCH, OFFER + "-3", 1_000, false);
+        metrics.record(Operation.DISPATCH, OFFER, 1_000, true);
+        metrics.record(Operation.PACK, OFFER + "-3", 1_000, true);
+
+        assertEquals(2, metrics.snapshot(Operation.DISPATCH, OFFER).count());
+        assertNull(metrics.snapshot(Operation.DISPATCH, OFFER + "-2"));
+        MetricSnapshot unknown = metrics.snapshot(Operation.DISPATCH, InMemoryMetrics.UNKNOWN);
+        assertEquals(2, unknown.count());
+        assertEquals(1, unknown.errors());
+        assertEquals(1, metrics.snapshot(Operation.PACK, OFFER + "-3").count());
+        assertEquals(4, metrics.snapshot().size());
+    }
+
+    @Test
+    public void exportsToJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.record(Operation.PACK, OFFER, 2_000, true);
+        metrics.exportToJmx(server);
+        metrics.record(Operation.SEND, OFFER, 3_000, false);
+
+        ObjectName pack = InMemoryMetrics.objectName(Operation.PACK, OFFER);
+        assertEquals(1L, server.getAttribute(pack, "Count"));
+        assertEquals("offer", server.getAttribute(pack, "MessageName"));
+
+        ObjectName send = InMemoryMetrics.objectName(Operation.SEND, OFFER);
+        assertEquals(1L, server.getAttribute(send, "Errors"));
+        assertEquals(3L, server.getAttribute(send, "MaxMicros"));
+    }
+
+    @Test
+    public void recordsDispatch() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        MetricsRecorder previous = Metrics.recorder();
+        Metrics.setRecorder(metrics);
+        try {
+            Handlers handlers = new Handlers();
+            handlers.addDefaultHandler(message -> {
+                throw new IllegalStateException();
+            });
+            try {
+                handlers.handleUnpackedMessage(new JSONObject().put("@type", OFFER).put("@id", "1"));
+                fail();
+            } catch (IllegalStateException expected) {
+                // recorded as an error
+            }
+        } finally {
+            Metrics.setRecorder(previous);
+        }
+
+        MetricSnapshot dispatch = metrics.snapshot(Operation.DISPATCH, OFFER);
+        assertEquals(1, dispatch.count());
+        assertEquals(1, dispatch.errors());
+    }
+}
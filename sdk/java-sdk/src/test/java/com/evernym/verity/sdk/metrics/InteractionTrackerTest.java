@@ -0,0 +1,101 @@
+package com.evernym.verity.sdk.metrics;
+
+import com.evernym.verity.sdk.handlers.Handlers;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class InteractionTrackerTest {
+    private static final String PRESENT_PROOF = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/present-proof/1.0";
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * MS);
+
+    private InteractionTracker tracker(int maxOpen) {
+        return new InteractionTracker(maxOpen, 1_000 * MS, Collections.singleton("presentation-result"), now::get);
+    }
+
+    private static JSONObject message(String msgName, String thid) {
+        return new JSONObject()
+                .put("@type", PRESENT_PROOF + "/" + msgName)
+                .put("@id", thid + "-" + msgName)
+                .put("~thread", new JSONObject().put("thid", thid));
+    }
+
+    @Test
+    public void measuresStepsUntilCompletion() {
+        InteractionTracker tracker = tracker(10);
+        tracker.recordOutbound(message("request", "t1"));
+        assertEquals(1, tracker.openInteractions());
+
+        now.addAndGet(100 * MS);
+        tracker.recordInbound(message("status-report", "t1"));
+        now.addAndGet(300 * MS);
+        tracker.recordOutbound(message("status", "t1")); // not a new interaction
+        now.addAndGet(50 * MS);
+        tracker.recordInbound(message("presentation-result", "t1"));
+
+        assertEquals(0, tracker.openInteractions());
+        assertEquals(1, tracker.started());
+        assertEquals(1, tracker.completed());
+
+        InteractionSnapshot result = tracker.snapshot(PRESENT_PROOF, "presentation-result");
+        assertEquals(1, result.sinceStart().count());
+        assertEquals(450, result.sinceStart().max(TimeUnit.MILLISECONDS));
+        assertEquals(50, result.sincePrevious().max(TimeUnit.MILLISECONDS));
+        assertEquals(100, tracker.snapshot(PRESENT_PROOF, "status-report").sinceStart().max(TimeUnit.MILLISECONDS));
+
+        tracker.recordInbound(message("presentation-result", "t1")); // the interaction is over
+        assertEquals(1, tracker.snapshot(PRESENT_PROOF, "presentation-result").sinceStart().count());
+    }
+
+    @Test
+    public void problemReportCompletes() {
+        InteractionTracker tracker = tracker(10);
+        tracker.recordOutbound(message("request", "t1"));
+        tracker.recordInbound(message(InteractionTracker.PROBLEM_REPORT, "t1"));
+        assertEquals(0, tracker.openInteractions());
+        assertEquals(1, tracker.completed());
+    }
+
+    @Test
+    public void abandonsIdleAndExcessInteractions() {
+        InteractionTracker tracker = tracker(10);
+        tracker.recordOutbound(message("request", "idle"));
+        now.addAndGet(1_000 * MS);
+        tracker.recordInbound(message("status-report", "idle"));
+        assertEquals(0, tracker.openInteractions());
+        assertEquals(1, tracker.abandoned());
+        assertNull(tracker.snapshot(PRESENT_PROOF, "status-report"));
+
+        for (int i = 0; i < 11; i++) {
+            now.addAndGet(MS);
+            tracker.recordOutbound(message("request", "t" + i));
+        }
+        assertEquals(9, tracker.openInteractions());
+        assertEquals(3, tracker.abandoned());
+
+        tracker.recordInbound(message("presentation-result", "t10"));
+        assertEquals(1, tracker.completed());
+    }
+
+    @Test
+    public void handlersRecordInbound() {
+        InteractionTracker tracker = tracker(10);
+        tracker.recordOutbound(message("request", "t1"));
+        Metrics.trackInteractions(tracker);
+        try {
+            Handlers handlers = new Handlers();
+            handlers.addDefaultHandler(message -> {});
+            handlers.handleUnpackedMessage(message("presentation-result", "t1"));
+        } finally {
+            Metrics.trackInteractions(null);
+        }
+        assertEquals(1, tracker.completed());
+    }
+}
@@ -0,0 +1,43 @@
+package com.evernym.verity.sdk.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 16; value++) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(index == previous || index == previous + 1);
+            previous = index;
+        }
+        assertTrue(LatencyHistogram.index(Long.MAX_VALUE) > previous);
+    }
+
+    @Test
+    public void valuesAreWithinThreePercent() {
+        for (long value = 1; value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            long estimate = LatencyHistogram.value(LatencyHistogram.index(value));
+            assertEquals(value, estimate, value * 0.032);
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileNanos(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.maxNanos());
+        assertEquals(500_500, histogram.meanNanos(), 0.1);
+        assertEquals(500_000, histogram.percentileNanos(50), 500_000 * 0.032);
+        assertEquals(990_000, histogram.percentileNanos(99), 990_000 * 0.032);
+        assertEquals(1_000_000, histogram.percentileNanos(100));
+    }
+}
@@ -1,12 +1,17 @@
 package com.evernym.verity.sdk.protocols;
 
 import com.evernym.verity.sdk.TestHelpers;
+import com.evernym.verity.sdk.handlers.Handlers;
 import com.evernym.verity.sdk.utils.Context;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
 
 class SomeProtocol extends Protocol {
   private static final String MSG_FAMILY = "some-protocol";
@@ -29,4 +34,27 @@ public class ProtocolTest {
 
     TestHelpers.cleanup(context);
   }
+
+  @Test
+  public void testThreadIdOf() {
+    JSONObject message = new JSONObject().put("@id", "id");
+    assertEquals("id", Protocol.threadIdOf(message));
+    message.put("~thread", new JSONObject().put("thid", "thid"));
+    assertEquals("thid", Protocol.threadIdOf(message));
+    assertNull(Protocol.threadIdOf(new JSONObject().put("hello", "world")));
+  }
+
+  @Test
+  public void testAwaitReplyWithoutThread() throws Exception {
+    Handlers handlers = new Handlers();
+    CompletableFuture<JSONObject> reply = Protocol.sendAndAwaitReply(
+        null, new JSONObject().put("hello", "world"), handlers, null, 1, TimeUnit.SECONDS);
+    try {
+      reply.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+    assertEquals(0, handlers.pendingReplies());
+  }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.evernym.verity.sdk.protocols;
 
 import com.evernym.verity.sdk.TestHelpers;
 import com.evernym.verity.sdk.exceptions.VerityException;
+import com.evernym.verity.sdk.protocols.questionanswer.AskCommonImpl;
+import com.evernym.verity.sdk.protocols.questionanswer.AskQuestionMessage;
 import com.evernym.verity.sdk.protocols.questionanswer.QuestionAnswer;
 import com.evernym.verity.sdk.protocols.questionanswer.v1_0.QuestionAnswerV1_0;
 import com.evernym.verity.sdk.utils.Context;
@@ -9,6 +11,8 @@ import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.*;
 
 public class QuestionAnswerTest {
@@ -51,6 +55,25 @@ public class QuestionAnswerTest {
         testAskMessages(msg);
     }
 
+    @Test
+    public void testAskMessage() throws VerityException {
+        QuestionAnswerV1_0 questionAnswer = QuestionAnswer.v1_0(
+                forRelationship,
+                questionText,
+                questionDetail,
+                validResponses,
+                requireSignature
+        );
+        AskQuestionMessage message = questionAnswer.askMessage(null);
+        assertNotNull(message.threadId());
+
+        JSONObject msg = message.toJson();
+        testAskMessages(msg);
+        assertEquals(questionAnswer.getMessageType(AskCommonImpl.ASK_QUESTION), msg.getString("@type"));
+        assertEquals(message.threadId(), msg.getJSONObject("~thread").getString("thid"));
+        assertTrue(message.toString(), msg.similar(new JSONObject(new String(message.toBytes(), StandardCharsets.UTF_8))));
+    }
+
     private void testAskMessages(JSONObject msg) {
 
         assertNotNull(msg.getString("@id"));
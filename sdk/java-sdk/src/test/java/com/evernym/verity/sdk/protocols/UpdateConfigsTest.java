@@ -3,6 +3,7 @@ package com.evernym.verity.sdk.protocols;
 import com.evernym.verity.sdk.TestHelpers;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.protocols.updateconfigs.UpdateConfigs;
+import com.evernym.verity.sdk.protocols.updateconfigs.UpdateConfigsMessage;
 import com.evernym.verity.sdk.protocols.updateconfigs.v0_6.UpdateConfigsV0_6;
 import com.evernym.verity.sdk.utils.Context;
 import com.evernym.verity.sdk.utils.Util;
@@ -10,6 +11,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -53,6 +55,17 @@ public class UpdateConfigsTest {
         testStatusMsg(msg2);
     }
 
+    @Test
+    public void testUpdateMessage() throws VerityException {
+        UpdateConfigsV0_6 testProtocol = UpdateConfigs.v0_6(name, logoUrl);
+
+        UpdateConfigsMessage message = testProtocol.updateMessage(null);
+        assertNull(message.threadId());
+        testUpdateMsgMessages(message.toJson());
+        assertFalse(message.toJson().has("~thread"));
+        assertTrue(message.toJson().similar(new JSONObject(new String(message.toBytes(), StandardCharsets.UTF_8))));
+    }
+
     private void testUpdateMsgMessages(JSONObject requestMsg) {
         Map<String, String> expectedConfigs = new HashMap<>();
         expectedConfigs.put("name", this.name);
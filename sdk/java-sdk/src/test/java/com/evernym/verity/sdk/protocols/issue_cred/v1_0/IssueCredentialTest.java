@@ -2,16 +2,19 @@ package com.evernym.verity.sdk.protocols.issue_cred.v1_0;
 
 import com.evernym.verity.sdk.TestBase;
 import com.evernym.verity.sdk.protocols.issuecredential.IssueCredential;
+import com.evernym.verity.sdk.protocols.issuecredential.OfferCredentialMessage;
 import com.evernym.verity.sdk.protocols.issuecredential.v1_0.IssueCredentialV1_0;
 import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class IssueCredentialTest extends TestBase {
 
@@ -42,6 +45,18 @@ public class IssueCredentialTest extends TestBase {
         );
     }
 
+    @Test
+    public void testOfferMessage() throws Exception {
+        IssueCredentialV1_0 testProtocol = IssueCredential.v1_0(
+                forRelationship, credDefId, values, comment, price, autoIssue);
+
+        OfferCredentialMessage message = testProtocol.offerCredentialMessage(null);
+        JSONObject msg = message.toJson();
+        assertEquals(values, message.credentialValues());
+        assertEquals(credDefId, msg.getString("cred_def_id"));
+        assertTrue(msg.similar(new JSONObject(new String(message.toBytes(), StandardCharsets.UTF_8))));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testConstructorWithRequiredFieldAsNull() {
         IssueCredential.v1_0(null, null,null, null, null, null);
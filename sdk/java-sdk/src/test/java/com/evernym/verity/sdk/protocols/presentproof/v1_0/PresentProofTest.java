@@ -3,6 +3,7 @@ package com.evernym.verity.sdk.protocols.presentproof.v1_0;
 import com.evernym.verity.sdk.TestHelpers;
 import com.evernym.verity.sdk.exceptions.VerityException;
 import com.evernym.verity.sdk.protocols.presentproof.PresentProof;
+import com.evernym.verity.sdk.protocols.presentproof.ProofRequestMessage;
 import com.evernym.verity.sdk.protocols.presentproof.common.Attribute;
 import com.evernym.verity.sdk.protocols.presentproof.common.Predicate;
 import com.evernym.verity.sdk.protocols.presentproof.common.Restriction;
@@ -12,6 +13,7 @@ import com.evernym.verity.sdk.utils.Util;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
@@ -57,6 +59,21 @@ public class PresentProofTest {
         testStatusMsg(msg2);
     }
 
+    @Test
+    public void testRequestMessage() throws VerityException {
+        PresentProofV1_0 testProtocol = PresentProof.v1_0(
+                forRelationship,
+                proofRequestName,
+                new Attribute[]{attr1},
+                new Predicate[]{pred1}
+        );
+
+        ProofRequestMessage message = testProtocol.requestMessage(null);
+        JSONObject msg = message.toJson();
+        assertEquals(1, msg.getJSONArray("proof_predicates").length());
+        assertTrue(msg.similar(new JSONObject(new String(message.toBytes(), StandardCharsets.UTF_8))));
+    }
+
     private void testRequestMsgMessages(JSONObject requestMsg) {
         assertEquals(
                 "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/present-proof/1.0/request",
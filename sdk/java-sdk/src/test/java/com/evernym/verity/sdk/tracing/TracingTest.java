@@ -0,0 +1,129 @@
+package com.evernym.verity.sdk.tracing;
+
+import com.evernym.verity.sdk.handlers.Handlers;
+import net.jcip.annotations.NotThreadSafe;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+// the tests set the global tracer, which every test sending or handling a message uses
+@NotThreadSafe
+public class TracingTest {
+    private static final String OFFER = "did:sov:BzCbsNYhMrjHiqZDTUASHg;spec/issue-credential/1.0/offer";
+
+    private static class RecordingTracer implements Tracer {
+        final List<String> started = new CopyOnWriteArrayList<>();
+        final List<TraceContext> parents = new CopyOnWriteArrayList<>();
+        final AtomicInteger ended = new AtomicInteger();
+
+        @Override
+        public Span startSpan(String name, TraceContext parent) {
+            started.add(name);
+            parents.add(parent);
+            TraceContext context = parent == null ? TraceContext.newTrace() : parent.newChild();
+            return new Span() {
+                @Override
+                public TraceContext context() {
+                    return context;
+                }
+
+                @Override
+                public Span tag(String key, String value) {
+                    return this;
+                }
+
+                @Override
+                public void error(Throwable error) {}
+
+                @Override
+                public void end() {
+                    ended.incrementAndGet();
+                }
+            };
+        }
+    }
+
+    @After
+    public void resetTracer() {
+        Tracing.setTracer(Tracer.NOOP);
+    }
+
+    @Test
+    public void traceparentRoundTrip() {
+        TraceContext trace = TraceContext.newTrace();
+        assertEquals(trace, TraceContext.fromTraceparent(trace.toTraceparent()));
+        assertEquals(trace.traceId(), trace.newChild().traceId());
+        assertNotEquals(trace.spanId(), trace.newChild().spanId());
+
+        TraceContext parsed = TraceContext.fromTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00");
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", parsed.traceId());
+        assertFalse(parsed.sampled());
+
+        assertNull(TraceContext.fromTraceparent(null));
+        assertNull(TraceContext.fromTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7"));
+        assertNull(TraceContext.fromTraceparent("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.fromTraceparent("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+    }
+
+    @Test
+    public void decoratesMessages() {
+        TraceContext trace = TraceContext.newTrace();
+        JSONObject message = new JSONObject().put("@type", OFFER);
+        Tracing.decorate(message, null);
+        assertFalse(message.has(Tracing.TRACE_DECORATOR));
+
+        Tracing.decorate(message, trace);
+        assertEquals(trace, Tracing.extract(message));
+        assertTrue(message.getJSONObject(Tracing.TIMING_DECORATOR).has("out_time"));
+    }
+
+    @Test
+    public void activateRestoresPrevious() {
+        TraceContext outer = TraceContext.newTrace();
+        TraceContext inner = outer.newChild();
+        try (Tracing.Scope ignored = Tracing.activate(outer)) {
+            try (Tracing.Scope ignored2 = Tracing.activate(inner)) {
+                assertEquals(inner, Tracing.current());
+            }
+            assertEquals(outer, Tracing.current());
+        }
+        assertNull(Tracing.current());
+    }
+
+    @Test
+    public void handlingContinuesTheTraceOfTheMessage() {
+        RecordingTracer tracer = new RecordingTracer();
+        Tracing.setTracer(tracer);
+        List<TraceContext> seenByHandler = new ArrayList<>();
+
+        Handlers handlers = new Handlers();
+        handlers.addDefaultHandler(message -> seenByHandler.add(Tracing.current()));
+
+        TraceContext sender = TraceContext.newTrace();
+        JSONObject message = new JSONObject().put("@type", OFFER).put("@id", "1");
+        Tracing.decorate(message, sender);
+        handlers.handleUnpackedMessage(message);
+
+        assertEquals("verity.receive " + OFFER, tracer.started.get(0));
+        assertEquals(sender, tracer.parents.get(0));
+        assertEquals(1, tracer.ended.get());
+        assertEquals(sender.traceId(), seenByHandler.get(0).traceId());
+        assertNull(Tracing.current());
+    }
+
+    @Test
+    public void noopTracerCreatesNoSpans() {
+        List<TraceContext> seenByHandler = new ArrayList<>();
+        Handlers handlers = new Handlers();
+        handlers.addDefaultHandler(message -> seenByHandler.add(Tracing.current()));
+        handlers.handleUnpackedMessage(new JSONObject().put("@type", OFFER).put("@id", "1"));
+        assertNull(seenByHandler.get(0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.evernym.verity.sdk.transports;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncHTTPTransportTest {
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void startServer() throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setListenerPort(0)
+                .registerHandler("/agency/msg", (request, response, context) -> {
+                    byte[] body = EntityUtils.toByteArray(((HttpEntityEnclosingRequest) request).getEntity());
+                    if ("fail".equals(new String(body))) {
+                        response.setStatusCode(503);
+                    }
+                    response.setEntity(new ByteArrayEntity(body));
+                })
+                .create();
+        server.start();
+        url = "http://localhost:" + server.getLocalPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void manyMessagesInFlight() throws Exception {
+        try (AsyncHTTPTransport transport = new AsyncHTTPTransport()) {
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(transport.sendSyncMessageAsync(url, ("msg-" + i).getBytes()));
+            }
+            for (int i = 0; i < 50; i++) {
+                assertArrayEquals(("msg-" + i).getBytes(), futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(0, transport.poolStats().getLeased());
+        }
+    }
+
+    @Test
+    public void errorStatusCompletesExceptionally() throws Exception {
+        try (AsyncHTTPTransport transport = new AsyncHTTPTransport()) {
+            transport.sendMessageAsync(url, "fail".getBytes()).get(5, TimeUnit.SECONDS);
+            fail("Should complete exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getMessage().contains("503"));
+        }
+    }
+}
@@ -1,17 +1,98 @@
-// This test relies on an external resource that is occasionally unavailable. Removing for now.
+package com.evernym.verity.sdk.transports;
 
-// package com.evernym.verity.sdk.transports;
+import com.evernym.verity.sdk.tracing.TraceContext;
+import com.evernym.verity.sdk.tracing.Tracing;
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
 
-// import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
-// import org.junit.Test;
+import static org.junit.Assert.*;
 
-// public class HTTPTransportTest {
-//     @Test
-//     public void testBasicHttpPost() throws Exception {
-//         Transport transport = new HTTPTransport();
-//         transport.sendMessage("https://jsonplaceholder.typicode.com/posts", "{\"Hello\": \"World!\"}".getBytes());
-//     }
-// }
+public class HTTPTransportTest {
+    private HttpServer server;
+    private String url;
+    private volatile String traceparent;
 
-// TODO we should create some real tests for the transport but not rely on an external service
+    @Before
+    public void startServer() throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setListenerPort(0)
+                .registerHandler("/agency/msg", (request, response, context) -> {
+                    byte[] body = EntityUtils.toByteArray(((HttpEntityEnclosingRequest) request).getEntity());
+                    Header trace = request.getFirstHeader(Tracing.TRACEPARENT_HEADER);
+                    traceparent = trace == null ? null : trace.getValue();
+                    if ("fail".equals(new String(body))) {
+                        response.setStatusCode(503);
+                    }
+                    response.setEntity(new ByteArrayEntity(body));
+                })
+                .create();
+        server.start();
+        url = "http://localhost:" + server.getLocalPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void sendSyncMessageReturnsBody() throws Exception {
+        try (HTTPTransport transport = new HTTPTransport()) {
+            assertArrayEquals("hello".getBytes(), transport.sendSyncMessage(url, "hello".getBytes()));
+        }
+    }
+
+    @Test
+    public void connectionsAreReturnedToPool() throws Exception {
+        HTTPTransportConfig config = HTTPTransportConfigBuilder.blank()
+                .maxConnectionsTotal(1)
+                .connectionRequestTimeoutMs(1000)
+                .build();
+        try (HTTPTransport transport = new HTTPTransport(config)) {
+            for (int i = 0; i < 5; i++) {
+                transport.sendMessage(url, "hello".getBytes());
+            }
+            assertEquals(0, transport.poolStats().getLeased());
+            assertEquals(1, transport.poolStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void errorStatusThrows() throws Exception {
+        try (HTTPTransport transport = new HTTPTransport()) {
+            transport.sendMessage(url, "fail".getBytes());
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("503"));
+        }
+    }
+
+    @Test
+    public void sendsCurrentTraceContext() throws Exception {
+        TraceContext trace = TraceContext.newTrace();
+        try (HTTPTransport transport = new HTTPTransport()) {
+            transport.sendMessage(url, "hello".getBytes());
+            assertNull(traceparent);
+
+            try (Tracing.Scope ignored = Tracing.activate(trace)) {
+                transport.sendMessage(url, "hello".getBytes());
+            }
+            assertEquals(trace.toTraceparent(), traceparent);
+        }
+    }
+
+    @Test
+    public void sharedIsReused() {
+        assertSame(HTTPTransport.shared(), HTTPTransport.shared());
+    }
+}
@@ -0,0 +1,50 @@
+package com.evernym.verity.sdk.transports;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class InFlightTest {
+
+    @Test
+    public void idleTransportIsClosedWhenRetired() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        InFlight inFlight = new InFlight(closed::incrementAndGet);
+
+        inFlight.retire();
+
+        assertEquals(1, closed.get());
+        assertFalse(inFlight.enter());
+    }
+
+    @Test
+    public void retiredTransportIsClosedAfterItsLastRequest() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        InFlight inFlight = new InFlight(closed::incrementAndGet);
+
+        assertTrue(inFlight.enter());
+        assertTrue(inFlight.enter());
+        inFlight.retire();
+        assertEquals(0, closed.get());
+
+        inFlight.exit();
+        assertEquals(0, closed.get());
+        inFlight.exit();
+        assertEquals(1, closed.get());
+        assertFalse(inFlight.enter());
+    }
+
+    @Test
+    public void transportInUseIsNotClosedWithoutRetiring() {
+        AtomicInteger closed = new AtomicInteger();
+        InFlight inFlight = new InFlight(closed::incrementAndGet);
+
+        assertTrue(inFlight.enter());
+        inFlight.exit();
+
+        assertEquals(0, closed.get());
+        assertTrue(inFlight.enter());
+    }
+}
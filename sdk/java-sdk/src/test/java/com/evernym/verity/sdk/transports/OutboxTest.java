@@ -0,0 +1,219 @@
+package com.evernym.verity.sdk.transports;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OutboxTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class RecordingTransport extends Transport {
+        final Set<String> received = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean down = new AtomicBoolean();
+
+        @Override
+        public void sendMessage(String url, byte[] message) throws IOException {
+            if (down.get()) throw new IOException("down");
+            received.add(url + " " + new String(message));
+        }
+    }
+
+    private static int segmentFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(Outbox.SEGMENT_SUFFIX));
+        return files == null ? 0 : files.length;
+    }
+
+    @Test
+    public void deliversAndDeletesSegments() throws Exception {
+        File dir = folder.newFolder();
+        RecordingTransport transport = new RecordingTransport();
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(transport).segmentBytes(256).build()) {
+            List<CompletableFuture<Void>> delivered = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        try {
+                            delivered.add(outbox.send("http://verity", ("msg-" + thread + "-" + i).getBytes()));
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) thread.join();
+
+            CompletableFuture.allOf(delivered.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+            assertEquals(100, transport.received.size());
+            assertTrue(transport.received.contains("http://verity msg-3-24"));
+            assertEquals(0, outbox.pending());
+            assertEquals(1, outbox.segments()); // only the active segment is left
+            assertEquals(1, segmentFiles(dir));
+        }
+    }
+
+    @Test
+    public void replaysPendingMessages() throws Exception {
+        File dir = folder.newFolder();
+        RecordingTransport transport = new RecordingTransport();
+        transport.down.set(true);
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(transport).redeliveryDelayMs(60_000).build()) {
+            for (int i = 0; i < 3; i++) {
+                outbox.sendMessage("http://verity", ("msg-" + i).getBytes());
+            }
+            assertEquals(3, outbox.pending());
+        }
+
+        transport.down.set(false);
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(transport).build()) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (outbox.pending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, outbox.pending());
+            assertEquals(new HashSet<>(java.util.Arrays.asList(
+                    "http://verity msg-0", "http://verity msg-1", "http://verity msg-2")), transport.received);
+            assertEquals(0, outbox.segments());
+            assertEquals(0, segmentFiles(dir));
+        }
+    }
+
+    @Test
+    public void refusedMessageIsNotRetried() throws Exception {
+        File dir = folder.newFolder();
+        AtomicInteger calls = new AtomicInteger();
+        Transport refusing = new Transport() {
+            @Override
+            public void sendMessage(String url, byte[] message) throws IOException {
+                calls.incrementAndGet();
+                throw new TransportException("bad request", 400, -1);
+            }
+        };
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(refusing).redeliveryDelayMs(1).build()) {
+            try {
+                outbox.send("http://verity", "refused".getBytes()).get(5, TimeUnit.SECONDS);
+                fail("Should be refused");
+            } catch (ExecutionException e) {
+                assertEquals(400, ((TransportException) e.getCause()).statusCode());
+            }
+            assertEquals(0, outbox.pending());
+            Thread.sleep(50);
+            assertEquals(1, calls.get());
+        }
+
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(refusing).build()) {
+            assertEquals(0, outbox.pending()); // the dead record is not replayed
+            assertEquals(0, segmentFiles(dir));
+        }
+        assertEquals(1, calls.get());
+        assertTrue(Outbox.isRefused(404));
+        assertFalse(Outbox.isRefused(429));
+        assertFalse(Outbox.isRefused(503));
+    }
+
+    @Test
+    public void retriesRuntimeFailures() throws Exception {
+        File dir = folder.newFolder();
+        AtomicInteger calls = new AtomicInteger();
+        Transport buggy = new Transport() {
+            @Override
+            public void sendMessage(String url, byte[] message) {
+                if (calls.incrementAndGet() == 1) throw new IllegalStateException("bug");
+            }
+        };
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(buggy).redeliveryDelayMs(1).build()) {
+            outbox.send("http://verity", "hello".getBytes()).get(5, TimeUnit.SECONDS);
+            assertEquals(2, calls.get());
+            assertEquals(0, outbox.pending());
+        }
+    }
+
+    @Test
+    public void givesUpAfterMaxDeliveryAttempts() throws Exception {
+        File dir = folder.newFolder();
+        AtomicInteger calls = new AtomicInteger();
+        Transport failing = new Transport() {
+            @Override
+            public void sendMessage(String url, byte[] message) throws IOException {
+                calls.incrementAndGet();
+                throw new IOException("down");
+            }
+        };
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(failing)
+                .redeliveryDelayMs(1).maxDeliveryAttempts(3).build()) {
+            try {
+                outbox.send("http://verity", "lost".getBytes()).get(5, TimeUnit.SECONDS);
+                fail("Should give up");
+            } catch (ExecutionException e) {
+                assertEquals("down", e.getCause().getMessage());
+            }
+            assertEquals(3, calls.get());
+            assertEquals(0, outbox.pending());
+        }
+
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(failing).build()) {
+            assertEquals(0, outbox.pending()); // the dead record is not replayed
+        }
+    }
+
+    @Test
+    public void ignoresTornRecord() throws Exception {
+        File dir = folder.newFolder();
+        RecordingTransport transport = new RecordingTransport();
+        transport.down.set(true);
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(transport).redeliveryDelayMs(60_000).build()) {
+            outbox.sendMessage("http://verity", "first".getBytes());
+            outbox.sendMessage("http://verity", "second".getBytes());
+        }
+
+        // corrupt the last byte of the second record, as if the process died while writing it
+        File segment = dir.listFiles((d, name) -> name.endsWith(Outbox.SEGMENT_SUFFIX))[0];
+        int second = 9 + 4 + "http://verity".length() + "first".length();
+        int end = second + 9 + 4 + "http://verity".length() + "second".length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(end - 1);
+            file.write('X');
+        }
+
+        transport.down.set(false);
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(transport).build()) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (outbox.pending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(Collections.singleton("http://verity first"), transport.received);
+        }
+    }
+
+    @Test
+    public void largeMessageGetsOwnSegment() throws Exception {
+        File dir = folder.newFolder();
+        RecordingTransport transport = new RecordingTransport();
+        try (Outbox outbox = OutboxBuilder.blank().directory(dir).transport(transport).segmentBytes(64).build()) {
+            byte[] large = new byte[1000];
+            java.util.Arrays.fill(large, (byte) 'a');
+            outbox.send("http://verity", large).get(5, TimeUnit.SECONDS);
+            assertTrue(transport.received.contains("http://verity " + new String(large)));
+        }
+    }
+}
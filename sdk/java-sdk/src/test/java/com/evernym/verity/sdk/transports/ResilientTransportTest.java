@@ -0,0 +1,200 @@
+package com.evernym.verity.sdk.transports;
+
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResilientTransportTest {
+
+    /**
+     * Fails with the given errors, in order, then succeeds
+     */
+    private static class FlakyTransport extends Transport {
+        final AtomicInteger calls = new AtomicInteger();
+        private final IOException[] failures;
+
+        FlakyTransport(IOException... failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void sendMessage(String url, byte[] message) throws IOException {
+            int call = calls.getAndIncrement();
+            if (call < failures.length) throw failures[call];
+        }
+    }
+
+    private static ResilienceConfigBuilder fast() {
+        return ResilienceConfigBuilder.blank().initialBackoffMs(1).maxBackoffMs(5);
+    }
+
+    @Test
+    public void retriesTransientFailures() throws Exception {
+        FlakyTransport flaky = new FlakyTransport(
+                new TransportException("busy", 503, -1),
+                new ConnectException("refused")
+        );
+        ResilientTransport transport = new ResilientTransport(flaky, fast().build());
+        transport.sendMessage("http://verity", new byte[0]);
+
+        assertEquals(3, flaky.calls.get());
+        ResilienceStats stats = transport.stats();
+        assertEquals(1, stats.messages());
+        assertEquals(2, stats.retries());
+        assertEquals(1, stats.succeeded());
+        assertEquals(3.0, stats.amplification(), 0.0);
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws Exception {
+        FlakyTransport flaky = new FlakyTransport(new TransportException("bad", 400, -1));
+        ResilientTransport transport = new ResilientTransport(flaky, fast().build());
+        try {
+            transport.sendMessage("http://verity", new byte[0]);
+            fail("Should fail");
+        } catch (TransportException e) {
+            assertEquals(400, e.statusCode());
+        }
+        assertEquals(1, flaky.calls.get());
+        assertEquals(1, transport.stats().failed());
+    }
+
+    @Test
+    public void honoursRetryAfter() throws Exception {
+        FlakyTransport flaky = new FlakyTransport(new TransportException("throttled", 429, 50));
+        ResilientTransport transport = new ResilientTransport(flaky, fast().build());
+        long start = System.nanoTime();
+        transport.sendMessageAsync("http://verity", new byte[0]).get(5, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(1, transport.stats().retryAfterWaits());
+
+        FlakyTransport tooLong = new FlakyTransport(new TransportException("throttled", 429, 120_000));
+        try {
+            new ResilientTransport(tooLong, fast().build()).sendMessage("http://verity", new byte[0]);
+            fail("Should not wait longer than maxRetryAfterMs");
+        } catch (TransportException e) {
+            assertEquals(1, tooLong.calls.get());
+        }
+    }
+
+    @Test
+    public void opensCircuit() throws Exception {
+        IOException down = new ConnectException("down");
+        FlakyTransport flaky = new FlakyTransport(down, down, down, down);
+        ResilientTransport transport = new ResilientTransport(
+                flaky,
+                fast().maxAttempts(1).failureThreshold(2).openDurationMs(100).build()
+        );
+        String url = "http://verity";
+        for (int i = 0; i < 2; i++) {
+            try {
+                transport.sendMessage(url, new byte[0]);
+                fail("Should fail");
+            } catch (ConnectException expected) { }
+        }
+        assertEquals(ResilientTransport.CircuitState.OPEN, transport.circuitState(url));
+        try {
+            transport.sendMessageAsync(url, new byte[0]).get(5, TimeUnit.SECONDS);
+            fail("Should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CircuitOpenException);
+        }
+        assertEquals(2, flaky.calls.get());
+        assertEquals(1, transport.stats().rejected());
+        assertEquals(ResilientTransport.CircuitState.CLOSED, transport.circuitState("http://other"));
+
+        Thread.sleep(150);
+        assertEquals(ResilientTransport.CircuitState.HALF_OPEN, transport.circuitState(url));
+        try {
+            transport.sendMessage(url, new byte[0]); // the trial fails and opens the circuit again
+            fail("Should fail");
+        } catch (ConnectException expected) { }
+        assertEquals(ResilientTransport.CircuitState.OPEN, transport.circuitState(url));
+    }
+
+    @Test
+    public void runtimeFailureOfTrialFreesCircuit() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Transport failing = new Transport() {
+            @Override
+            public void sendMessage(String url, byte[] message) throws IOException {
+                switch (calls.getAndIncrement()) {
+                    case 0: throw new ConnectException("down");
+                    case 1: throw new IllegalStateException("bug");
+                    default: // accepted
+                }
+            }
+        };
+        ResilientTransport transport = new ResilientTransport(
+                failing,
+                fast().maxAttempts(1).failureThreshold(1).openDurationMs(50).build()
+        );
+        String url = "http://verity";
+        try {
+            transport.sendMessage(url, new byte[0]);
+            fail("Should fail");
+        } catch (ConnectException expected) { }
+        Thread.sleep(100);
+        assertEquals(ResilientTransport.CircuitState.HALF_OPEN, transport.circuitState(url));
+
+        try {
+            transport.sendMessage(url, new byte[0]);
+            fail("Should fail");
+        } catch (IllegalStateException expected) { }
+
+        transport.sendMessage(url, new byte[0]); // not rejected by a trial left in flight
+        assertEquals(3, calls.get());
+        assertEquals(ResilientTransport.CircuitState.CLOSED, transport.circuitState(url));
+    }
+
+    @Test
+    public void backoffIsBoundedAndJittered() {
+        ResilientTransport transport = new ResilientTransport(
+                new FlakyTransport(),
+                ResilienceConfigBuilder.blank().initialBackoffMs(100).maxBackoffMs(1000).build()
+        );
+        for (int i = 0; i < 100; i++) {
+            long first = transport.backoffMs(1);
+            assertTrue(first >= 50 && first <= 100);
+            long late = transport.backoffMs(10);
+            assertTrue(late >= 500 && late <= 1000);
+        }
+    }
+
+    @Test
+    public void readsRetryAfterHeader() throws Exception {
+        assertEquals(3000, HTTPTransport.retryAfterMs(" 3 ", 0));
+        assertEquals(-1, HTTPTransport.retryAfterMs("soon", 0));
+        long now = 784111777000L - 10_000;
+        assertEquals(10_000, HTTPTransport.retryAfterMs("Sun, 06 Nov 1994 08:49:37 GMT", now));
+
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = ServerBootstrap.bootstrap()
+                .setListenerPort(0)
+                .registerHandler("/agency/msg", (request, response, context) -> {
+                    if (requests.incrementAndGet() == 1) {
+                        response.setStatusCode(503);
+                        response.setHeader("Retry-After", "0");
+                    }
+                })
+                .create();
+        server.start();
+        try (AsyncHTTPTransport http = new AsyncHTTPTransport()) {
+            ResilientTransport transport = new ResilientTransport(http, fast().build());
+            CompletableFuture<Void> sent = transport.sendMessageAsync("http://localhost:" + server.getLocalPort(), new byte[0]);
+            sent.get(5, TimeUnit.SECONDS);
+            assertEquals(2, requests.get());
+        } finally {
+            server.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.evernym.verity.sdk.transports;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TransportsTest {
+
+    // the installed transports are process-wide, so this only checks the defaults and does not install any
+    @Test
+    public void defaultsToSharedTransports() {
+        assertSame(HTTPTransport.shared(), Transports.transport());
+        assertSame(AsyncHTTPTransport.shared(), Transports.asyncTransport());
+    }
+}
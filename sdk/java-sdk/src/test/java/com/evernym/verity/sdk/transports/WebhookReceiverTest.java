@@ -0,0 +1,122 @@
+package com.evernym.verity.sdk.transports;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WebhookReceiverTest {
+
+    private static int status(CloseableHttpClient client, HttpUriRequest request) throws IOException {
+        try (CloseableHttpResponse response = client.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        }
+    }
+
+    private static HttpPost post(WebhookReceiver receiver, byte[] body) {
+        HttpPost post = new HttpPost("http://localhost:" + receiver.port() + "/webhook");
+        post.setEntity(new ByteArrayEntity(body));
+        return post;
+    }
+
+    @Test
+    public void deliversMessageBytes() throws Exception {
+        List<byte[]> received = new CopyOnWriteArrayList<>();
+        WebhookReceiverConfig config = WebhookReceiverConfigBuilder.blank().port(0).build();
+        try (WebhookReceiver receiver = new WebhookReceiver(config, received::add);
+             CloseableHttpClient client = HttpClients.createDefault()) {
+            receiver.start();
+
+            byte[] message = new byte[10_000];
+            for (int i = 0; i < message.length; i++) {
+                message[i] = (byte) i;
+            }
+            assertEquals(200, status(client, post(receiver, message)));
+            assertEquals(1, received.size());
+            assertArrayEquals(message, received.get(0));
+
+            assertEquals(405, status(client, new HttpGet("http://localhost:" + receiver.port() + "/webhook")));
+        }
+    }
+
+    @Test
+    public void rejectsLargeMessages() throws Exception {
+        WebhookReceiverConfig config = WebhookReceiverConfigBuilder.blank().port(0).maxMessageBytes(100).build();
+        try (WebhookReceiver receiver = new WebhookReceiver(config, message -> fail());
+             CloseableHttpClient client = HttpClients.createDefault()) {
+            receiver.start();
+            assertEquals(413, status(client, post(receiver, new byte[101])));
+        }
+    }
+
+    @Test
+    public void sinkFailureIsServerError() throws Exception {
+        WebhookReceiverConfig config = WebhookReceiverConfigBuilder.blank().port(0).build();
+        try (WebhookReceiver receiver = new WebhookReceiver(config, message -> { throw new IOException("bad"); });
+             CloseableHttpClient client = HttpClients.createDefault()) {
+            receiver.start();
+            try (CloseableHttpResponse response = client.execute(post(receiver, "hello".getBytes()))) {
+                assertEquals(500, response.getStatusLine().getStatusCode());
+                // the failure of the sink is not echoed to the sender
+                assertTrue(response.getEntity() == null || EntityUtils.toByteArray(response.getEntity()).length == 0);
+            }
+        }
+    }
+
+    @Test
+    public void answersTooManyRequestsWhenFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WebhookReceiverConfig config = WebhookReceiverConfigBuilder.blank()
+                .port(0)
+                .workerThreads(1)
+                .queueCapacity(1)
+                .maxMessageBytes(100)
+                .build();
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        try (WebhookReceiver receiver = new WebhookReceiver(config, message -> {
+                 started.countDown();
+                 release.await();
+             });
+             CloseableHttpClient client = HttpClients.custom().setMaxConnPerRoute(5).setMaxConnTotal(5).build()) {
+            receiver.start();
+
+            Future<Integer> busy = senders.submit(() -> status(client, post(receiver, "1".getBytes())));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Integer> queued = senders.submit(() -> status(client, post(receiver, "2".getBytes())));
+            while (receiver.queuedMessages() == 0) {
+                Thread.sleep(5);
+            }
+
+            try (CloseableHttpResponse response = client.execute(post(receiver, "3".getBytes()))) {
+                assertEquals(429, response.getStatusLine().getStatusCode());
+                assertEquals("1", response.getFirstHeader("Retry-After").getValue());
+            }
+            // rejected from its headers, before its body would be found too large
+            assertEquals(429, status(client, post(receiver, new byte[1000])));
+
+            release.countDown();
+            assertEquals(Integer.valueOf(200), busy.get(5, TimeUnit.SECONDS));
+            assertEquals(Integer.valueOf(200), queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.evernym.verity.sdk.utils;
 import com.evernym.verity.sdk.TestHelpers;
 import com.evernym.verity.sdk.TestWallet;
 import com.evernym.verity.sdk.exceptions.VerityException;
+import com.evernym.verity.sdk.wallet.DefaultWalletConfig;
+import com.evernym.verity.sdk.wallet.KeyDerivationMethod;
 import org.hyperledger.indy.sdk.IndyException;
 import org.json.JSONObject;
 import org.junit.Test;
@@ -11,6 +13,7 @@ import java.util.UUID;
 
 import static com.evernym.verity.sdk.TestHelpers.assertEqualsJSONObject;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 public class ContextTest {
@@ -76,6 +79,34 @@ public class ContextTest {
         }
     }
 
+    @Test
+    public void toJsonRawKey() throws Exception {
+        String walletName = UUID.randomUUID().toString();
+        String walletKey = WalletUtil.generateRawKey();
+        DefaultWalletConfig walletConfig = DefaultWalletConfig.build(walletName, walletKey, null, KeyDerivationMethod.RAW);
+        WalletUtil.tryCreateWallet(walletConfig);
+
+        Context context = null;
+        try {
+            JSONObject config = new JSONObject();
+            config.put("walletName", walletName);
+            config.put("walletKey", walletKey);
+            config.put("walletKeyDerivationMethod", "RAW");
+            config.put("verityUrl", "http://localhost:3000");
+            config.put("version", "0.2");
+            context = ContextBuilder.fromJson(config).build();
+            JSONObject json = context.toJson();
+            assertEqualsJSONObject(config, json);
+
+            // libindy does not open a wallet twice, so the wallet is closed before it is opened from the JSON
+            context.closeWallet();
+            context = ContextBuilder.fromJson(json).build();
+            assertEqualsJSONObject(config, context.toJson());
+        } finally {
+            TestHelpers.cleanup(context);
+        }
+    }
+
     @Test
     public void restApiToken() throws VerityException, IndyException {
         Context c = TestHelpers.getContext("000000000000000000000000Team1VAS");
@@ -83,7 +114,10 @@ public class ContextTest {
         String e = "HZ3Ak6pj9ryFASKbA9fpwqjVh42F35UDiCLQ13J58Xoh" +
                 ":4Wf6JtGy9enwwXVKcUgADPq7Pnf9T2YZ8LupMEVxcQQf98uuRYxWGHLAwXWp8DtaEYHo4cUeExDjApMfvLJQ48Kp";
         assertEquals(e, t);
+        assertSame(t, c.restApiToken());
 
+        c.invalidateRestApiToken();
+        assertEquals(e, c.restApiToken());
     }
 
     private JSONObject withNewKeys(JSONObject jsonObject) {
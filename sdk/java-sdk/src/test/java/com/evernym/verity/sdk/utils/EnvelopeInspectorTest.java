@@ -0,0 +1,72 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.exceptions.InvalidEnvelopeException;
+import com.evernym.verity.sdk.exceptions.UndefinedContextException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class EnvelopeInspectorTest {
+
+    static byte[] envelope(String... kids) {
+        JSONArray recipients = new JSONArray();
+        for (String kid : kids) {
+            recipients.put(new JSONObject()
+                    .put("encrypted_key", "abc")
+                    .put("header", new JSONObject().put("kid", kid).put("sender", "xyz").put("iv", "123")));
+        }
+        JSONObject header = new JSONObject()
+                .put("enc", "xchacha20poly1305_ietf")
+                .put("typ", "JWM/1.0")
+                .put("alg", "Authcrypt")
+                .put("recipients", recipients);
+        String protectedHeader = Base64.getUrlEncoder().encodeToString(header.toString().getBytes(StandardCharsets.UTF_8));
+        return new JSONObject()
+                .put("protected", protectedHeader)
+                .put("iv", "iv")
+                .put("ciphertext", "ciphertext")
+                .put("tag", "tag")
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void readsRecipientVerKeys() throws Exception {
+        byte[] packed = envelope("GJ1SzoWzavQYfNL9XkaJdrQejfztN4XqdsiV4ct3LXKL", "7fWvDZ1W7hAjHZ1uf8eeN7XDT5vSTaEGr3QpSfXsQYvh");
+        assertEquals(
+                Arrays.asList("GJ1SzoWzavQYfNL9XkaJdrQejfztN4XqdsiV4ct3LXKL", "7fWvDZ1W7hAjHZ1uf8eeN7XDT5vSTaEGr3QpSfXsQYvh"),
+                EnvelopeInspector.recipientVerKeys(packed)
+        );
+        assertEquals("Authcrypt", EnvelopeInspector.protectedHeader(packed).getString("alg"));
+    }
+
+    @Test
+    public void toleratesWhitespaceAndStandardBase64() throws Exception {
+        JSONObject header = new JSONObject()
+                .put("recipients", new JSONArray().put(new JSONObject().put("header", new JSONObject().put("kid", "k>>?"))));
+        String encoded = Base64.getEncoder().encodeToString(header.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] packed = ("{\n  \"iv\": \"iv\",\n  \"protected\" : \"" + encoded + "\"\n}").getBytes(StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("k>>?"), EnvelopeInspector.recipientVerKeys(packed));
+    }
+
+    @Test(expected = InvalidEnvelopeException.class)
+    public void rejectsPlainJson() throws Exception {
+        EnvelopeInspector.recipientVerKeys("{\"@type\": \"x\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = InvalidEnvelopeException.class)
+    public void rejectsInvalidHeader() throws Exception {
+        EnvelopeInspector.recipientVerKeys("{\"protected\": \"!!!\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = UndefinedContextException.class)
+    public void emptyIndexFindsNothing() throws Exception {
+        new ContextIndex().find(envelope("GJ1SzoWzavQYfNL9XkaJdrQejfztN4XqdsiV4ct3LXKL"));
+    }
+}
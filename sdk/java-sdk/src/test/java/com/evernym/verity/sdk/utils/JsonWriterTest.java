@@ -0,0 +1,67 @@
+package com.evernym.verity.sdk.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JsonWriterTest {
+
+    @Test
+    public void writesNestedValues() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("name", "Joe");
+        values.put("dropped", null);
+
+        JsonWriter out = new JsonWriter(4); // forces the buffer to grow
+        out.beginObject()
+                .name("text").value("hello")
+                .name("count").value(3)
+                .name("flag").value(true)
+                .name("values").value(values)
+                .name("list").value(Arrays.asList("a", 1, false))
+                .name("array").value(new String[]{"x", "y"})
+                .name("json").value(new JSONObject().put("a", new JSONArray().put(1)))
+                .name("nothing").value((Object) null);
+        out.optField("skipped", null);
+        out.endObject();
+
+        assertEquals(
+                "{\"text\":\"hello\",\"count\":3,\"flag\":true,\"values\":{\"name\":\"Joe\"}," +
+                        "\"list\":[\"a\",1,false],\"array\":[\"x\",\"y\"],\"json\":{\"a\":[1]},\"nothing\":null}",
+                out.toString()
+        );
+        assertEquals(out.size(), out.toByteArray().length);
+    }
+
+    @Test
+    public void escapesAndEncodesStrings() {
+        String text = "quote\" backslash\\ tab\t newline\n bell\u0007 \u00e9 \u20ac \ud83d\ude00";
+
+        byte[] written = new JsonWriter().beginObject().name("text").value(text).endObject().toByteArray();
+
+        String json = new String(written, StandardCharsets.UTF_8);
+        assertEquals(text, new JSONObject(json).getString("text"));
+        assertEquals(
+                "{\"text\":\"quote\\\" backslash\\\\ tab\\t newline\\n bell\\u0007 \u00e9 \u20ac \ud83d\ude00\"}",
+                json
+        );
+    }
+
+    @Test
+    public void localWriterIsReset() {
+        JsonWriter first = JsonWriter.local();
+        first.beginObject().name("a").value(1).endObject();
+
+        JsonWriter second = JsonWriter.local();
+        assertSame(first, second);
+        assertEquals(0, second.size());
+        assertEquals("[]", second.beginArray().endArray().toString());
+    }
+}
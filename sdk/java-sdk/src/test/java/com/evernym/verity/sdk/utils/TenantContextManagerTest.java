@@ -0,0 +1,86 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.TestWallet;
+import com.evernym.verity.sdk.exceptions.UndefinedContextException;
+import com.evernym.verity.sdk.handlers.Handlers;
+import com.evernym.verity.sdk.wallet.DefaultWalletConfig;
+import org.hyperledger.indy.sdk.crypto.Crypto;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TenantContextManagerTest {
+
+    @Test(expected = UndefinedContextException.class)
+    public void unknownRecipient() throws Exception {
+        try (TenantContextManager manager = TenantContextManagerBuilder.blank().build()) {
+            manager.handleMessage(new Handlers(), EnvelopeInspectorTest.envelope("GJ1SzoWzavQYfNL9XkaJdrQejfztN4XqdsiV4ct3LXKL"));
+        }
+    }
+
+    @Test
+    public void routesAndEvicts() throws Exception {
+        List<TestWallet> wallets = new ArrayList<>();
+        try (TenantContextManager manager = TenantContextManagerBuilder.blank().maxOpenWallets(2).build()) {
+            List<JSONObject> configs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String walletName = UUID.randomUUID().toString();
+                String walletKey = UUID.randomUUID().toString();
+                TestWallet testWallet = new TestWallet(walletName, walletKey);
+                wallets.add(testWallet);
+
+                JSONObject config = new JSONObject();
+                DefaultWalletConfig.build(walletName, walletKey).addToJson(config);
+                config.put("version", "0.2")
+                        .put("verityUrl", "http://localhost:3000")
+                        .put("verityPublicDID", testWallet.getVerityPublicDID())
+                        .put("verityPublicVerKey", testWallet.getVerityPublicVerkey())
+                        .put("domainDID", testWallet.getVerityPairwiseDID())
+                        .put("verityAgentVerKey", testWallet.getVerityPairwiseVerkey())
+                        .put("sdkVerKeyId", testWallet.getSdkPairwiseDID())
+                        .put("sdkVerKey", testWallet.getSdkPairwiseVerkey());
+                configs.add(config);
+                manager.register(config);
+            }
+            assertEquals(3, manager.size());
+            assertEquals(0, manager.openWallets());
+
+            List<String> received = new ArrayList<>();
+            Handlers handlers = new Handlers();
+            handlers.addDefaultHandler(message -> received.add(message.getString("to")));
+
+            for (JSONObject config : configs) {
+                String domainDID = config.getString("domainDID");
+                byte[] packed = manager.withContext(domainDID, context -> {
+                    try {
+                        return Crypto.packMessage(
+                                context.walletHandle(),
+                                Util.receiverKeys(context.sdkVerKey()),
+                                context.verityAgentVerKey(),
+                                new JSONObject().put("to", domainDID).toString().getBytes(StandardCharsets.UTF_8)
+                        ).get();
+                    } catch (Exception e) {
+                        throw new UndefinedContextException(e.getMessage());
+                    }
+                });
+                manager.handleMessage(handlers, packed);
+                assertTrue(manager.openWallets() <= 2);
+            }
+
+            assertEquals(3, received.size());
+            for (int i = 0; i < configs.size(); i++) {
+                assertEquals(configs.get(i).getString("domainDID"), received.get(i));
+            }
+        } finally {
+            for (TestWallet wallet : wallets) {
+                wallet.close();
+            }
+        }
+    }
+}
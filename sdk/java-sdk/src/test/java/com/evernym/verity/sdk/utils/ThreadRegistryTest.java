@@ -0,0 +1,83 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.handlers.Handlers;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ThreadRegistryTest {
+    private static final String ISSUE_CRED = "did:sov:123456789abcdefghi1234;spec/issue-credential/1.0";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JSONObject message(String thid, String msgName) {
+        return new JSONObject()
+                .put("@type", ISSUE_CRED + "/" + msgName)
+                .put("@id", "1")
+                .put("~thread", new JSONObject().put("thid", thid));
+    }
+
+    @Test
+    public void recordsThreads() throws Exception {
+        AtomicLong now = new AtomicLong(1000);
+        ThreadRegistry registry = new ThreadRegistry(10, 60_000, null, now::get);
+        registry.recordOutbound(message("t1", "offer").put("~for_relationship", "relDID"));
+        now.set(2000);
+
+        Handlers handlers = new Handlers();
+        handlers.trackThreads(registry);
+        handlers.handleUnpackedMessage(message("t1", "sent"));
+        handlers.handleUnpackedMessage(new JSONObject().put("@type", ISSUE_CRED + "/sent")); // no thread
+
+        ThreadState state = registry.get("t1");
+        assertEquals(ISSUE_CRED, state.protocol());
+        assertEquals("sent", state.lastMessage());
+        assertEquals(ThreadState.Direction.INBOUND, state.lastDirection());
+        assertEquals("relDID", state.relationship());
+        assertEquals(1000, state.createdAt());
+        assertEquals(2000, state.updatedAt());
+        assertEquals(2, state.messages());
+        assertEquals(1, registry.size());
+        assertNull(registry.get("t2"));
+    }
+
+    @Test
+    public void boundedByTimeAndSize() throws Exception {
+        AtomicLong now = new AtomicLong();
+        ThreadRegistry registry = new ThreadRegistry(10, 1000, null, now::get);
+        registry.recordOutbound(message("old", "offer"));
+        now.set(1000);
+        assertNull(registry.get("old"));
+
+        for (int i = 0; i < 11; i++) {
+            now.incrementAndGet();
+            registry.recordOutbound(message("t" + i, "offer"));
+        }
+        assertEquals(9, registry.size());
+        assertNull(registry.get("t0"));
+        assertNull(registry.get("t1"));
+        assertNotNull(registry.get("t10"));
+    }
+
+    @Test
+    public void savesAndLoads() throws Exception {
+        File file = new File(folder.getRoot(), "threads.jsonl");
+        try (ThreadRegistry registry = ThreadRegistryBuilder.blank().file(file).build()) {
+            registry.recordOutbound(message("t1", "offer").put("~for_relationship", "relDID"));
+            registry.recordInbound(message("t2", "sent"));
+        }
+
+        ThreadRegistry loaded = ThreadRegistryBuilder.blank().file(file).build();
+        assertEquals(2, loaded.size());
+        assertEquals("relDID", loaded.get("t1").relationship());
+        assertEquals("offer", loaded.get("t1").lastMessage());
+        assertEquals(ThreadState.Direction.INBOUND, loaded.get("t2").lastDirection());
+    }
+}
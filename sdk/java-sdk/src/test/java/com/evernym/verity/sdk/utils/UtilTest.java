@@ -1,11 +1,25 @@
 package com.evernym.verity.sdk.utils;
 
 import com.evernym.verity.sdk.TestHelpers;
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONString;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import static com.evernym.verity.sdk.utils.Util.truncateInviteDetails;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class UtilTest {
@@ -31,6 +45,135 @@ public class UtilTest {
         }
     }
 
+    @Test
+    public void testPackMessagesForVerity() throws Exception {
+        Context context = null;
+        try {
+            context = TestHelpers.getContext();
+
+            List<JSONObject> testMessages = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                testMessages.add(new JSONObject().put("hello", "world").put("i", i));
+            }
+            List<CompletableFuture<byte[]>> packedMessages = Util.packMessagesForVerity(context, testMessages);
+            assertEquals(testMessages.size(), packedMessages.size());
+
+            for (int i = 0; i < testMessages.size(); i++) {
+                JSONObject unpackedMessage = Util.unpackForwardMessage(context, packedMessages.get(i).get());
+                assertEquals(testMessages.get(i).toString(), unpackedMessage.toString());
+            }
+
+            context.closeWallet();
+        } catch(Exception e) {
+            e.printStackTrace();
+            fail();
+        } finally {
+            TestHelpers.cleanup(context);
+        }
+    }
+
+    @Test
+    public void testPackAsyncFailsOnUnserialisableMessage() throws Exception {
+        JSONObject message = new JSONObject().put("x", (JSONString) () -> {
+            throw new IllegalStateException("not JSON");
+        });
+
+        CompletableFuture<byte[]> packed = Util.packMessageForVerityAsync(
+                null, message, "CV65RFpeCtPu82hNF9i61G", "verkey", "verkey", "verkey");
+        try {
+            packed.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JSONException);
+        }
+    }
+
+    @Test
+    public void testUnpackedPayload() {
+        String payload = "{\"@type\":\"x\",\"name\":\"J\u00fcrgen\"}";
+        String unpacked = new JSONObject()
+                .put("recipient_verkey", "5zBBzjVJePd3vfo8c4PPvh3wvrA8aiEKVQzXmVTFrJcw")
+                .put("message", payload)
+                .put("sender_verkey", "7N8NGfE7ea9i4ssSPL3YnhxjENJWUvXNnh5cY6hjGNoU")
+                .toString();
+
+        assertEquals(payload, Util.unpackedPayload(unpacked.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testToBytes() throws Exception {
+        byte[] bytes = "hello world".getBytes(StandardCharsets.UTF_8);
+        assertSame(bytes, Util.toBytes(ByteBuffer.wrap(bytes)));
+
+        ByteBuffer slice = ByteBuffer.wrap(bytes, 6, 5);
+        assertArrayEquals("world".getBytes(StandardCharsets.UTF_8), Util.toBytes(slice));
+        assertEquals(6, slice.position());
+
+        assertArrayEquals(bytes, Util.toBytes(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void testPrepareForwardMessage() {
+        String packed = "{\"protected\":\"eyJlbmMiOiJ4Y2hhY2hhMjBwb2x5MTMwNV9pZXRmIn0=\",\"iv\":\"abc\",\"ciphertext\":\"\u00fc\",\"tag\":\"xyz\"}";
+        byte[] fwd = Util.prepareForwardMessage(
+                Util.forwardPrefix("CV65RFpeCtPu82hNF9i61G"),
+                packed.getBytes(StandardCharsets.UTF_8)
+        );
+
+        JSONObject fwdMessage = new JSONObject(new String(fwd, StandardCharsets.UTF_8));
+        assertEquals("did:sov:123456789abcdefghi1234;spec/routing/1.0/FWD", fwdMessage.getString("@type"));
+        assertEquals("CV65RFpeCtPu82hNF9i61G", fwdMessage.getString("@fwd"));
+        assertEquals(new JSONObject(packed).toString(), fwdMessage.getJSONObject("@msg").toString());
+    }
+
+    @Test
+    public void testUnpackForwardMessageKeepsText() throws Exception {
+        Context context = null;
+        try {
+            context = TestHelpers.getContext();
+
+            JSONObject testMessage = new JSONObject()
+                    .put("@type", "did:sov:123456789abcdefghi1234;spec/test/1.0/x")
+                    .put("text", "J\u00fcrgen says \"hi\" \ud83d\ude00")
+                    .put("nested", new JSONObject().put("@msg", "not the forwarded one"));
+            byte[] packedMessage = Util.packMessageForVerity(context, testMessage);
+
+            JSONObject unpackedMessage = Util.unpackForwardMessage(context, packedMessage);
+            assertTrue(testMessage.similar(unpackedMessage));
+
+            context.closeWallet();
+        } finally {
+            TestHelpers.cleanup(context);
+        }
+    }
+
+    @Test
+    public void testRawField() {
+        String packed = "{\"protected\":\"eyJlbmMiOiJ4Y2hhY2hhMjBwb2x5MTMwNV9pZXRmIn0=\", \"iv\" : \"a\\\"}\",\"ciphertext\":\"\u00fc\",\"tag\":[\"}\",{}]}";
+        String forward = new String(Util.prepareForwardMessage(
+                Util.forwardPrefix("CV65RFpeCtPu82hNF9i61G"),
+                packed.getBytes(StandardCharsets.UTF_8)
+        ), StandardCharsets.UTF_8);
+
+        assertEquals(packed, Util.rawField(forward, "@msg"));
+        assertEquals("\"CV65RFpeCtPu82hNF9i61G\"", Util.rawField(forward, "@fwd"));
+        assertEquals("\"a\\\"}\"", Util.rawField(packed, "iv"));
+        assertEquals("[\"}\",{}]", Util.rawField(packed, "tag"));
+        assertEquals("12", Util.rawField("{ \"a\" : true, \"b\":12}", "b"));
+        try {
+            Util.rawField(packed, "@msg");
+            fail();
+        } catch (JSONException expected) {
+            // no such field
+        }
+    }
+
+    @Test
+    public void testReceiverKeys() {
+        String verkey = "7G3LhXFKXKTMv7XGx1Qc9wqkMbwcU2iLBHL8x1JXWWC2";
+        assertEquals(new JSONArray(new String[]{verkey}).toString(), Util.receiverKeys(verkey));
+    }
+
     @Test
     public void testGetMessageTypeComplete() {
         String msgType = "did:sov:123456789abcdefghi1234;spec/credential/0.1/status";
@@ -0,0 +1,66 @@
+package com.evernym.verity.sdk.utils;
+
+import com.evernym.verity.sdk.TestWallet;
+import com.evernym.verity.sdk.exceptions.WalletOpenException;
+import com.evernym.verity.sdk.wallet.DefaultWalletConfig;
+import com.evernym.verity.sdk.wallet.WalletConfig;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class WalletRegistryTest {
+
+    @Test
+    public void contextsShareAndReleaseHandle() throws Exception {
+        String walletName = UUID.randomUUID().toString();
+        String walletKey = UUID.randomUUID().toString();
+        try (TestWallet testWallet = new TestWallet(walletName, walletKey)) {
+            WalletRegistry registry = new WalletRegistry();
+
+            Context c1 = ContextBuilder.blank()
+                    .walletConfig(testWallet)
+                    .walletRegistry(registry)
+                    .build();
+            Context c2 = ContextBuilder.blank()
+                    .walletConfig(testWallet)
+                    .walletRegistry(registry)
+                    .build();
+            Context derived = c1.toContextBuilder()
+                    .verityUrl("http://example.com")
+                    .build();
+
+            assertSame(c1.walletHandle(), c2.walletHandle());
+            assertSame(c1.walletHandle(), derived.walletHandle());
+            assertEquals(1, registry.size());
+            assertEquals(3, registry.references(testWallet));
+
+            c1.closeWallet();
+            c1.closeWallet(); // closing twice releases once
+            assertEquals(2, registry.references(testWallet));
+            assertFalse(c2.walletIsClosed());
+
+            c2.closeWallet();
+            derived.closeWallet();
+            assertEquals(0, registry.size());
+        }
+    }
+
+    @Test
+    public void failedOpenKeepsNoReference() {
+        WalletConfig missing = DefaultWalletConfig.build(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        WalletRegistry registry = new WalletRegistry();
+
+        try {
+            ContextBuilder.blank()
+                    .walletConfig(missing)
+                    .walletRegistry(registry)
+                    .build();
+            fail("Should throw WalletOpenException");
+        } catch (WalletOpenException e) {
+            assertEquals(0, registry.references(missing));
+            assertEquals(0, registry.size());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.evernym.verity.sdk.wallet;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DefaultWalletConfigTest {
+
+    @Test
+    public void credentialWithoutDerivationMethod() {
+        JSONObject credential = new JSONObject(DefaultWalletConfig.build("wallet", "key").credential());
+        assertEquals("key", credential.getString("key"));
+        assertFalse(credential.has("key_derivation_method"));
+    }
+
+    @Test
+    public void credentialWithDerivationMethod() {
+        DefaultWalletConfig config = DefaultWalletConfig.build("wallet", "key", null, KeyDerivationMethod.RAW);
+        JSONObject credential = new JSONObject(config.credential());
+        assertEquals("key", credential.getString("key"));
+        assertEquals("RAW", credential.getString("key_derivation_method"));
+
+        JSONObject json = new JSONObject();
+        config.addToJson(json);
+        assertEquals("RAW", json.getString("walletKeyDerivationMethod"));
+        assertFalse(json.has("walletPath"));
+    }
+
+    @Test
+    public void keyDerivationMethodFromString() {
+        assertEquals(KeyDerivationMethod.ARGON2I_MOD, KeyDerivationMethod.fromString(null));
+        assertEquals(KeyDerivationMethod.ARGON2I_INT, KeyDerivationMethod.fromString("ARGON2I_INT"));
+    }
+}
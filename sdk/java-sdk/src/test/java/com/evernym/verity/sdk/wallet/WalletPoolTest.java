@@ -0,0 +1,107 @@
+package com.evernym.verity.sdk.wallet;
+
+import com.evernym.verity.sdk.TestWallet;
+import com.evernym.verity.sdk.exceptions.WalletClosedException;
+import com.evernym.verity.sdk.utils.Context;
+import com.evernym.verity.sdk.utils.ContextBuilder;
+import com.evernym.verity.sdk.utils.Util;
+import org.hyperledger.indy.sdk.did.Did;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WalletPoolTest {
+
+    @Test
+    public void packAndUnpackAcrossHandles() throws Exception {
+        String walletName = UUID.randomUUID().toString();
+        String walletKey = UUID.randomUUID().toString();
+        try (TestWallet testWallet = new TestWallet(walletName, walletKey)) {
+            WalletPool pool = WalletPoolBuilder.blank()
+                    .walletConfig(testWallet)
+                    .size(3)
+                    .replicaConfigs(i -> DefaultWalletConfig.build(walletName + "-replica-" + i, walletKey))
+                    .healthCheckIntervalMs(0)
+                    .build();
+
+            Context context = ContextBuilder.blank()
+                    .walletPool(pool)
+                    .verityUrl("http://localhost:3000")
+                    .verityPublicDID(testWallet.getVerityPublicDID())
+                    .verityPublicVerKey(testWallet.getVerityPublicVerkey())
+                    .domainDID(testWallet.getVerityPairwiseDID())
+                    .verityAgentVerKey(testWallet.getVerityPairwiseVerkey())
+                    .sdkVerKeyId(testWallet.getSdkPairwiseDID())
+                    .sdkVerKey(testWallet.getSdkPairwiseVerkey())
+                    .build();
+            try {
+                assertSame(pool.primary(), context.walletHandle());
+
+                for (int i = 0; i < 6; i++) {
+                    JSONObject testMessage = new JSONObject().put("hello", "world").put("i", i);
+                    byte[] packedMessage = Util.packMessageForVerity(context, testMessage);
+                    assertEquals(testMessage.toString(), Util.unpackForwardMessage(context, packedMessage).toString());
+                }
+                assertNotNull(context.restApiToken());
+
+                try (WalletPool.Lease lease = pool.lease()) {
+                    assertNotNull(lease.handle());
+                    pool.checkHealth();
+                    assertEquals(3, pool.stats().healthy());
+                }
+
+                pool.checkHealth();
+                WalletPoolStats stats = pool.stats();
+                assertEquals(3, stats.size());
+                assertEquals(3, stats.healthy());
+                for (int i = 0; i < stats.size(); i++) {
+                    assertTrue(stats.handedOut(i) > 0);
+                }
+            } finally {
+                context.closeWallet();
+            }
+        }
+    }
+
+    @Test
+    public void closeWaitsForLeases() throws Exception {
+        String walletName = UUID.randomUUID().toString();
+        String walletKey = UUID.randomUUID().toString();
+        try (TestWallet testWallet = new TestWallet(walletName, walletKey)) {
+            WalletPool pool = WalletPoolBuilder.blank()
+                    .walletConfig(testWallet)
+                    .size(2)
+                    .replicaConfigs(i -> DefaultWalletConfig.build(walletName + "-replica-" + i, walletKey))
+                    .healthCheckIntervalMs(0)
+                    .build();
+
+            WalletPool.Lease lease = pool.lease();
+            CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+                try {
+                    pool.close();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(closed.isDone());
+            try {
+                pool.lease();
+                fail();
+            } catch (WalletClosedException expected) {
+                // no leases once closing
+            }
+
+            Did.getListMyDidsWithMeta(lease.handle()).get(); // the leased handle is still open
+            lease.close();
+            closed.get(5, TimeUnit.SECONDS);
+        }
+    }
+}